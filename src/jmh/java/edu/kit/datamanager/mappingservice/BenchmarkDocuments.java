@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generator for documents and mappings used by benchmarks. All documents have
+ * the form {"items": [{"id": 0, "name": "item-0", "description": "..."}, ...]}
+ * and the provided mappings rename the fields of each item.
+ *
+ * @author jejkal
+ */
+public final class BenchmarkDocuments {
+
+    /**
+     * Jolt specification renaming id and name of each item.
+     */
+    public static final String JOLT_MAPPING = "[{\"operation\": \"shift\", \"spec\": {\"items\": {\"*\": {"
+            + "\"id\": \"records[&1].identifier\", \"name\": \"records[&1].title\"}}}}]";
+
+    /**
+     * Jsonata expression renaming id and name of each item.
+     */
+    public static final String JSONATA_MAPPING = "{\"records\": items.{\"identifier\": id, \"title\": name}}";
+
+    private static final String DESCRIPTION = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor.";
+
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * Create a JSON document of approximately the provided size.
+     *
+     * @param directory The directory to create the document in.
+     * @param size The size of the document in bytes.
+     *
+     * @return The path of the document.
+     *
+     * @throws IOException If writing the document fails.
+     */
+    public static Path createJsonDocument(Path directory, long size) throws IOException {
+        Path document = Files.createTempFile(directory, "input_" + size + "_", ".json");
+        try (BufferedWriter writer = Files.newBufferedWriter(document, StandardCharsets.UTF_8)) {
+            long written = 0;
+            writer.write("{\"items\": [");
+            for (int i = 0; written < size; i++) {
+                String item = String.format("%s{\"id\": %d, \"name\": \"item-%d\", \"description\": \"%s\"}", (i > 0) ? ", " : "", i, i, DESCRIPTION);
+                writer.write(item);
+                written += item.length();
+            }
+            writer.write("]}");
+        }
+        return document;
+    }
+
+    /**
+     * Write a mapping document.
+     *
+     * @param directory The directory to create the mapping in.
+     * @param content The mapping, e.g., JOLT_MAPPING.
+     *
+     * @return The path of the mapping.
+     *
+     * @throws IOException If writing the mapping fails.
+     */
+    public static Path createMapping(Path directory, String content) throws IOException {
+        Path mapping = Files.createTempFile(directory, "mapping", ".mapping");
+        return Files.writeString(mapping, content);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.impl;
+
+import edu.kit.datamanager.mappingservice.BenchmarkDocuments;
+import edu.kit.datamanager.mappingservice.MappingServiceApplication;
+import edu.kit.datamanager.mappingservice.domain.MappingRecord;
+import edu.kit.datamanager.mappingservice.plugins.MappingPluginException;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmark of MappingService.executeMapping using InOutPlugin, i.e.,
+ * lookup of the mapping record, plugin invocation and result handling. The
+ * application context is started once per trial using the test
+ * configuration, which can be changed via system property
+ * 'applicationProperties'.
+ *
+ * @author jejkal
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MappingServiceBenchmark {
+
+    private static final String MAPPING_ID = "inOutBenchmark";
+    private static final String MAPPING_TYPE = "InOutPlugin_2.0.0";
+
+    @Param({"1024", "1048576"})
+    public long documentSize;
+
+    private ConfigurableApplicationContext context;
+    private MappingService mappingService;
+    private Path workDir;
+    private Path document;
+    private Path input;
+    private Path result;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String configLocation = System.getProperty("applicationProperties", "src/test/resources/test-config/application-test.properties");
+        context = new SpringApplicationBuilder(MappingServiceApplication.class)
+                .properties("spring.config.location=" + configLocation,
+                        "spring.datasource.url=jdbc:h2:mem:db_benchmark;DB_CLOSE_DELAY=-1",
+                        "server.port=0")
+                .run();
+        mappingService = context.getBean(MappingService.class);
+
+        MappingRecord mappingRecord = new MappingRecord();
+        mappingRecord.setMappingId(MAPPING_ID);
+        mappingRecord.setMappingType(MAPPING_TYPE);
+        mappingRecord.setTitle("Benchmark");
+        mappingRecord.setDescription("Mapping used for benchmarking.");
+        mappingService.deleteMapping(mappingRecord);
+        mappingService.createMapping("{}", mappingRecord);
+
+        workDir = Files.createTempDirectory("mappingServiceBenchmark");
+        document = BenchmarkDocuments.createJsonDocument(workDir, documentSize);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareInput() throws IOException {
+        //the input is removed by executeMapping
+        input = Files.copy(document, workDir.resolve("input.json"));
+    }
+
+    @TearDown(Level.Invocation)
+    public void removeResult() throws IOException {
+        Files.deleteIfExists(input);
+        if (result != null) {
+            Files.deleteIfExists(result);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    @Benchmark
+    public Optional<Path> executeMapping() throws MappingPluginException {
+        Optional<Path> output = mappingService.executeMapping(input.toUri(), MAPPING_ID);
+        result = output.orElse(null);
+        return output;
+    }
+}
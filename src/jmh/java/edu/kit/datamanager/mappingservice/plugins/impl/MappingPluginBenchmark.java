@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins.impl;
+
+import com.bazaarvoice.jolt.Chainr;
+import edu.kit.datamanager.mappingservice.BenchmarkDocuments;
+import edu.kit.datamanager.mappingservice.plugins.MappingPluginException;
+import edu.kit.datamanager.mappingservice.plugins.MappingPluginState;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the mapping execution of JoltPlugin and JsonataPlugin with
+ * documents from 1 KB up to 50 MB. Mappings are compiled once, as they are
+ * cached by the PluginManager, such that only mapFile is measured.
+ *
+ * @author jejkal
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MappingPluginBenchmark {
+
+    @Param({"1024", "1048576", "10485760", "52428800"})
+    public long documentSize;
+
+    private Path workDir;
+    private Path input;
+    private Path output;
+    private JoltPlugin joltPlugin;
+    private Chainr joltMapping;
+    private JsonataPlugin jsonataPlugin;
+    private JsonataExpressionPool jsonataMapping;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, MappingPluginException {
+        workDir = Files.createTempDirectory("mappingPluginBenchmark");
+        input = BenchmarkDocuments.createJsonDocument(workDir, documentSize);
+        output = workDir.resolve("output.json");
+
+        joltPlugin = new JoltPlugin();
+        joltMapping = joltPlugin.compile(BenchmarkDocuments.createMapping(workDir, BenchmarkDocuments.JOLT_MAPPING));
+        jsonataPlugin = new JsonataPlugin();
+        jsonataMapping = jsonataPlugin.compile(BenchmarkDocuments.createMapping(workDir, BenchmarkDocuments.JSONATA_MAPPING));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    @Benchmark
+    public MappingPluginState joltMapFile() throws MappingPluginException {
+        return joltPlugin.mapFile(joltMapping, input, output);
+    }
+
+    @Benchmark
+    public MappingPluginState jsonataMapFile() throws MappingPluginException {
+        return jsonataPlugin.mapFile(jsonataMapping, input, output);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark for content sniffing of typical and adversarial headers. The
+ * adversarial header consists of '{"' followed by spaces and a character
+ * matched neither by '.' nor by '\s'. The regular expressions previously used
+ * for JSON and XML detection are kept as baseline. The padding is kept small,
+ * as the time needed by the regular expressions grows exponentially with it
+ * for the adversarial header.
+ *
+ * @author jejkal
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ContentSnifferBenchmark {
+
+    private static final Pattern LEGACY_JSON_PATTERN = Pattern.compile("(\\R\\s)*\\s*\\{\\s*\"(.|\\s)*", Pattern.MULTILINE);
+    private static final Pattern LEGACY_XML_PATTERN = Pattern.compile("((.|\\s)*<\\?xml[^<]*)?\\s*<\\s*(\\w+:)?\\w+(.|\\s)*", Pattern.MULTILINE);
+
+    @Param({"json", "xml", "csv", "adversarial"})
+    public String documentType;
+
+    @Param({"8", "16", "20"})
+    public int padding;
+
+    private byte[] header;
+    private String headerString;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String spaces = " ".repeat(padding);
+        String content = switch (documentType) {
+            case "json" -> "{\"title\": \"benchmark\"," + spaces + "\"items\": [1, 2, 3]}";
+            case "xml" -> "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + spaces + "<record><title>benchmark</title></record>";
+            case "csv" -> "title,items\nbenchmark,1\n" + spaces + "benchmark,2\nbenchmark,3\n";
+            default -> "{\"" + spaces + "\u0085";
+        };
+        headerString = content;
+        header = content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ContentSniffer.ContentType sniff() {
+        return ContentSniffer.sniff(header);
+    }
+
+    @Benchmark
+    public boolean legacyRegex() {
+        return LEGACY_JSON_PATTERN.matcher(headerString).matches() || LEGACY_XML_PATTERN.matcher(headerString).matches();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.util;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Benchmarks for file type detection, i.e., the guessing of file extensions
+ * and the detection of mime types, for JSON, XML and binary (ZIP) documents.
+ *
+ * @author jejkal
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FileUtilBenchmark {
+
+    @Param({"json", "xml", "zip"})
+    public String documentType;
+
+    private Path workDir;
+    private Path document;
+    private byte[] header;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("fileUtilBenchmark");
+        header = switch (documentType) {
+            case "json" -> "{\"title\": \"benchmark\", \"items\": [1, 2, 3]}".getBytes(StandardCharsets.UTF_8);
+            case "xml" -> "<?xml version=\"1.0\" encoding=\"UTF-8\"?><record><title>benchmark</title></record>".getBytes(StandardCharsets.UTF_8);
+            default -> createZip();
+        };
+        //use the expected extension, such that the file is not renamed by fixFileExtension
+        document = Files.write(workDir.resolve("document." + documentType), header);
+    }
+
+    private static byte[] createZip() throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bout)) {
+            zip.putNextEntry(new ZipEntry("record.json"));
+            zip.write("{\"title\": \"benchmark\"}".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return bout.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    @Benchmark
+    public String guessFileExtension() {
+        return FileUtil.guessFileExtension("document", header);
+    }
+
+    @Benchmark
+    public Path fixFileExtension() {
+        return FileUtil.fixFileExtension(document);
+    }
+
+    @Benchmark
+    public String getMimeType() {
+        return FileUtil.getMimeType(document);
+    }
+}
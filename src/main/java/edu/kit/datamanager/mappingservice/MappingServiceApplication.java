@@ -18,11 +18,13 @@ import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EntityScan("edu.kit.datamanager")
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class MappingServiceApplication {
 
     @Autowired
@@ -45,7 +47,7 @@ public class MappingServiceApplication {
     @Bean
     public PluginManager pluginManager() {
         PythonRunnerUtil.init(applicationProperties());
-        ShellRunnerUtil.init(applicationProperties());
+        ShellRunnerUtil.init(applicationProperties(), meterRegistry);
         return new PluginManager(applicationProperties(), pluginLoader(), meterRegistry);
     }
 
@@ -83,6 +83,309 @@ public class ApplicationProperties {
     @Value("${mapping-service.executionTimeout:30}")
     private int executionTimeout;
 
+    /**
+     * The maximum size of an input document in bytes. Larger uploads are
+     * rejected with HTTP 413 as soon as the limit is exceeded. A value of 0 or
+     * less disables the limit.
+     */
+    @Value("${mapping-service.maxDocumentSize:104857600}")
+    private long maxDocumentSize = 104857600L;
+
+    /**
+     * Use virtual threads for request handling, asynchronous mapping jobs and
+     * process I/O. This is the Spring Boot setting, which is read here to
+     * apply it also to threads created by the mapping-service.
+     */
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled = false;
+
+    /**
+     * The maximum number of compiled mapping documents, e.g., Jolt
+     * specifications, kept in memory.
+     */
+    @Value("${mapping-service.compiledMappingCacheSize:100}")
+    private long compiledMappingCacheSize = 100;
+
+    /**
+     * The time in seconds after which a compiled mapping document is evicted
+     * from the cache if it was not used.
+     */
+    @Value("${mapping-service.compiledMappingCacheIdleTimeout:3600}")
+    private long compiledMappingCacheIdleTimeout = 3600;
+
+    /**
+     * The number of long-lived Python worker processes started per Python
+     * plugin. If 0, a new Python process is started for each mapping
+     * execution. Workers are only used if the plugin ships a worker entry
+     * point.
+     */
+    @Value("${mapping-service.pythonWorkerPoolSize:0}")
+    private int pythonWorkerPoolSize = 0;
+
+    /**
+     * The number of mapping executions after which a Python worker process is
+     * replaced by a new one.
+     */
+    @Value("${mapping-service.pythonWorkerMaxRequests:1000}")
+    private int pythonWorkerMaxRequests = 1000;
+
+    /**
+     * The resident memory in megabytes above which a Python worker process is
+     * replaced by a new one after finishing its current mapping execution. If
+     * 0, the memory usage is not checked.
+     */
+    @Value("${mapping-service.pythonWorkerMaxMemory:0}")
+    private long pythonWorkerMaxMemory = 0;
+
+    /**
+     * The number of threads kept for asynchronous mapping jobs. If lower than
+     * asyncMaxPoolSize, idle threads are stopped after one minute.
+     */
+    @Value("${mapping-service.asyncCorePoolSize:3}")
+    private int asyncCorePoolSize = 3;
+
+    /**
+     * The maximum number of threads for asynchronous mapping jobs, i.e., the
+     * maximum number of concurrently running jobs.
+     */
+    @Value("${mapping-service.asyncMaxPoolSize:3}")
+    private int asyncMaxPoolSize = 3;
+
+    /**
+     * The number of asynchronous mapping jobs waiting for execution before new
+     * jobs are rejected.
+     */
+    @Value("${mapping-service.asyncQueueCapacity:100}")
+    private int asyncQueueCapacity = 100;
+
+    /**
+     * The policy applied if the queue for asynchronous mapping jobs is full.
+     * ABORT rejects new jobs with HTTP 429, CALLER_RUNS executes new jobs in
+     * the request thread.
+     */
+    @Value("${mapping-service.asyncRejectionPolicy:ABORT}")
+    private String asyncRejectionPolicy = "ABORT";
+
+    /**
+     * The time in seconds returned via Retry-After header if an asynchronous
+     * mapping job was rejected.
+     */
+    @Value("${mapping-service.asyncRetryAfter:30}")
+    private int asyncRetryAfter = 30;
+
+    /**
+     * The entity asynchronous mapping jobs are queued for, i.e., PRINCIPAL or
+     * MAPPING. Queues are served in turns, such that a single principal or
+     * mapping cannot delay the jobs of all others.
+     */
+    @Value("${mapping-service.asyncFairShare:PRINCIPAL}")
+    private String asyncFairShare = "PRINCIPAL";
+
+    /**
+     * Weights of job queues as list of queue=weight entries, where queue is a
+     * principal or mapping id depending on asyncFairShare. A queue with weight
+     * n may start up to n jobs per turn. Queues not listed have weight 1.
+     */
+    @Value("${mapping-service.asyncQueueWeights:}")
+    private String[] asyncQueueWeights = {};
+
+    /**
+     * The maximum number of concurrently running asynchronous mapping jobs
+     * per principal. If 0, the number is not limited.
+     */
+    @Value("${mapping-service.asyncMaxJobsPerPrincipal:0}")
+    private int asyncMaxJobsPerPrincipal = 0;
+
+    /**
+     * Enable caching of mapping results for identical input documents.
+     */
+    @Value("${mapping-service.resultCacheEnabled:false}")
+    private boolean resultCacheEnabled = false;
+
+    /**
+     * The absolute path where cached mapping results are stored. If not set,
+     * the folder '.resultCache' inside jobOutputLocation is used.
+     */
+    @Value("${mapping-service.resultCacheLocation:#{null}}")
+    private URL resultCacheLocation;
+
+    /**
+     * The maximum size of all cached mapping results in bytes.
+     */
+    @Value("${mapping-service.resultCacheMaxSize:1073741824}")
+    private long resultCacheMaxSize = 1073741824L;
+
+    /**
+     * The maximum number of finished asynchronous mapping jobs kept. If
+     * exceeded, the oldest jobs are removed together with their outputs.
+     */
+    @Value("${mapping-service.jobMaxCount:10000}")
+    private int jobMaxCount = 10000;
+
+    /**
+     * The time in seconds after which finished asynchronous mapping jobs are
+     * removed together with their outputs. A value of 0 or less keeps jobs
+     * until they are deleted or evicted due to jobMaxCount.
+     */
+    @Value("${mapping-service.jobTimeToLive:86400}")
+    private long jobTimeToLive = 86400;
+
+    /**
+     * The interval in seconds in which expired jobs are removed.
+     */
+    @Value("${mapping-service.jobReaperInterval:300}")
+    private long jobReaperInterval = 300;
+
+    /**
+     * The id of this service instance, which is stored with each asynchronous
+     * mapping job. At startup, only unfinished jobs of this instance are
+     * marked as failed, such that instances sharing a database do not fail
+     * each other's jobs. If empty, the host name is used.
+     */
+    @Value("${mapping-service.instanceId:}")
+    private String instanceId = "";
+
+    /**
+     * Pretty print JSON results if not specified otherwise by a request.
+     */
+    @Value("${mapping-service.prettyPrintResults:true}")
+    private boolean prettyPrintResults = true;
+
+    /**
+     * The heap memory in bytes a single JSON transformation, e.g., by
+     * JoltPlugin, may use. The memory required is estimated from the size of
+     * the input document using jsonMemoryFactor. Larger documents are rejected
+     * with HTTP 413. A value of 0 or less uses half of the maximum heap size.
+     */
+    @Value("${mapping-service.jsonMemoryBudget:0}")
+    private long jsonMemoryBudget = 0;
+
+    /**
+     * The estimated heap memory required per byte of a JSON input document,
+     * covering the parsed input document and the transformation result.
+     */
+    @Value("${mapping-service.jsonMemoryFactor:8}")
+    private int jsonMemoryFactor = 8;
+
+    /**
+     * The number of plugins set up in parallel, e.g., while cloning
+     * repositories and creating virtual environments of Python-based plugins.
+     */
+    @Value("${mapping-service.pluginSetupThreads:4}")
+    private int pluginSetupThreads = 4;
+
+    /**
+     * The time in seconds the setup of a single plugin may take. Plugins
+     * exceeding this time are not available until the next reload.
+     */
+    @Value("${mapping-service.pluginSetupTimeout:600}")
+    private long pluginSetupTimeout = 600;
+
+    /**
+     * The time in seconds startup and plugin reloads wait for the setup of
+     * plugins. Plugins not ready by then become available as soon as their
+     * setup has finished.
+     */
+    @Value("${mapping-service.pluginSetupWait:10}")
+    private long pluginSetupWait = 10;
+
+    /**
+     * The sliding windows in seconds for which the number of unique users is
+     * estimated and published as metric.
+     */
+    @Value("${mapping-service.uniqueUserWindows:3600,86400}")
+    private long[] uniqueUserWindows = {3600, 86400};
+
+    /**
+     * The maximum number of mapping descriptors cached for mapping
+     * executions.
+     */
+    @Value("${mapping-service.mappingCacheSize:1000}")
+    private long mappingCacheSize = 1000;
+
+    /**
+     * The time in seconds after which cached mapping descriptors are loaded
+     * from the database again. Changes made via this instance take effect
+     * immediately, this only bounds the delay for changes made by other
+     * instances sharing the database.
+     */
+    @Value("${mapping-service.mappingCacheTimeToLive:300}")
+    private long mappingCacheTimeToLive = 300;
+
+    /**
+     * The size in bytes up to which mapping documents are held on-heap. Larger
+     * mapping documents are mapped read-only into memory.
+     */
+    @Value("${mapping-service.mappingDocumentHeapThreshold:1048576}")
+    private long mappingDocumentHeapThreshold = 1048576;
+
+    /**
+     * The maximum number of concurrent executions per plugin. 0 means
+     * unlimited.
+     */
+    @Value("${mapping-service.pluginConcurrencyLimit:0}")
+    private int pluginConcurrencyLimit = 0;
+
+    /**
+     * Concurrency limits of single plugins as list of plugin=limit entries,
+     * where plugin is a plugin id or name. These override
+     * pluginConcurrencyLimit, a limit of 0 means unlimited.
+     */
+    @Value("${mapping-service.pluginConcurrencyLimits:}")
+    private String[] pluginConcurrencyLimits = {};
+
+    /**
+     * Either FIXED to use the concurrency limit of a plugin as it is, or
+     * ADAPTIVE to tune it from observed execution times, using the configured
+     * limit as upper bound.
+     */
+    @Value("${mapping-service.pluginConcurrencyMode:FIXED}")
+    private String pluginConcurrencyMode = "FIXED";
+
+    /**
+     * The maximum number of executions per plugin waiting for the
+     * concurrency limit. Further executions are rejected immediately.
+     */
+    @Value("${mapping-service.pluginQueueSize:50}")
+    private int pluginQueueSize = 50;
+
+    /**
+     * The time in seconds an execution waits for the concurrency limit of its
+     * plugin before it is rejected.
+     */
+    @Value("${mapping-service.pluginQueueTimeout:30}")
+    private long pluginQueueTimeout = 30;
+
+    /**
+     * The CPU time in seconds a process started by a plugin, including all
+     * processes it starts, may use. 0 means unlimited.
+     */
+    @Value("${mapping-service.processCpuTimeLimit:0}")
+    private long processCpuTimeLimit = 0;
+
+    /**
+     * CPU time limits of processes of single plugins as list of plugin=limit
+     * entries, where plugin is a plugin id or name. These override
+     * processCpuTimeLimit, a limit of 0 means unlimited.
+     */
+    @Value("${mapping-service.processCpuTimeLimits:}")
+    private String[] processCpuTimeLimits = {};
+
+    /**
+     * The address space in bytes each process started by a plugin may use. 0
+     * means unlimited.
+     */
+    @Value("${mapping-service.processMemoryLimit:0}")
+    private long processMemoryLimit = 0;
+
+    /**
+     * Memory limits of processes of single plugins as list of plugin=limit
+     * entries, where plugin is a plugin id or name. These override
+     * processMemoryLimit, a limit of 0 means unlimited.
+     */
+    @Value("${mapping-service.processMemoryLimits:}")
+    private String[] processMemoryLimits = {};
+
     /**
      * Auth and permission properties
      */
@@ -1,13 +1,32 @@
 package edu.kit.datamanager.mappingservice.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Configuration of the executor used for asynchronous mapping jobs. Jobs are
+ * queued by the JobScheduler, which applies queue capacity, rejection policy
+ * and fair share, and passes a job to this executor only if a thread is
+ * available. Thus, the executor provides the maximum pool size of threads,
+ * which are stopped after being idle for a minute if the maximum pool size
+ * exceeds the core pool size. Besides the pool metrics provided by
+ * ExecutorServiceMetrics, e.g., active threads, the time tasks wait for a
+ * thread and their execution time are published.
+ *
+ * If virtual threads are enabled via spring.threads.virtual.enabled, the pool
+ * threads are virtual threads. Queue and rejection policy still apply, but the
+ * pool size can be raised to thousands of concurrent jobs, which mostly wait
+ * for external processes, without reserving a platform thread stack for each.
  *
  * @author jejkal
  */
@@ -15,15 +34,55 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class AsyncConfiguration {
 
-  @Bean(name = "asyncExecutor")
-  public Executor asyncExecutor()  {
+  /**
+   * Name of the executor used for publishing metrics.
+   */
+  public static final String EXECUTOR_NAME = "asyncExecutor";
 
+  @Bean(name = "asyncExecutor")
+  public Executor asyncExecutor(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
     ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-    executor.setCorePoolSize(3);
-    executor.setMaxPoolSize(3);
-    executor.setQueueCapacity(100);
+    int poolSize = Math.max(1, Math.max(applicationProperties.getAsyncCorePoolSize(), applicationProperties.getAsyncMaxPoolSize()));
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setAllowCoreThreadTimeOut(applicationProperties.getAsyncCorePoolSize() < poolSize);
     executor.setThreadNamePrefix("AsynchThread-");
+    if (applicationProperties.isVirtualThreadsEnabled()) {
+      executor.setThreadFactory(Thread.ofVirtual().name("AsynchThread-", 1).factory());
+    }
+    executor.setTaskDecorator(timingDecorator(meterRegistry));
     executor.initialize();
+
+    new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
     return executor;
   }
+
+  /**
+   * Create a task decorator measuring the time between submission and start
+   * of a task as well as its execution time.
+   *
+   * @param meterRegistry The registry to publish timers to.
+   *
+   * @return The task decorator.
+   */
+  private TaskDecorator timingDecorator(MeterRegistry meterRegistry) {
+    Timer waitTimer = Timer.builder("mapping_service.async_jobs.wait")
+            .description("Time asynchronous mapping jobs wait for an executor thread.")
+            .register(meterRegistry);
+    Timer executionTimer = Timer.builder("mapping_service.async_jobs.execution")
+            .description("Execution time of asynchronous mapping jobs.")
+            .register(meterRegistry);
+    return runnable -> {
+      long submitted = System.nanoTime();
+      return () -> {
+        long started = System.nanoTime();
+        waitTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+        try {
+          runnable.run();
+        } finally {
+          executionTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+      };
+    };
+  }
 }
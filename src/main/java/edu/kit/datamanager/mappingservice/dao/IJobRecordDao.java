@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.mappingservice.dao;
+
+import edu.kit.datamanager.mappingservice.domain.JobRecord;
+import edu.kit.datamanager.mappingservice.domain.JobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This interface defines the methods for accessing the database for the
+ * JobRecords of asynchronous mapping jobs.
+ *
+ * @author jejkal
+ */
+public interface IJobRecordDao extends JpaRepository<JobRecord, String> {
+
+    /**
+     * Find all jobs in one of the provided states.
+     *
+     * @param states The states to search for.
+     * @return A list of matching JobRecords.
+     */
+    List<JobRecord> findByStatusIn(Collection<JobStatus.STATUS> states);
+
+    /**
+     * Find all jobs in one of the provided states, which are owned by the
+     * provided service instance or have no owner, e.g., as they were created
+     * by an older version of the service.
+     *
+     * @param states The states to search for.
+     * @param instanceId The id of the service instance.
+     * @return A list of matching JobRecords.
+     */
+    @Query("SELECT r FROM JobRecord r WHERE r.status IN :states AND (r.instanceId = :instanceId OR r.instanceId IS NULL)")
+    List<JobRecord> findByStatusInAndOwner(@Param("states") Collection<JobStatus.STATUS> states, @Param("instanceId") String instanceId);
+
+    /**
+     * Find all jobs in one of the provided states, which have finished before
+     * the provided point in time.
+     *
+     * @param states The states to search for.
+     * @param finished The point in time.
+     * @return A list of matching JobRecords.
+     */
+    List<JobRecord> findByStatusInAndFinishedBefore(Collection<JobStatus.STATUS> states, Instant finished);
+
+    /**
+     * Find jobs in one of the provided states, oldest first.
+     *
+     * @param states The states to search for.
+     * @param pgbl The page to return.
+     * @return A list of matching JobRecords.
+     */
+    List<JobRecord> findByStatusInOrderByFinishedAsc(Collection<JobStatus.STATUS> states, Pageable pgbl);
+
+    /**
+     * Count all jobs in one of the provided states.
+     *
+     * @param states The states to search for.
+     * @return The number of matching JobRecords.
+     */
+    long countByStatusIn(Collection<JobStatus.STATUS> states);
+
+    /**
+     * Change the status of a job, but only if it is currently in the expected
+     * status.
+     *
+     * @param jobId The id of the job.
+     * @param expected The status the job must currently have.
+     * @param status The new status.
+     * @return The number of updated JobRecords, which is 0 if the job does not
+     * exist or is not in the expected status.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobRecord r SET r.status = :status WHERE r.jobId = :jobId AND r.status = :expected")
+    int updateStatus(@Param("jobId") String jobId, @Param("expected") JobStatus.STATUS expected, @Param("status") JobStatus.STATUS status);
+
+    /**
+     * Store the result of a finished job. As the result is written by a
+     * single statement, a job deleted in the meantime is not re-created.
+     *
+     * @param jobId The id of the job.
+     * @param status The final status.
+     * @param error The error message or null.
+     * @param outputFile The absolute path of the job output or null.
+     * @param finished The point in time the job has finished.
+     * @return The number of updated JobRecords, which is 0 if the job does not
+     * exist anymore.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobRecord r SET r.status = :status, r.error = :error, r.outputFile = :outputFile, r.finished = :finished WHERE r.jobId = :jobId")
+    int updateResult(@Param("jobId") String jobId, @Param("status") JobStatus.STATUS status, @Param("error") String error, @Param("outputFile") String outputFile, @Param("finished") Instant finished);
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.domain;
+
+/**
+ * Priority of an asynchronous mapping job. Jobs with higher priority are
+ * executed before jobs with lower priority of the same job queue. Jobs of
+ * different queues are executed in turns, independent of their priority.
+ *
+ * @author jejkal
+ */
+public enum JobPriority {
+    LOW,
+    NORMAL,
+    HIGH
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Persistent metadata of an asynchronous mapping job. The record allows to
+ * provide status and output of a job after it has been removed from memory,
+ * e.g., after a restart of the service.
+ *
+ * @author jejkal
+ */
+@Entity
+@Table(name = "mapping_job")
+@Getter
+@Setter
+@ToString
+@RequiredArgsConstructor
+public class JobRecord {
+
+    /**
+     * Maximum length of persisted error messages.
+     */
+    public static final int MAX_ERROR_LENGTH = 4096;
+
+    @Id
+    private String jobId;
+
+    private String mappingId;
+
+    /**
+     * Id of the service instance executing the job.
+     */
+    private String instanceId;
+
+    @Enumerated(EnumType.STRING)
+    private JobStatus.STATUS status;
+
+    @Column(length = MAX_ERROR_LENGTH)
+    private String error;
+
+    /**
+     * Absolute path of the job output, only set if the job has succeeded.
+     */
+    @Column(length = 1024)
+    private String outputFile;
+
+    private Instant created;
+
+    private Instant finished;
+
+    /**
+     * Set the error message, which is truncated if it exceeds
+     * MAX_ERROR_LENGTH.
+     *
+     * @param error The error message.
+     */
+    public void setError(String error) {
+        if (error != null && error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        this.error = error;
+    }
+}
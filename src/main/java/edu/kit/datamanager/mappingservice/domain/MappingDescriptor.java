@@ -0,0 +1,45 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.domain;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Immutable subset of a MappingRecord required for executing a mapping. In
+ * contrast to MappingRecord, it is not attached to a persistence context and
+ * can be cached and shared between threads.
+ *
+ * @param mappingId The id of the mapping.
+ * @param mappingType The id of the plugin used for the mapping.
+ * @param mappingDocument The path to the mapping document.
+ * @param documentHash The hash of the mapping document.
+ *
+ * @author jejkal
+ */
+public record MappingDescriptor(String mappingId, String mappingType, Path mappingDocument, String documentHash) {
+
+    /**
+     * Create the descriptor of a mapping record.
+     *
+     * @param mappingRecord The mapping record.
+     *
+     * @return The descriptor.
+     */
+    public static MappingDescriptor of(MappingRecord mappingRecord) {
+        return new MappingDescriptor(mappingRecord.getMappingId(), mappingRecord.getMappingType(), Paths.get(mappingRecord.getMappingDocumentUri()), mappingRecord.getDocumentHash());
+    }
+}
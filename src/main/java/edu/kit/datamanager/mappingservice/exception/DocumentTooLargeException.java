@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ *
+ * @author jejkal
+ */
+@ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE, reason = "Input document exceeds the maximum document size.")
+public class DocumentTooLargeException extends RuntimeException {
+
+    /**
+     * Default constructor.
+     */
+    public DocumentTooLargeException() {
+        super();
+    }
+
+    /**
+     * Constructor with given message and cause.
+     *
+     * @param message Message.
+     * @param cause Cause.
+     */
+    public DocumentTooLargeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Constructor with given message.
+     *
+     * @param message Message.
+     */
+    public DocumentTooLargeException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructor with given message and cause.
+     *
+     * @param cause Cause.
+     */
+    public DocumentTooLargeException(Throwable cause) {
+        super(cause);
+    }
+}
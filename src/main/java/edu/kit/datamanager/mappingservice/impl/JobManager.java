@@ -15,48 +15,253 @@
  */
 package edu.kit.datamanager.mappingservice.impl;
 
+import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
+import edu.kit.datamanager.mappingservice.dao.IJobRecordDao;
+import edu.kit.datamanager.mappingservice.domain.JobRecord;
 import edu.kit.datamanager.mappingservice.domain.JobStatus;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Manager for asynchronous mapping jobs. Only unfinished jobs are kept in
+ * memory. The metadata of all jobs is persisted as JobRecord, such that status
+ * and output of finished jobs are still available after a restart of the
+ * service. Jobs are persisted as SUBMITTED and become RUNNING as soon as their
+ * execution is started via startJob().
+ *
+ * Finished jobs are removed together with their outputs after
+ * jobTimeToLive seconds or, if more than jobMaxCount finished jobs exist,
+ * starting with the oldest job. Jobs still running while the service was
+ * stopped are marked as FAILED at startup, as their uploads are not available
+ * anymore. Each job is owned by the instance it was submitted to, such that
+ * instances sharing a database only fail their own jobs at startup. Outputs
+ * of jobs whose download has just been started are not evicted.
  *
  * @author jejkal
  */
 @Service
 public class JobManager {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobManager.class);
+
+    private static final Set<JobStatus.STATUS> UNFINISHED = EnumSet.of(JobStatus.STATUS.SUBMITTED, JobStatus.STATUS.RUNNING);
+    private static final Set<JobStatus.STATUS> FINISHED = EnumSet.of(JobStatus.STATUS.SUCCEEDED, JobStatus.STATUS.FAILED);
+
+    /**
+     * The time in nanoseconds after the start of a download during which the
+     * job output is not evicted. Once opened, the output can be read until
+     * the download has finished, even if it is deleted in the meantime. With
+     * sendfile, however, Tomcat opens the output only after the request has
+     * been processed.
+     */
+    private static final long DOWNLOAD_GRACE_PERIOD = TimeUnit.MINUTES.toNanos(1);
+
     private final ConcurrentMap<String, CompletableFuture<? extends JobStatus>> mapOfJobs;
+    /**
+     * Start times of job output downloads as returned by System.nanoTime().
+     */
+    private final ConcurrentMap<String, Long> downloads;
+    /**
+     * Ids of unfinished jobs whose execution has started.
+     */
+    private final Set<String> startedJobs;
+    private final IJobRecordDao jobRecordDao;
+    private final Path jobsOutputDirectory;
+    private final int maxJobs;
+    private final long timeToLive;
+    private final String instanceId;
 
     /**
      * Default constructor.
+     *
+     * @param jobRecordDao The repository holding all JobRecords.
+     * @param applicationProperties The properties holding job output location
+     * and limits.
      */
-    public JobManager() {
+    public JobManager(IJobRecordDao jobRecordDao, ApplicationProperties applicationProperties) {
         mapOfJobs = new ConcurrentHashMap<>();
+        startedJobs = ConcurrentHashMap.newKeySet();
+        downloads = new ConcurrentHashMap<>();
+        this.jobRecordDao = jobRecordDao;
+        this.jobsOutputDirectory = (applicationProperties.getJobOutputLocation() != null)
+                ? new File(applicationProperties.getJobOutputLocation().getPath()).getAbsoluteFile().toPath()
+                : null;
+        this.maxJobs = applicationProperties.getJobMaxCount();
+        this.timeToLive = applicationProperties.getJobTimeToLive();
+        this.instanceId = resolveInstanceId(applicationProperties.getInstanceId());
+    }
+
+    private static String resolveInstanceId(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return configured;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            LOGGER.warn("Failed to determine host name. Using 'localhost' as instance id.", e);
+            return "localhost";
+        }
+    }
+
+    /**
+     * Mark all jobs of this instance, which were still running while the
+     * service was stopped, as FAILED.
+     */
+    @PostConstruct
+    public void recoverInterruptedJobs() {
+        List<JobRecord> interrupted = jobRecordDao.findByStatusInAndOwner(UNFINISHED, instanceId);
+        if (interrupted.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        for (JobRecord record : interrupted) {
+            record.setStatus(JobStatus.STATUS.FAILED);
+            record.setError("Job was interrupted by a restart of the mapping service.");
+            record.setFinished(now);
+        }
+        jobRecordDao.saveAll(interrupted);
+        LOGGER.warn("Marked {} interrupted job(s) as FAILED.", interrupted.size());
     }
 
     /**
-     * Add a new job.
+     * Add a new job. The job is persisted as SUBMITTED and its record is
+     * updated as soon as the job has started or finished.
      *
      * @param jobId The job's unique id.
+     * @param mappingId The id of the mapping executed by the job.
      * @param theJob The job as completable future.
      */
-    public void putJob(String jobId, CompletableFuture<? extends JobStatus> theJob) {
+    public void putJob(String jobId, String mappingId, CompletableFuture<? extends JobStatus> theJob) {
+        JobRecord record = new JobRecord();
+        record.setJobId(jobId);
+        record.setMappingId(mappingId);
+        record.setInstanceId(instanceId);
+        record.setStatus(JobStatus.STATUS.SUBMITTED);
+        record.setCreated(Instant.now());
+        jobRecordDao.save(record);
+        if (startedJobs.contains(jobId)) {
+            //job was started before its record was persisted
+            jobRecordDao.updateStatus(jobId, JobStatus.STATUS.SUBMITTED, JobStatus.STATUS.RUNNING);
+        }
         mapOfJobs.put(jobId, theJob);
+
+        theJob.whenComplete((response, ex) -> {
+            try {
+                finishJob(record, response, ex);
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to persist result of job {}.", jobId, e);
+            } finally {
+                mapOfJobs.remove(jobId);
+                startedJobs.remove(jobId);
+            }
+        });
+    }
+
+    /**
+     * Mark a job as RUNNING. This method has to be called by the job itself
+     * as soon as its execution starts. If the job is not persisted yet, its
+     * status is changed as soon as it is added via putJob().
+     *
+     * @param jobId The job's id.
+     */
+    public void startJob(String jobId) {
+        //register first, such that a concurrent putJob() sees the job as started
+        startedJobs.add(jobId);
+        jobRecordDao.updateStatus(jobId, JobStatus.STATUS.SUBMITTED, JobStatus.STATUS.RUNNING);
+    }
+
+    private void finishJob(JobRecord record, JobStatus response, Throwable ex) {
+        record.setFinished(Instant.now());
+        if (ex != null) {
+            Throwable cause = (ex.getCause() != null) ? ex.getCause() : ex;
+            record.setStatus(JobStatus.STATUS.FAILED);
+            record.setError(cause.getMessage());
+        } else if (response == null) {
+            record.setStatus(JobStatus.STATUS.FAILED);
+            record.setError("Job finished without result.");
+        } else {
+            record.setStatus(response.getStatus() == JobStatus.STATUS.SUCCEEDED ? JobStatus.STATUS.SUCCEEDED : JobStatus.STATUS.FAILED);
+            record.setError(response.getError());
+            if (response.getJobOutput() != null) {
+                record.setOutputFile(response.getJobOutput().getAbsolutePath());
+            }
+        }
+        if (jobRecordDao.updateResult(record.getJobId(), record.getStatus(), record.getError(), record.getOutputFile(), record.getFinished()) == 0) {
+            //job was deleted in the meantime
+            return;
+        }
+        LOGGER.trace("Job {} finished with status {}.", record.getJobId(), record.getStatus());
+        evictExcessJobs();
     }
 
     /**
-     * Get a job by id from the list of managed jobs.
+     * Get a job by id. Running jobs are returned as they are, finished jobs
+     * are returned as completed future providing the persisted status.
      *
      * @param jobId The job's id.
      *
-     * @return The job status as completable future.
+     * @return The job status as completable future or null if no job with the
+     * provided id exists.
      */
     public CompletableFuture<? extends JobStatus> getJob(String jobId) {
-        return mapOfJobs.get(jobId);
+        CompletableFuture<? extends JobStatus> job = mapOfJobs.get(jobId);
+        if (job != null) {
+            return job;
+        }
+        Optional<JobRecord> record = jobRecordDao.findById(jobId);
+        if (record.isEmpty()) {
+            return null;
+        }
+        JobRecord jobRecord = record.get();
+        return switch (jobRecord.getStatus()) {
+            case SUCCEEDED -> CompletableFuture.completedFuture(JobStatus.complete(jobId, JobStatus.STATUS.SUCCEEDED, (jobRecord.getOutputFile() != null) ? new File(jobRecord.getOutputFile()) : null));
+            case FAILED -> CompletableFuture.completedFuture(JobStatus.error(jobId, JobStatus.STATUS.FAILED, jobRecord.getError()));
+            //record persisted, but job not yet registered
+            default -> new CompletableFuture<>();
+        };
+    }
+
+    /**
+     * Register the start of a download of the output of a job. For
+     * DOWNLOAD_GRACE_PERIOD, the output is not evicted, such that it is still
+     * available as soon as it is opened for the download.
+     *
+     * @param jobId The job's id.
+     */
+    public void startDownload(String jobId) {
+        downloads.put(jobId, System.nanoTime());
+    }
+
+    private boolean isDownloadInProgress(String jobId) {
+        Long started = downloads.get(jobId);
+        if (started == null) {
+            return false;
+        }
+        if (System.nanoTime() - started < DOWNLOAD_GRACE_PERIOD) {
+            return true;
+        }
+        downloads.remove(jobId, started);
+        return false;
     }
 
     /**
@@ -67,5 +272,63 @@ public class JobManager {
      */
     public void removeJob(String jobId) {
         mapOfJobs.remove(jobId);
+        jobRecordDao.deleteById(jobId);
+    }
+
+    /**
+     * Remove all finished jobs and their outputs which have exceeded
+     * jobTimeToLive, as well as the oldest finished jobs exceeding
+     * jobMaxCount. Runs exclusively with the eviction triggered by finished
+     * jobs, such that no job is evicted twice.
+     */
+    @Scheduled(initialDelayString = "${mapping-service.jobReaperInterval:300}", fixedDelayString = "${mapping-service.jobReaperInterval:300}", timeUnit = TimeUnit.SECONDS)
+    public synchronized void evictExpiredJobs() {
+        long now = System.nanoTime();
+        downloads.values().removeIf(started -> now - started >= DOWNLOAD_GRACE_PERIOD);
+        if (timeToLive > 0) {
+            List<JobRecord> expired = jobRecordDao.findByStatusInAndFinishedBefore(FINISHED, Instant.now().minusSeconds(timeToLive));
+            if (!expired.isEmpty()) {
+                LOGGER.debug("Removing {} expired job(s).", expired.size());
+                expired.forEach(this::evictJob);
+            }
+        }
+        evictExcessJobs();
+    }
+
+    private synchronized void evictExcessJobs() {
+        if (maxJobs <= 0) {
+            return;
+        }
+        long excess = jobRecordDao.countByStatusIn(FINISHED) - maxJobs;
+        if (excess > 0) {
+            LOGGER.debug("Number of finished jobs exceeds {}. Removing {} oldest job(s).", maxJobs, excess);
+            jobRecordDao.findByStatusInOrderByFinishedAsc(FINISHED, PageRequest.of(0, (int) Math.min(excess, Integer.MAX_VALUE))).forEach(this::evictJob);
+        }
+    }
+
+    private void evictJob(JobRecord record) {
+        if (isDownloadInProgress(record.getJobId())) {
+            LOGGER.trace("Output of job {} is being downloaded. Skipping eviction.", record.getJobId());
+            return;
+        }
+        LOGGER.trace("Evicting job {}.", record.getJobId());
+        if (record.getOutputFile() != null) {
+            deleteOutput(Path.of(record.getOutputFile()));
+        }
+        if (jobsOutputDirectory != null) {
+            //output of failed jobs or not yet renamed output
+            deleteOutput(jobsOutputDirectory.resolve(String.format("%s.out", record.getJobId())));
+        }
+        jobRecordDao.deleteById(record.getJobId());
+    }
+
+    private void deleteOutput(Path output) {
+        try {
+            if (Files.deleteIfExists(output)) {
+                LOGGER.trace("Output file {} deleted.", output);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Output file {} could not be deleted.", output, e);
+        }
     }
 }
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.impl;
+
+import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
+import edu.kit.datamanager.mappingservice.configuration.AsyncConfiguration;
+import edu.kit.datamanager.mappingservice.domain.JobPriority;
+import edu.kit.datamanager.mappingservice.domain.JobStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Scheduler for asynchronous mapping jobs. Instead of a single FIFO queue,
+ * waiting jobs are kept in one queue per principal or, if configured, per
+ * mapping. Queues are served in weighted round robin, i.e., a queue with
+ * weight n may start up to n jobs before the next queue gets its turn. Within
+ * a queue, jobs are started by priority and, for equal priorities, in order of
+ * submission. Thus, a single principal submitting many jobs cannot starve
+ * other principals.
+ *
+ * Jobs are passed to the asyncExecutor only if one of its threads is
+ * available, such that the order of execution is solely determined by this
+ * scheduler. Optionally, the number of concurrently running jobs per principal
+ * is limited. If the total number of waiting jobs reaches the queue capacity,
+ * new jobs are rejected or executed in the caller's thread, depending on the
+ * configured rejection policy.
+ *
+ * Queue depth and wait time are published per queue. To keep the number of
+ * time series bounded, only queues with a configured weight and, if queued
+ * by principal, the anonymous queue are published by name. All other queues
+ * are aggregated as 'other'.
+ *
+ * @author jejkal
+ */
+@Service
+public class JobScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobScheduler.class);
+
+    /**
+     * Principal used if the submitting principal is unknown.
+     */
+    public static final String ANONYMOUS = "anonymous";
+
+    /**
+     * Metric label of all queues not published by name.
+     */
+    public static final String OTHER = "other";
+
+    /**
+     * The entity jobs are queued for.
+     */
+    public enum FairShare {
+        PRINCIPAL,
+        MAPPING
+    }
+
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    private final FairShare fairShare;
+    private final Map<String, Integer> weights;
+    private final int maxRunning;
+    private final int maxRunningPerPrincipal;
+    private final int capacity;
+    private final boolean callerRuns;
+
+    /**
+     * Queues holding at least one waiting job by key.
+     */
+    private final Map<String, JobQueue> queues = new HashMap<>();
+
+    /**
+     * Queues in round robin order, the first queue has its turn.
+     */
+    private final Deque<JobQueue> turns = new ArrayDeque<>();
+
+    private final Map<String, Integer> runningPerPrincipal = new HashMap<>();
+    private int waiting = 0;
+    private int running = 0;
+    private long sequence = 0;
+
+    /**
+     * Number of waiting jobs per metric label, registered on first use.
+     */
+    private final Map<String, AtomicInteger> depths = new ConcurrentHashMap<>();
+
+    /**
+     * Wait timers per metric label, registered on first use.
+     */
+    private final Map<String, Timer> waitTimers = new ConcurrentHashMap<>();
+
+    /**
+     * Default constructor.
+     *
+     * @param executor The executor running the jobs.
+     * @param applicationProperties The properties holding pool size, queue
+     * capacity, rejection policy and fair share settings.
+     * @param meterRegistry The registry used to publish queue metrics.
+     */
+    public JobScheduler(@Qualifier(AsyncConfiguration.EXECUTOR_NAME) Executor executor, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.fairShare = fairShareOf(applicationProperties.getAsyncFairShare());
+        this.weights = weightsOf(applicationProperties.getAsyncQueueWeights());
+        this.maxRunning = Math.max(1, Math.max(applicationProperties.getAsyncCorePoolSize(), applicationProperties.getAsyncMaxPoolSize()));
+        this.maxRunningPerPrincipal = applicationProperties.getAsyncMaxJobsPerPrincipal();
+        this.capacity = applicationProperties.getAsyncQueueCapacity();
+        this.callerRuns = callerRunsOf(applicationProperties.getAsyncRejectionPolicy());
+
+        Gauge.builder("mapping_service.async_jobs.waiting", this, JobScheduler::getWaitingJobs).register(meterRegistry);
+        Gauge.builder("mapping_service.async_jobs.running", this, JobScheduler::getRunningJobs).register(meterRegistry);
+    }
+
+    /**
+     * Schedule a job.
+     *
+     * @param principal The principal submitting the job or null if unknown.
+     * @param mappingId The id of the mapping executed by the job.
+     * @param priority The priority of the job or null for NORMAL.
+     * @param job The job.
+     *
+     * @return The future completed with the result of the job.
+     *
+     * @throws TaskRejectedException If the queue capacity is exceeded and the
+     * rejection policy is ABORT.
+     */
+    public CompletableFuture<JobStatus> schedule(String principal, String mappingId, JobPriority priority, Supplier<JobStatus> job) {
+        String owner = (principal != null) ? principal : ANONYMOUS;
+        String key = (fairShare == FairShare.MAPPING) ? mappingId : owner;
+        ScheduledJob scheduled;
+        synchronized (this) {
+            scheduled = new ScheduledJob(labelOf(key), owner, (priority != null) ? priority : JobPriority.NORMAL, sequence++, job);
+            if (waiting < capacity) {
+                JobQueue queue = queues.computeIfAbsent(key, this::createQueue);
+                queue.jobs.add(scheduled);
+                queue.depth.incrementAndGet();
+                waiting++;
+                LOGGER.trace("Job of {} added to queue {}. {} job(s) waiting, {} running.", owner, key, waiting, running);
+                dispatch();
+                return scheduled.future;
+            }
+            if (!callerRuns) {
+                LOGGER.warn("Job queue is full, rejecting job of {}.", owner);
+                throw new TaskRejectedException("Job queue is full, " + waiting + " job(s) waiting.");
+            }
+        }
+        LOGGER.debug("Job queue is full, running job of {} in caller thread.", owner);
+        run(scheduled, false);
+        return scheduled.future;
+    }
+
+    /**
+     * Get the number of waiting jobs.
+     *
+     * @return The number of jobs not started, yet.
+     */
+    public synchronized int getWaitingJobs() {
+        return waiting;
+    }
+
+    /**
+     * Get the number of running jobs.
+     *
+     * @return The number of jobs started, but not finished, yet.
+     */
+    public synchronized int getRunningJobs() {
+        return running;
+    }
+
+    /**
+     * Start waiting jobs as long as executor threads are available. Must be
+     * called while holding the lock.
+     */
+    private void dispatch() {
+        while (running < maxRunning && waiting > 0) {
+            ScheduledJob next = next();
+            if (next == null) {
+                //all waiting jobs belong to principals at their limit
+                return;
+            }
+            waiting--;
+            running++;
+            runningPerPrincipal.merge(next.owner, 1, Integer::sum);
+            try {
+                executor.execute(() -> run(next, true));
+            } catch (RejectedExecutionException e) {
+                LOGGER.error("Executor rejected job of {}.", next.owner, e);
+                release(next);
+                next.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Take the next job in weighted round robin order, skipping queues whose
+     * next job belongs to a principal at its limit. Must be called while
+     * holding the lock.
+     *
+     * @return The next job or null if no job can be started.
+     */
+    private ScheduledJob next() {
+        for (int i = turns.size(); i > 0; i--) {
+            JobQueue queue = turns.peekFirst();
+            ScheduledJob head = queue.jobs.peek();
+            if (head != null && !isAtLimit(head.owner)) {
+                queue.jobs.poll();
+                queue.depth.decrementAndGet();
+                if (queue.jobs.isEmpty()) {
+                    removeQueue(queue);
+                } else if (--queue.credits == 0) {
+                    endTurn(queue);
+                }
+                return head;
+            }
+            endTurn(queue);
+        }
+        return null;
+    }
+
+    private boolean isAtLimit(String owner) {
+        return maxRunningPerPrincipal > 0 && runningPerPrincipal.getOrDefault(owner, 0) >= maxRunningPerPrincipal;
+    }
+
+    private void endTurn(JobQueue queue) {
+        queue.credits = queue.weight;
+        turns.addLast(turns.pollFirst());
+    }
+
+    private JobQueue createQueue(String key) {
+        JobQueue queue = new JobQueue(key, weights.getOrDefault(key, 1), depth(labelOf(key)));
+        turns.addLast(queue);
+        return queue;
+    }
+
+    private void removeQueue(JobQueue queue) {
+        queues.remove(queue.key);
+        turns.remove(queue);
+    }
+
+    /**
+     * Get the label used to publish metrics of a queue.
+     *
+     * @param key The queue key.
+     *
+     * @return The key, if it has a configured weight or is the anonymous
+     * principal's queue, otherwise OTHER.
+     */
+    private String labelOf(String key) {
+        if (weights.containsKey(key) || (fairShare == FairShare.PRINCIPAL && ANONYMOUS.equals(key))) {
+            return key;
+        }
+        return OTHER;
+    }
+
+    private AtomicInteger depth(String label) {
+        return depths.computeIfAbsent(label, key -> {
+            AtomicInteger depth = new AtomicInteger();
+            Gauge.builder("mapping_service.async_jobs.queue.depth", depth, AtomicInteger::get)
+                    .description("Number of asynchronous mapping jobs waiting in a job queue.")
+                    .tag("queue", key)
+                    .register(meterRegistry);
+            return depth;
+        });
+    }
+
+    private void run(ScheduledJob job, boolean dispatched) {
+        waitTimer(job.label).record(System.nanoTime() - job.submitted, TimeUnit.NANOSECONDS);
+        try {
+            job.future.complete(job.task.get());
+        } catch (Throwable t) {
+            LOGGER.error("Asynchronous job of {} failed.", job.owner, t);
+            job.future.completeExceptionally(t);
+        } finally {
+            if (dispatched) {
+                synchronized (this) {
+                    release(job);
+                    dispatch();
+                }
+            }
+        }
+    }
+
+    /**
+     * Account for a finished job. Must be called while holding the lock.
+     *
+     * @param job The job.
+     */
+    private void release(ScheduledJob job) {
+        running--;
+        runningPerPrincipal.computeIfPresent(job.owner, (owner, count) -> (count > 1) ? count - 1 : null);
+    }
+
+    private Timer waitTimer(String label) {
+        return waitTimers.computeIfAbsent(label, key -> Timer.builder("mapping_service.async_jobs.queue.wait")
+                .description("Time asynchronous mapping jobs wait in a job queue.")
+                .tag("queue", key)
+                .register(meterRegistry));
+    }
+
+    private static FairShare fairShareOf(String value) {
+        try {
+            return FairShare.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            LOGGER.warn("Unknown fair share mode '{}' configured for asynchronous mapping jobs. Using PRINCIPAL.", value);
+            return FairShare.PRINCIPAL;
+        }
+    }
+
+    private static boolean callerRunsOf(String policy) {
+        if ("CALLER_RUNS".equalsIgnoreCase(policy)) {
+            return true;
+        }
+        if (!"ABORT".equalsIgnoreCase(policy)) {
+            LOGGER.warn("Unknown rejection policy '{}' configured for asynchronous mapping jobs. Using ABORT.", policy);
+        }
+        return false;
+    }
+
+    private static Map<String, Integer> weightsOf(String[] entries) {
+        Map<String, Integer> result = new HashMap<>();
+        if (entries == null) {
+            return result;
+        }
+        for (String entry : entries) {
+            int separator = entry.lastIndexOf('=');
+            try {
+                int weight = Integer.parseInt(entry.substring(separator + 1).trim());
+                if (separator < 1 || weight < 1) {
+                    throw new IllegalArgumentException();
+                }
+                result.put(entry.substring(0, separator).trim(), weight);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Invalid job queue weight '{}'. Expected <queue>=<weight> with weight > 0. Ignoring it.", entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Waiting jobs of one principal or mapping.
+     */
+    private static final class JobQueue {
+
+        private final String key;
+        private final int weight;
+        private final PriorityQueue<ScheduledJob> jobs = new PriorityQueue<>(Comparator.comparing((ScheduledJob job) -> job.priority).reversed().thenComparingLong(job -> job.sequence));
+        /**
+         * Number of waiting jobs of all queues sharing the metric label.
+         */
+        private final AtomicInteger depth;
+        private int credits;
+
+        JobQueue(String key, int weight, AtomicInteger depth) {
+            this.key = key;
+            this.weight = weight;
+            this.depth = depth;
+            this.credits = weight;
+        }
+    }
+
+    /**
+     * A job and its scheduling information.
+     */
+    private static final class ScheduledJob {
+
+        private final String label;
+        private final String owner;
+        private final JobPriority priority;
+        private final long sequence;
+        private final Supplier<JobStatus> task;
+        private final long submitted = System.nanoTime();
+        private final CompletableFuture<JobStatus> future = new CompletableFuture<>();
+
+        ScheduledJob(String label, String owner, JobPriority priority, long sequence, Supplier<JobStatus> task) {
+            this.label = label;
+            this.owner = owner;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import edu.kit.datamanager.mappingservice.domain.MappingDescriptor;
+import edu.kit.datamanager.mappingservice.domain.MappingRecord;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of mapping descriptors, such that mapping executions
+ * resolve frequently used mappings without database access. Unknown mapping
+ * ids are not cached. Entries must be invalidated whenever a mapping record is
+ * created, updated or deleted. In addition, entries expire after the
+ * configured time to live, which bounds the time stale entries are used if
+ * mapping records are modified by another instance sharing the database.
+ *
+ * Hits, misses, evictions and the current size are published via the provided
+ * MeterRegistry, as well as a gauge for the hit ratio.
+ *
+ * @author jejkal
+ */
+public class MappingDescriptorCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappingDescriptorCache.class);
+
+    /**
+     * Name of the cache used for publishing metrics.
+     */
+    public static final String CACHE_NAME = "mapping_service.mapping_descriptors";
+
+    private final Cache<String, MappingDescriptor> cache;
+    private final Function<String, Optional<MappingRecord>> loader;
+
+    /**
+     * Number of invalidations so far. Used to detect invalidations while a
+     * record is loaded, as the loaded record might be outdated in that case.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Default constructor.
+     *
+     * @param loader Function loading a mapping record by its id.
+     * @param maxSize The maximum number of cached descriptors.
+     * @param timeToLiveSeconds The time in seconds after which descriptors
+     * are loaded again.
+     * @param meterRegistry The registry used to publish cache metrics.
+     */
+    public MappingDescriptorCache(Function<String, Optional<MappingRecord>> loader, long maxSize, long timeToLiveSeconds, MeterRegistry meterRegistry) {
+        this.loader = loader;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder(CACHE_NAME + ".hit_ratio", cache, c -> c.stats().hitRate()).register(meterRegistry);
+    }
+
+    /**
+     * Get the descriptor of a mapping. If it is not cached, the mapping record
+     * is loaded.
+     *
+     * @param mappingId The mapping id.
+     *
+     * @return The descriptor or an empty optional if no such mapping exists.
+     */
+    public Optional<MappingDescriptor> get(String mappingId) {
+        MappingDescriptor descriptor = cache.getIfPresent(mappingId);
+        if (descriptor != null) {
+            return Optional.of(descriptor);
+        }
+        long stamp = invalidations.get();
+        Optional<MappingDescriptor> loaded = loader.apply(mappingId).map(MappingDescriptor::of);
+        if (loaded.isPresent()) {
+            cache.put(mappingId, loaded.get());
+            if (invalidations.get() != stamp) {
+                LOGGER.trace("Mapping record {} was modified while loading. Not caching descriptor.", mappingId);
+                cache.invalidate(mappingId);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Remove the descriptor of a mapping after its record was created,
+     * updated or deleted.
+     *
+     * @param mappingId The mapping id.
+     */
+    public void invalidate(String mappingId) {
+        LOGGER.trace("Invalidating descriptor of mapping {}.", mappingId);
+        invalidations.incrementAndGet();
+        cache.invalidate(mappingId);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.impl;
+
+import edu.kit.datamanager.mappingservice.plugins.MappingDocument;
+import edu.kit.datamanager.mappingservice.plugins.MappingPluginException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memory-resident store of the mapping documents in the mappings directory.
+ * Documents up to a size threshold are held on-heap, larger documents are
+ * mapped read-only into memory. Thus, mapping executions obtain the content of
+ * a mapping document without opening its file. The store is warm-loaded from
+ * the existing mapping documents at startup and updated whenever a mapping
+ * document is written or removed.
+ *
+ * Documents outside of the mappings directory, e.g., of ad-hoc mapping
+ * executions, are not stored but read on demand.
+ *
+ * @author jejkal
+ */
+public class MappingDocumentStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappingDocumentStore.class);
+
+    /**
+     * File name pattern of mapping documents of registered mappings.
+     */
+    private static final String MAPPING_DOCUMENT_GLOB = "*.mapping";
+
+    private final Path mappingsDirectory;
+    private final long heapThreshold;
+    private final Map<Path, MappingDocument> documents = new ConcurrentHashMap<>();
+
+    /**
+     * Default constructor.
+     *
+     * @param mappingsDirectory The directory holding all mapping documents.
+     * @param heapThreshold The size in bytes up to which documents are held
+     * on-heap.
+     * @param meterRegistry The registry used to publish store metrics.
+     */
+    public MappingDocumentStore(Path mappingsDirectory, long heapThreshold, MeterRegistry meterRegistry) {
+        this.mappingsDirectory = mappingsDirectory.toAbsolutePath().normalize();
+        this.heapThreshold = heapThreshold;
+        Gauge.builder("mapping_service.mapping_documents.count", documents, Map::size).register(meterRegistry);
+        Gauge.builder("mapping_service.mapping_documents.size", this, store -> store.getLoadedSize(false)).tag("storage", "heap").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("mapping_service.mapping_documents.size", this, store -> store.getLoadedSize(true)).tag("storage", "mapped").baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * Load all mapping documents in the mappings directory. Documents which
+     * cannot be read are skipped and read again on first use.
+     */
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        int loaded = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(mappingsDirectory, MAPPING_DOCUMENT_GLOB)) {
+            for (Path file : files) {
+                if (!Files.isRegularFile(file)) {
+                    continue;
+                }
+                try {
+                    get(file).load();
+                    loaded++;
+                } catch (MappingPluginException e) {
+                    LOGGER.warn("Failed to load mapping document {}. Skipping it.", file, e);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to list mapping documents in {}.", mappingsDirectory, e);
+        }
+        LOGGER.info("Loaded {} mapping document(s) in {} ms.", loaded, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Get a mapping document. Documents in the mappings directory are added to
+     * the store if they are not contained, yet. Their content is read on
+     * first access.
+     *
+     * @param mappingFile The path of the mapping document.
+     *
+     * @return The mapping document.
+     */
+    public MappingDocument get(Path mappingFile) {
+        Path key = mappingFile.toAbsolutePath().normalize();
+        if (!mappingsDirectory.equals(key.getParent())) {
+            return new MappingDocument(key, heapThreshold);
+        }
+        return documents.computeIfAbsent(key, path -> new MappingDocument(path, heapThreshold));
+    }
+
+    /**
+     * Add a mapping document which has just been written to the mappings
+     * directory. Documents up to the heap threshold are taken from the
+     * provided content, larger ones are mapped into memory on first access.
+     *
+     * @param mappingFile The path of the mapping document.
+     * @param content The content written to mappingFile.
+     */
+    public void put(Path mappingFile, byte[] content) {
+        Path key = mappingFile.toAbsolutePath().normalize();
+        MappingDocument document = (content.length <= heapThreshold) ? new MappingDocument(key, content) : new MappingDocument(key, heapThreshold);
+        documents.put(key, document);
+    }
+
+    /**
+     * Remove a mapping document, e.g., after it was moved or deleted.
+     *
+     * @param mappingFile The path of the mapping document.
+     */
+    public void remove(Path mappingFile) {
+        documents.remove(mappingFile.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Get the total size of all documents in memory.
+     *
+     * @param mapped TRUE to sum up mapped documents, FALSE for documents held
+     * on-heap.
+     *
+     * @return The size in bytes.
+     */
+    public long getLoadedSize(boolean mapped) {
+        return documents.values().stream().filter(document -> document.isLoaded() && document.isMapped() == mapped).mapToLong(MappingDocument::getLoadedSize).sum();
+    }
+}
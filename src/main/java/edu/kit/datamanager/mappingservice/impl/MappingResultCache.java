@@ -0,0 +1,268 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache for mapping results stored on disk. An entry is
+ * identified by the hash of the input document, the hash of the mapping
+ * document and the id (incl. version) of the plugin. Entries of one mapping
+ * are stored in a common subfolder, such that they can be removed at once if
+ * the mapping is updated or deleted.
+ *
+ * The total size of all entries is bounded. If it is exceeded, the least
+ * recently used entries are removed. The access order is kept in memory and
+ * persisted via the last modified time of the cached files, such that it is
+ * restored after a restart.
+ *
+ * @author jejkal
+ */
+public class MappingResultCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappingResultCache.class);
+
+    private final Path cacheDirectory;
+    private final long maxSize;
+    private final Map<Path, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentSize = 0;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Default constructor. Existing entries in cacheDirectory are registered
+     * in the order of their last modification.
+     *
+     * @param cacheDirectory The directory holding all cached results.
+     * @param maxSize The maximum total size of all cached results in bytes.
+     * @param meterRegistry The registry used to publish cache metrics.
+     *
+     * @throws IOException If the cache directory cannot be created or read.
+     */
+    public MappingResultCache(Path cacheDirectory, long maxSize, MeterRegistry meterRegistry) throws IOException {
+        this.cacheDirectory = Files.createDirectories(cacheDirectory);
+        this.maxSize = maxSize;
+        this.hits = Counter.builder("mapping_service.result_cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("mapping_service.result_cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("mapping_service.result_cache.size", this, MappingResultCache::getCurrentSize).baseUnit("bytes").register(meterRegistry);
+        loadEntries();
+    }
+
+    private void loadEntries() throws IOException {
+        try (Stream<Path> files = Files.walk(cacheDirectory, 2)) {
+            List<Path> existing = files.filter(Files::isRegularFile)
+                    .filter(p -> !p.getFileName().toString().endsWith(".tmp"))
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .toList();
+            synchronized (this) {
+                for (Path file : existing) {
+                    long size = Files.size(file);
+                    entries.put(file, size);
+                    currentSize += size;
+                }
+                evict();
+            }
+        }
+        LOGGER.info("Result cache at {} initialized with {} entries ({} bytes).", cacheDirectory, entries.size(), currentSize);
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Compute the key of a cache entry.
+     *
+     * @param inputHash The hash of the input document.
+     * @param documentHash The hash of the mapping document.
+     * @param pluginId The id of the plugin including its version.
+     *
+     * @return The key.
+     */
+    public static String keyOf(String inputHash, String documentHash, String pluginId) {
+        return DigestUtils.sha256Hex(inputHash + "\n" + documentHash + "\n" + pluginId);
+    }
+
+    /**
+     * Compute the key of a cache entry for a result which may be pretty
+     * printed or not. The key of pretty printed results equals the key
+     * obtained from keyOf(String, String, String).
+     *
+     * @param inputHash The hash of the input document.
+     * @param documentHash The hash of the mapping document.
+     * @param pluginId The id of the plugin including its version.
+     * @param prettyPrint TRUE if the result is pretty printed.
+     *
+     * @return The key.
+     */
+    public static String keyOf(String inputHash, String documentHash, String pluginId, boolean prettyPrint) {
+        return prettyPrint ? keyOf(inputHash, documentHash, pluginId) : DigestUtils.sha256Hex(inputHash + "\n" + documentHash + "\n" + pluginId + "\ncompact");
+    }
+
+    private Path entryPath(String mappingId, String key) {
+        return mappingDirectory(mappingId).resolve(key);
+    }
+
+    private Path mappingDirectory(String mappingId) {
+        //hash the mapping id to obtain a safe folder name
+        return cacheDirectory.resolve(DigestUtils.sha256Hex(mappingId.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Provide the cached result for the given key at the target location. The
+     * result is hard linked if possible and copied otherwise. An existing
+     * target file is replaced.
+     *
+     * @param mappingId The id of the mapping.
+     * @param key The key obtained from keyOf(String, String, String).
+     * @param target The location where the result is expected.
+     *
+     * @return TRUE if a cached result was found and provided at target.
+     */
+    public boolean get(String mappingId, String key, Path target) {
+        Path entry = entryPath(mappingId, key);
+        synchronized (this) {
+            if (entries.get(entry) == null) {
+                misses.increment();
+                return false;
+            }
+        }
+        try {
+            linkOrCopy(entry, target);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.increment();
+            LOGGER.trace("Result for mapping {} served from cache entry {}.", mappingId, entry);
+            return true;
+        } catch (IOException e) {
+            //entry may have been evicted concurrently
+            LOGGER.debug("Failed to provide cached result {}.", entry, e);
+            misses.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Add a mapping result to the cache. If adding the result exceeds the
+     * maximum size, least recently used entries are removed. Errors are only
+     * logged, as caching is optional.
+     *
+     * @param mappingId The id of the mapping.
+     * @param key The key obtained from keyOf(String, String, String).
+     * @param result The mapping result to cache.
+     */
+    public void put(String mappingId, String key, Path result) {
+        Path entry = entryPath(mappingId, key);
+        try {
+            long size = Files.size(result);
+            if (size > maxSize) {
+                LOGGER.trace("Result {} exceeds cache size. Not caching it.", result);
+                return;
+            }
+            Files.createDirectories(entry.getParent());
+            Path tmp = Files.createTempFile(entry.getParent(), key, ".tmp");
+            linkOrCopy(result, tmp);
+            Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                Long previous = entries.put(entry, size);
+                currentSize += size - (previous != null ? previous : 0);
+                evict();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to add result {} to cache.", result, e);
+        }
+    }
+
+    /**
+     * Remove all cached results of a mapping, e.g., after it was updated or
+     * deleted.
+     *
+     * @param mappingId The id of the mapping.
+     */
+    public void invalidate(String mappingId) {
+        Path directory = mappingDirectory(mappingId);
+        synchronized (this) {
+            Iterator<Map.Entry<Path, Long>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Path, Long> entry = it.next();
+                if (entry.getKey().startsWith(directory)) {
+                    currentSize -= entry.getValue();
+                    it.remove();
+                }
+            }
+        }
+        try {
+            FileUtils.deleteDirectory(directory.toFile());
+        } catch (IOException e) {
+            LOGGER.warn("Failed to remove cached results at {}.", directory, e);
+        }
+    }
+
+    /**
+     * Get the total size of all cached results.
+     *
+     * @return The size in bytes.
+     */
+    public synchronized long getCurrentSize() {
+        return currentSize;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Path, Long>> it = entries.entrySet().iterator();
+        while (currentSize > maxSize && it.hasNext()) {
+            Map.Entry<Path, Long> eldest = it.next();
+            it.remove();
+            currentSize -= eldest.getValue();
+            try {
+                Files.deleteIfExists(eldest.getKey());
+                LOGGER.trace("Evicted cached result {}.", eldest.getKey());
+            } catch (IOException e) {
+                LOGGER.warn("Failed to remove cached result {}.", eldest.getKey(), e);
+            }
+        }
+    }
+
+    private static void linkOrCopy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
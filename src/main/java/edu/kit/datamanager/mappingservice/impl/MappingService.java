@@ -15,13 +15,22 @@
  */
 package edu.kit.datamanager.mappingservice.impl;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.kit.datamanager.exceptions.BadArgumentException;
 import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
 import edu.kit.datamanager.mappingservice.dao.IMappingRecordDao;
+import edu.kit.datamanager.mappingservice.domain.JobPriority;
 import edu.kit.datamanager.mappingservice.domain.JobStatus;
+import edu.kit.datamanager.mappingservice.domain.MappingDescriptor;
 import edu.kit.datamanager.mappingservice.domain.MappingRecord;
 import edu.kit.datamanager.mappingservice.exception.*;
 import edu.kit.datamanager.mappingservice.plugins.IMappingPlugin;
+import edu.kit.datamanager.mappingservice.plugins.MappingDocument;
 import edu.kit.datamanager.mappingservice.plugins.MappingPluginException;
 import edu.kit.datamanager.mappingservice.plugins.MappingPluginState;
 import edu.kit.datamanager.mappingservice.plugins.PluginManager;
@@ -29,15 +38,20 @@ import edu.kit.datamanager.mappingservice.util.FileUtil;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -48,6 +62,7 @@ import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -74,6 +89,9 @@ public class MappingService {
     @Autowired
     protected JobManager jobManager;
 
+    @Autowired
+    private JobScheduler jobScheduler;
+
     /**
      * Path to directory holding all mapping files.
      */
@@ -84,19 +102,61 @@ public class MappingService {
      */
     private Path jobsOutputDirectory;
 
+    /**
+     * Cache for mapping results, null if disabled.
+     */
+    private MappingResultCache resultCache;
+
+    /**
+     * Cache of mapping descriptors used for mapping executions.
+     */
+    private MappingDescriptorCache mappingDescriptors;
+
+    /**
+     * Memory-resident store of the mapping documents in the mappings
+     * directory.
+     */
+    private MappingDocumentStore mappingDocuments;
+
+    /**
+     * Pretty print JSON results if not specified otherwise.
+     */
+    private boolean prettyPrintResults;
+
     private final MeterRegistry meterRegistry;
 
+    /**
+     * Properties holding the memory budget of batch mappings, null if not
+     * configured.
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * Usage counters per plugin, registered on first use.
+     */
+    private final Map<String, Counter> pluginUsageCounters = new ConcurrentHashMap<>();
+
     /**
      * Logger for this class.
      */
     private final static Logger LOGGER = LoggerFactory.getLogger(MappingService.class);
 
+    /**
+     * Object mapper for reading and writing batch mappings.
+     */
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
     @Autowired
     public MappingService(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
+        this.applicationProperties = applicationProperties;
         init(applicationProperties);
     }
 
+    private Counter pluginUsage(String pluginId) {
+        return pluginUsageCounters.computeIfAbsent(pluginId, id -> Counter.builder("mapping_service.plugin_usage").tag("plugin", id).register(meterRegistry));
+    }
+
     /**
      * Save content to mapping file and get the mapping location.
      *
@@ -136,6 +196,7 @@ public class MappingService {
         }
 
         MappingRecord result = persistMapping(content, mappingRecord);
+        mappingDescriptors.invalidate(result.getMappingId());
         LOGGER.trace("Mapping with id {} successfully created.", result.getMappingId());
         return mappingRecord;
     }
@@ -154,11 +215,45 @@ public class MappingService {
         }
 
         LOGGER.trace("Updating mapping with id {}.", mappingRecord.getMappingId());
+        String previousDocumentHash = findMapping.get().getDocumentHash();
         mappingRecord.setMappingDocumentUri(findMapping.get().getMappingDocumentUri());
         persistMapping(content, mappingRecord);
+        mappingDescriptors.invalidate(mappingRecord.getMappingId());
+        LOGGER.trace("Removing compiled representations and cached results of previous mapping document.");
+        pluginManager.invalidateCompiledMapping(previousDocumentHash);
+        if (resultCache != null) {
+            resultCache.invalidate(mappingRecord.getMappingId());
+        }
         LOGGER.trace("Mapping with id {} successfully updated.", mappingRecord.getMappingId());
     }
 
+    /**
+     * Update a mapping record without changing its mapping document, e.g.,
+     * after modifying title, description or access control list.
+     *
+     * @param mappingRecord record of the mapping
+     * @return The persisted mapping record.
+     */
+    public MappingRecord updateMappingRecord(MappingRecord mappingRecord) {
+        LOGGER.trace("Updating mapping record with id {}.", mappingRecord.getMappingId());
+        MappingRecord result = mappingRepo.save(mappingRecord);
+        mappingDescriptors.invalidate(mappingRecord.getMappingId());
+        return result;
+    }
+
+    /**
+     * Get the descriptor of a mapping required for executing it. Descriptors
+     * of frequently used mappings are cached, such that they are resolved
+     * without database access.
+     *
+     * @param mappingId id of the mapping
+     * @return The descriptor or an empty optional if no mapping with the
+     * provided id exists.
+     */
+    public Optional<MappingDescriptor> getMappingDescriptor(String mappingId) {
+        return mappingDescriptors.get(mappingId);
+    }
+
     /**
      * Delete mapping file and its record.
      *
@@ -174,6 +269,11 @@ public class MappingService {
         LOGGER.trace("Deleting mapping with id {}.", mappingRecord.getMappingId());
         mappingRecord = findMapping.get();
         mappingRepo.delete(mappingRecord);
+        mappingDescriptors.invalidate(mappingRecord.getMappingId());
+        pluginManager.invalidateCompiledMapping(mappingRecord.getDocumentHash());
+        if (resultCache != null) {
+            resultCache.invalidate(mappingRecord.getMappingId());
+        }
         LOGGER.trace("Mapping with id {} deleted.", mappingRecord.getMappingId());
         try {
             deleteMappingFile(mappingRecord);
@@ -192,6 +292,20 @@ public class MappingService {
      * @return Path to result file.
      */
     public Optional<Path> runPlugin(URI contentUrl, URI mappingUrl, String typeId) throws MappingPluginException {
+        return runPlugin(contentUrl, mappingUrl, typeId, prettyPrintResults);
+    }
+
+    /**
+     * Execute mapping plugin directly providing the input file and the mapping rules. As a result, the location
+     * of the output file is returned.
+     *
+     * @param contentUrl  Local URL of the input file.
+     * @param mappingUrl  Local URL of the mapping rules file.
+     * @param typeId      id of the plugin
+     * @param prettyPrint pretty print JSON results if supported by the plugin
+     * @return Path to result file.
+     */
+    public Optional<Path> runPlugin(URI contentUrl, URI mappingUrl, String typeId, boolean prettyPrint) throws MappingPluginException {
         LOGGER.trace("Executing mapping plugin with content {}, mapping rules {}, and plugin with id {}.", contentUrl, mappingUrl, typeId);
         if (contentUrl == null || mappingUrl == null || typeId == null) {
             throw new MappingPluginException(MappingPluginState.INVALID_INPUT(), "Either contentUrl, mappingUrl, or typeId are not provided.");
@@ -201,14 +315,14 @@ public class MappingService {
         Path srcFile = Paths.get(contentUrl);
         LOGGER.trace("Executing plugin with id {}.", typeId);
 
-        Counter.builder("mapping_service.plugin_usage").tag("plugin", typeId).register(meterRegistry).increment();
+        pluginUsage(typeId).increment();
 
         // execute mapping
         Path resultFile;
         LOGGER.trace("Preparing temporary output file.");
         resultFile = FileUtil.createTempFile(typeId + "_" + srcFile.hashCode(), ".result");
         LOGGER.trace("Temporary output file available at {}. Performing mapping.", resultFile);
-        MappingPluginState result = pluginManager.mapFile(typeId, Paths.get(mappingUrl), srcFile, resultFile);
+        MappingPluginState result = pluginManager.mapFile(typeId, Paths.get(mappingUrl), null, srcFile, resultFile, prettyPrint);
         LOGGER.trace("Mapping plugin returned with result {}. Returning result file.", result);
         returnValue = Optional.of(resultFile);
         // remove downloaded file
@@ -228,6 +342,35 @@ public class MappingService {
      * @return Path to result file.
      */
     public Optional<Path> executeMapping(URI contentUrl, String mappingId) throws MappingPluginException {
+        return executeMapping(contentUrl, mappingId, null);
+    }
+
+    /**
+     * Execute mapping and get the location of result file. If no according
+     * mapping is found the src file will be returned.
+     *
+     * @param contentUrl Content of the src file.
+     * @param mappingId  id of the mapping
+     * @param inputHash  hash of the src file in the format 'sha256:HEX' if
+     *                   already known, e.g., from upload, or null.
+     * @return Path to result file.
+     */
+    public Optional<Path> executeMapping(URI contentUrl, String mappingId, String inputHash) throws MappingPluginException {
+        return executeMapping(contentUrl, mappingId, inputHash, prettyPrintResults);
+    }
+
+    /**
+     * Execute mapping and get the location of result file. If no according
+     * mapping is found the src file will be returned.
+     *
+     * @param contentUrl  Content of the src file.
+     * @param mappingId   id of the mapping
+     * @param inputHash   hash of the src file in the format 'sha256:HEX' if
+     *                    already known, e.g., from upload, or null.
+     * @param prettyPrint pretty print JSON results if supported by the plugin
+     * @return Path to result file.
+     */
+    public Optional<Path> executeMapping(URI contentUrl, String mappingId, String inputHash, boolean prettyPrint) throws MappingPluginException {
         LOGGER.trace("Executing mapping of content {} using mapping with id {}.", contentUrl, mappingId);
         if (contentUrl == null || mappingId == null) {
             throw new MappingPluginException(MappingPluginState.INVALID_INPUT(), "Either contentUrl or mappingId are not provided.");
@@ -235,23 +378,23 @@ public class MappingService {
 
         Optional<Path> returnValue;
         Path srcFile = Paths.get(contentUrl);
-        MappingRecord mappingRecord;
+        MappingDescriptor mapping;
 
         LOGGER.trace("Searching for mapping with id {}.", mappingId);
-        Optional<MappingRecord> optionalMappingRecord = mappingRepo.findByMappingId(mappingId);
-        if (optionalMappingRecord.isPresent()) {
+        Optional<MappingDescriptor> optionalMapping = mappingDescriptors.get(mappingId);
+        if (optionalMapping.isPresent()) {
             LOGGER.trace("Mapping for id {} found.", mappingId);
-            mappingRecord = optionalMappingRecord.get();
+            mapping = optionalMapping.get();
 
-            Counter.builder("mapping_service.plugin_usage").tag("plugin", mappingRecord.getMappingType()).register(meterRegistry).increment();
+            pluginUsage(mapping.mappingType()).increment();
 
-            Path mappingFile = Paths.get(mappingRecord.getMappingDocumentUri());
+            MappingDocument mappingDocument = mappingDocuments.get(mapping.mappingDocument());
             // execute mapping
             Path resultFile;
             LOGGER.trace("Preparing temporary output file.");
             resultFile = FileUtil.createTempFile(mappingId + "_" + srcFile.hashCode(), ".result");
             LOGGER.trace("Temporary output file available at {}. Performing mapping.", resultFile);
-            MappingPluginState result = pluginManager.mapFile(mappingRecord.getMappingType(), mappingFile, srcFile, resultFile);
+            MappingPluginState result = mapFile(mapping, mappingDocument, srcFile, inputHash, resultFile, prettyPrint);
             LOGGER.trace("Mapping returned with result {}. Returning result file.", result);
             returnValue = Optional.of(resultFile);
             // remove downloaded file
@@ -265,6 +408,397 @@ public class MappingService {
         return returnValue;
     }
 
+    /**
+     * Execute a mapping reading the input document from a stream and writing
+     * the result to a stream. For plugins supporting streaming, i.e., for
+     * plugins implementing IStreamingMappingPlugin, neither the input document
+     * nor the result are written to disk. As results are not materialized, the
+     * result cache is not used. Neither stream is closed.
+     *
+     * @param in The input document.
+     * @param out The destination of the result. Nothing is written if the
+     * mapping does not succeed.
+     * @param mappingId id of the mapping
+     * @param prettyPrint pretty print JSON results if supported by the plugin
+     * @return The state of the mapping execution.
+     * @throws MappingNotFoundException if no mapping with the provided id
+     * exists.
+     * @throws MappingPluginException if calling the plugin fails.
+     */
+    public MappingPluginState executeMapping(InputStream in, OutputStream out, String mappingId, boolean prettyPrint) throws MappingPluginException {
+        LOGGER.trace("Executing streaming mapping using mapping with id {}.", mappingId);
+        if (in == null || out == null || mappingId == null) {
+            throw new MappingPluginException(MappingPluginState.INVALID_INPUT(), "Either input, output or mappingId are not provided.");
+        }
+
+        LOGGER.trace("Searching for mapping with id {}.", mappingId);
+        Optional<MappingDescriptor> optionalMapping = mappingDescriptors.get(mappingId);
+        if (optionalMapping.isEmpty()) {
+            LOGGER.error("Unable to find mapping for id {}.", mappingId);
+            throw new MappingNotFoundException(String.format("Unable to find mapping with id %s.", mappingId));
+        }
+        MappingDescriptor mapping = optionalMapping.get();
+        pluginUsage(mapping.mappingType()).increment();
+
+        MappingPluginState result = pluginManager.mapStream(mapping.mappingType(), mappingDocuments.get(mapping.mappingDocument()), mapping.documentHash(), in, out, prettyPrint);
+        LOGGER.trace("Streaming mapping returned with result {}.", result);
+        return result;
+    }
+
+    /**
+     * Map the source file using the provided mapping. If the result cache is
+     * enabled and the plugin is deterministic, a cached result is used if
+     * available. Otherwise, the plugin is executed and its result is cached.
+     *
+     * @param mapping The mapping descriptor.
+     * @param mappingDocument The mapping document.
+     * @param srcFile The input document.
+     * @param inputHash The hash of the input document or null if it has to be
+     * computed.
+     * @param resultFile The destination of the mapping result.
+     * @param prettyPrint Pretty print JSON results if supported by the plugin.
+     * @return The state of the mapping execution.
+     * @throws MappingPluginException if calling the plugin fails.
+     */
+    private MappingPluginState mapFile(MappingDescriptor mapping, MappingDocument mappingDocument, Path srcFile, String inputHash, Path resultFile, boolean prettyPrint) throws MappingPluginException {
+        String pluginId = mapping.mappingType();
+        IMappingPlugin plugin = pluginManager.getPlugins().get(pluginId);
+        if (resultCache == null || plugin == null || !plugin.isDeterministic()) {
+            return pluginManager.mapFile(pluginId, mappingDocument, mapping.documentHash(), srcFile, resultFile, prettyPrint);
+        }
+
+        if (inputHash == null) {
+            try (InputStream in = Files.newInputStream(srcFile)) {
+                inputHash = "sha256:" + DigestUtils.sha256Hex(in);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to hash input document {}. Skipping result cache.", srcFile, e);
+                return pluginManager.mapFile(pluginId, mappingDocument, mapping.documentHash(), srcFile, resultFile, prettyPrint);
+            }
+        }
+        String key = MappingResultCache.keyOf(inputHash, mapping.documentHash(), pluginId, prettyPrint);
+
+        if (resultCache.get(mapping.mappingId(), key, resultFile)) {
+            LOGGER.trace("Using cached result for mapping {}.", mapping.mappingId());
+            return MappingPluginState.SUCCESS();
+        }
+        MappingPluginState result = pluginManager.mapFile(pluginId, mappingDocument, mapping.documentHash(), srcFile, resultFile, prettyPrint);
+        if (MappingPluginState.StateEnum.SUCCESS.equals(result.getState())) {
+            resultCache.put(mapping.mappingId(), key, resultFile);
+        }
+        return result;
+    }
+
+    /**
+     * Obtain a mapper for batch mappings, i.e., for mapping many parsed JSON
+     * documents in memory with the same mapping. The mapping record is
+     * resolved and the mapping document is compiled only once. The mapper must
+     * be closed after use, which happens in executeBatchMapping.
+     *
+     * @param mappingId id of the mapping
+     * @return The mapper.
+     * @throws MappingNotFoundException if no mapping with the provided id
+     * exists.
+     * @throws MappingServiceUserException if the plugin of the mapping does not
+     * support batch mappings.
+     * @throws MappingPluginException if the mapping document cannot be
+     * compiled.
+     */
+    public PluginManager.DocumentMapper getBatchMapper(String mappingId) throws MappingPluginException {
+        LOGGER.trace("Searching for mapping with id {}.", mappingId);
+        Optional<MappingDescriptor> optionalMapping = mappingDescriptors.get(mappingId);
+        if (optionalMapping.isEmpty()) {
+            LOGGER.error("Unable to find mapping for id {}.", mappingId);
+            throw new MappingNotFoundException(String.format("Unable to find mapping with id %s.", mappingId));
+        }
+        MappingDescriptor mapping = optionalMapping.get();
+        PluginManager.DocumentMapper mapper = pluginManager.getDocumentMapper(mapping.mappingType(), mappingDocuments.get(mapping.mappingDocument()), mapping.documentHash());
+        if (mapper == null) {
+            LOGGER.error("Plugin {} of mapping {} does not support batch mappings.", mapping.mappingType(), mappingId);
+            throw new MappingServiceUserException(String.format("Mapping type %s does not support batch mappings.", mapping.mappingType()));
+        }
+        pluginUsage(mapping.mappingType()).increment();
+        return mapper;
+    }
+
+    /**
+     * Execute a batch mapping. The input is either a JSON array or
+     * newline-delimited JSON (NDJSON), which is detected from the first
+     * non-whitespace character. For each input document, one line is written
+     * to the output in input order, either {"index":N,"result":...} or
+     * {"index":N,"error":"..."} if the document could not be parsed or mapped.
+     * As the remaining elements of a JSON array cannot be located after a
+     * parse error, a parse error ends a JSON array batch. The mapper is closed
+     * afterwards.
+     *
+     * Each document is held in memory while it is mapped. Thus, documents
+     * exceeding the memory budget for JSON transformations, i.e.,
+     * jsonMemoryBudget / jsonMemoryFactor bytes, are answered with an error
+     * entry without being read into memory. Such a document ends a JSON array
+     * batch. If the input stream exceeds the maximum document size, which is
+     * signalled by a DocumentTooLargeException, an error entry is written and
+     * the batch ends.
+     *
+     * @param mapper The mapper obtained from getBatchMapper(String).
+     * @param in The input documents.
+     * @param out The destination of the results.
+     * @return The number of processed documents.
+     * @throws IOException if reading the input or writing the output fails.
+     */
+    public long executeBatchMapping(PluginManager.DocumentMapper mapper, InputStream in, OutputStream out) throws IOException {
+        BufferedInputStream input = new BufferedInputStream(in);
+        try (mapper; JsonGenerator generator = JSON_MAPPER.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            long maxDocumentSize = maxBatchDocumentSize();
+            if (firstNonWhitespace(input) == '[') {
+                return mapJsonArray(mapper, input, maxDocumentSize, generator);
+            }
+            return mapNdjson(mapper, input, maxDocumentSize, generator);
+        }
+    }
+
+    /**
+     * Get the maximum size of a single document of a batch mapping, derived
+     * from the memory budget for JSON transformations.
+     *
+     * @return The size in bytes.
+     */
+    private long maxBatchDocumentSize() {
+        long budget = (applicationProperties != null) ? applicationProperties.getJsonMemoryBudget() : 0;
+        int factor = (applicationProperties != null) ? applicationProperties.getJsonMemoryFactor() : 8;
+        if (budget <= 0) {
+            budget = Runtime.getRuntime().maxMemory() / 2;
+        }
+        //documents are buffered in a byte array
+        return Math.max(1, Math.min(Integer.MAX_VALUE - 8, budget / Math.max(1, factor)));
+    }
+
+    private static String documentTooLargeMessage(long maxDocumentSize) {
+        return "Document exceeds the maximum size of " + maxDocumentSize + " bytes for batch mappings.";
+    }
+
+    private long mapJsonArray(PluginManager.DocumentMapper mapper, InputStream input, long maxDocumentSize, JsonGenerator generator) throws IOException {
+        long index = 0;
+        DocumentSizeLimit limitedInput = new DocumentSizeLimit(input, maxDocumentSize);
+        try (JsonParser parser = JSON_MAPPER.createParser(limitedInput)) {
+            parser.nextToken();
+            while (true) {
+                Object document;
+                long size;
+                try {
+                    if (parser.nextToken() == JsonToken.END_ARRAY) {
+                        return index;
+                    }
+                    long start = parser.currentTokenLocation().getByteOffset();
+                    limitedInput.startDocument(start);
+                    document = JSON_MAPPER.readValue(parser, Object.class);
+                    limitedInput.endDocument();
+                    size = parser.currentLocation().getByteOffset() - start;
+                } catch (JsonProcessingException e) {
+                    LOGGER.debug("Failed to parse element {} of batch.", index, e);
+                    writeBatchError(generator, index, "Invalid JSON: " + e.getOriginalMessage());
+                    return index + 1;
+                } catch (DocumentTooLargeException e) {
+                    LOGGER.debug("Element {} of batch is too large.", index, e);
+                    writeBatchError(generator, index, e.getMessage());
+                    return index + 1;
+                }
+                if (size > maxDocumentSize) {
+                    //element was within the read-ahead tolerance of DocumentSizeLimit
+                    writeBatchError(generator, index++, documentTooLargeMessage(maxDocumentSize));
+                    continue;
+                }
+                mapBatchDocument(mapper, index++, document, generator);
+            }
+        }
+    }
+
+    private long mapNdjson(PluginManager.DocumentMapper mapper, InputStream input, long maxDocumentSize, JsonGenerator generator) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long index = 0;
+        while (true) {
+            LineStatus status;
+            try {
+                status = readLine(input, line, maxDocumentSize);
+            } catch (DocumentTooLargeException e) {
+                LOGGER.debug("Batch exceeds the maximum document size.", e);
+                writeBatchError(generator, index, e.getMessage());
+                return index + 1;
+            }
+            if (status == LineStatus.END) {
+                return index;
+            }
+            if (status == LineStatus.TOO_LARGE) {
+                LOGGER.debug("Line {} of batch is too large.", index);
+                writeBatchError(generator, index++, documentTooLargeMessage(maxDocumentSize));
+                continue;
+            }
+            Object document;
+            try (JsonParser parser = JSON_MAPPER.createParser(line.toByteArray())) {
+                if (parser.nextToken() == null) {
+                    //blank line
+                    continue;
+                }
+                document = JSON_MAPPER.readValue(parser, Object.class);
+            } catch (JsonProcessingException e) {
+                LOGGER.debug("Failed to parse line {} of batch.", index, e);
+                writeBatchError(generator, index++, "Invalid JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            mapBatchDocument(mapper, index++, document, generator);
+        }
+    }
+
+    private void mapBatchDocument(PluginManager.DocumentMapper mapper, long index, Object document, JsonGenerator generator) throws IOException {
+        Object result;
+        try {
+            result = mapper.map(document);
+        } catch (MappingPluginException e) {
+            LOGGER.debug("Failed to map document {} of batch.", index, e);
+            Object details = e.getMappingPluginState().getDetails();
+            writeBatchError(generator, index, (details != null) ? details.toString() : "Mapping failed.");
+            return;
+        } catch (RuntimeException e) {
+            //do not expose internal error messages to the client
+            LOGGER.error("Failed to map document {} of batch.", index, e);
+            writeBatchError(generator, index, "Mapping failed.");
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeNumberField("index", index);
+        generator.writeFieldName("result");
+        generator.writeObject(result);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * Result of reading a line of an NDJSON batch.
+     */
+    private enum LineStatus {
+        COMPLETE,
+        TOO_LARGE,
+        END
+    }
+
+    /**
+     * Read the next line of an NDJSON batch into the provided buffer. Lines
+     * exceeding maxSize bytes are skipped without buffering them.
+     *
+     * @param input The batch.
+     * @param line The buffer receiving the line without line terminator.
+     * @param maxSize The maximum size of a line in bytes.
+     * @return The status of the line, END if the input has no more lines.
+     * @throws IOException if reading the input fails.
+     */
+    private static LineStatus readLine(InputStream input, ByteArrayOutputStream line, long maxSize) throws IOException {
+        line.reset();
+        long size = 0;
+        int b;
+        while ((b = input.read()) != -1 && b != '\n') {
+            if (++size <= maxSize) {
+                line.write(b);
+            }
+        }
+        if (b == -1 && size == 0) {
+            return LineStatus.END;
+        }
+        return (size > maxSize) ? LineStatus.TOO_LARGE : LineStatus.COMPLETE;
+    }
+
+    private void writeBatchError(JsonGenerator generator, long index, String message) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("index", index);
+        generator.writeStringField("error", message);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static int firstNonWhitespace(BufferedInputStream input) throws IOException {
+        while (true) {
+            input.mark(1);
+            int b = input.read();
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                input.reset();
+                return b;
+            }
+        }
+    }
+
+    /**
+     * Stream limiting the bytes read for a single element of a JSON array
+     * batch, such that oversized elements are not read into memory. As the
+     * parser reads ahead, the limit is enforced with a tolerance of
+     * READ_AHEAD bytes. The exact size of an element is checked after it has
+     * been parsed.
+     */
+    private static final class DocumentSizeLimit extends FilterInputStream {
+
+        private static final int READ_AHEAD = 64 * 1024;
+
+        private final long maxSize;
+        private long position = 0;
+        private long limit = Long.MAX_VALUE;
+
+        DocumentSizeLimit(InputStream in, long maxSize) {
+            super(in);
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Start limiting the bytes read for an element.
+         *
+         * @param start The offset of the element in the stream.
+         */
+        void startDocument(long start) {
+            limit = start + maxSize + READ_AHEAD;
+        }
+
+        /**
+         * Stop limiting the bytes read, e.g., between elements.
+         */
+        void endDocument() {
+            limit = Long.MAX_VALUE;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(long read) {
+            position += read;
+            if (position > limit) {
+                throw new DocumentTooLargeException(documentTooLargeMessage(maxSize));
+            }
+        }
+    }
+
     /**
      * Schedule an asynchronous job execution. The job will be scheduled and can
      * be monitored. As soon as the job has finished successfully, the output
@@ -273,44 +807,78 @@ public class MappingService {
      * @param jobId      The job's id.
      * @param contentUrl The URL of the user upload.
      * @param mappingId  The id of the mapping to be used.
+     * @param prettyPrint Pretty print JSON results if supported by the plugin.
      * @return Job status as completable future.
      * @throws MappingPluginException if calling the plugin fails.
      */
-    @Async("asyncExecutor")
-    public CompletableFuture<JobStatus> executeMappingAsync(String jobId, URI contentUrl, String mappingId) throws MappingPluginException {
+    public CompletableFuture<JobStatus> executeMappingAsync(String jobId, URI contentUrl, String mappingId, boolean prettyPrint) throws MappingPluginException {
+        return executeMappingAsync(jobId, contentUrl, mappingId, prettyPrint, null, JobPriority.NORMAL);
+    }
+
+    /**
+     * Schedule an asynchronous job execution via the JobScheduler. Jobs are
+     * queued per principal or per mapping and started by priority within
+     * their queue.
+     *
+     * @param jobId      The job's id.
+     * @param contentUrl The URL of the user upload.
+     * @param mappingId  The id of the mapping to be used.
+     * @param prettyPrint Pretty print JSON results if supported by the plugin.
+     * @param principal The principal submitting the job or null if unknown.
+     * @param priority The priority of the job.
+     * @return Job status as completable future.
+     * @throws MappingPluginException if calling the plugin fails.
+     * @throws org.springframework.core.task.TaskRejectedException if the job
+     * queue is full.
+     */
+    public CompletableFuture<JobStatus> executeMappingAsync(String jobId, URI contentUrl, String mappingId, boolean prettyPrint, String principal, JobPriority priority) throws MappingPluginException {
+        return jobScheduler.schedule(principal, mappingId, priority, () -> executeMappingJob(jobId, contentUrl, mappingId, prettyPrint));
+    }
+
+    /**
+     * Execute a scheduled job.
+     *
+     * @param jobId      The job's id.
+     * @param contentUrl The URL of the user upload.
+     * @param mappingId  The id of the mapping to be used.
+     * @param prettyPrint Pretty print JSON results if supported by the plugin.
+     * @return The final job status.
+     */
+    private JobStatus executeMappingJob(String jobId, URI contentUrl, String mappingId, boolean prettyPrint) {
         LOGGER.trace("Executing mapping of content {} using mapping with id {}.", contentUrl, mappingId);
-        CompletableFuture<JobStatus> task = new CompletableFuture<>();
+        jobManager.startJob(jobId);
+        JobStatus status;
 
         if (contentUrl == null || mappingId == null) {
-            task.complete(JobStatus.error(jobId, JobStatus.STATUS.FAILED, "Either contentUrl or mappingId are not provided."));
+            status = JobStatus.error(jobId, JobStatus.STATUS.FAILED, "Either contentUrl or mappingId are not provided.");
         } else {
             Optional<Path> returnValue;
             Path srcFile = Paths.get(contentUrl);
-            MappingRecord mappingRecord;
+            MappingDescriptor mapping;
 
             // Get mapping file
             LOGGER.trace("Searching for mapping with id {}.", mappingId);
-            Optional<MappingRecord> optionalMappingRecord = mappingRepo.findByMappingId(mappingId);
-            if (optionalMappingRecord.isPresent()) {
+            Optional<MappingDescriptor> optionalMapping = mappingDescriptors.get(mappingId);
+            if (optionalMapping.isPresent()) {
                 LOGGER.trace("Mapping for id {} found. Creating temporary output file.", mappingId);
-                mappingRecord = optionalMappingRecord.get();
-                Path mappingFile = Paths.get(mappingRecord.getMappingDocumentUri());
+                mapping = optionalMapping.get();
+                MappingDocument mappingDocument = mappingDocuments.get(mapping.mappingDocument());
                 // execute mapping
                 Path resultFile = getOutputFile(jobId).toPath();
                 LOGGER.trace("Temporary output file available at {}. Performing mapping.", resultFile);
                 try {
-                    MappingPluginState result = pluginManager.mapFile(mappingRecord.getMappingType(), mappingFile, srcFile, resultFile);
+                    MappingPluginState result = mapFile(mapping, mappingDocument, srcFile, null, resultFile, prettyPrint);
 
                     LOGGER.trace("Mapping returned with result state {}. Returning result file.", result.getState());
                     returnValue = Optional.of(resultFile);
                     LOGGER.trace("Fixing file extension for output {}", returnValue.get());
-                    Path outputPath = FileUtil.fixFileExtension(returnValue.get());
+                    Path outputPath = FileUtil.identifyFile(returnValue.get(), pluginManager.getAuthoritativeOutputType(mapping.mappingType())).path();
                     LOGGER.trace("Fixed output path: {}", outputPath);
 
-                    task.complete(JobStatus.complete(jobId, JobStatus.STATUS.SUCCEEDED, outputPath.toFile()));
+                    status = JobStatus.complete(jobId, JobStatus.STATUS.SUCCEEDED, outputPath.toFile());
                 } catch (MappingPluginException t) {
                     LOGGER.error("Asynchronous job execution failed with error.", t);
-                    task.complete(JobStatus.error(jobId, JobStatus.STATUS.FAILED, t.getMessage()));
+                    status = JobStatus.error(jobId, JobStatus.STATUS.FAILED, t.getMessage());
                 } finally {
                     // remove downloaded file
                     LOGGER.trace("Removing user upload at {}.", srcFile);
@@ -319,11 +887,11 @@ public class MappingService {
                 }
             } else {
                 LOGGER.error("Unable to find mapping with id {}.", mappingId);
-                task.complete(JobStatus.error(jobId, JobStatus.STATUS.FAILED, "Unable to find mapping with id " + mappingId + "."));
+                status = JobStatus.error(jobId, JobStatus.STATUS.FAILED, "Unable to find mapping with id " + mappingId + ".");
                 //throw new MappingNotFoundException("Unable to find mapping with id " + mappingId + ".");
             }
         }
-        return task;
+        return status;
     }
 
     /**
@@ -519,11 +1087,15 @@ public class MappingService {
      */
     private void init(ApplicationProperties applicationProperties) {
         if ((applicationProperties != null) && (applicationProperties.getMappingsLocation() != null)) {
+            prettyPrintResults = applicationProperties.isPrettyPrintResults();
+            mappingDescriptors = new MappingDescriptorCache(mappingId -> mappingRepo.findByMappingId(mappingId), applicationProperties.getMappingCacheSize(), applicationProperties.getMappingCacheTimeToLive(), meterRegistry);
             try {
                 mappingsDirectory = Files.createDirectories(new File(applicationProperties.getMappingsLocation().getPath()).getAbsoluteFile().toPath());
             } catch (IOException e) {
                 throw new MappingServiceException(String.format("Could not initialize mappings directory '%s' for mapping.", applicationProperties.getMappingsLocation()), e);
             }
+            mappingDocuments = new MappingDocumentStore(mappingsDirectory, applicationProperties.getMappingDocumentHeapThreshold(), meterRegistry);
+            mappingDocuments.warmUp();
             try {
                 jobsOutputDirectory = Files.createDirectories(new File(applicationProperties.getJobOutputLocation().getPath()).getAbsoluteFile().toPath());
             } catch (IOException e) {
@@ -534,6 +1106,16 @@ public class MappingService {
             } catch (IOException e) {
                 throw new MappingServiceException(String.format("Could not initialize code target directory '%s'.", applicationProperties.getCodeLocation()), e);
             }
+            if (applicationProperties.isResultCacheEnabled()) {
+                Path resultCacheDirectory = (applicationProperties.getResultCacheLocation() != null)
+                        ? new File(applicationProperties.getResultCacheLocation().getPath()).getAbsoluteFile().toPath()
+                        : jobsOutputDirectory.resolve(".resultCache");
+                try {
+                    resultCache = new MappingResultCache(resultCacheDirectory, applicationProperties.getResultCacheMaxSize(), meterRegistry);
+                } catch (IOException e) {
+                    throw new MappingServiceException(String.format("Could not initialize result cache directory '%s'.", resultCacheDirectory), e);
+                }
+            }
         } else {
             throw new MappingServiceException("Cannot configure MappingService due to missing application.properties.");
         }
@@ -557,6 +1139,7 @@ public class MappingService {
                 newMappingFile = Paths.get(mappingsDirectory.toString(), mapping.getMappingId() + "_" + mapping.getMappingType() + ".mapping");
                 LOGGER.trace("Write content to '{}'", newMappingFile);
                 FileUtils.writeStringToFile(newMappingFile.toFile(), content, StandardCharsets.UTF_8);
+                mappingDocuments.put(newMappingFile, content.getBytes(StandardCharsets.UTF_8));
                 mapping.setMappingDocumentUri(newMappingFile.toString());
                 byte[] data = content.getBytes();
 
@@ -585,6 +1168,7 @@ public class MappingService {
         if ((mapping != null) && (mapping.getMappingDocumentUri() != null)) {
             LOGGER.debug("Delete mapping file '{}'", mapping.getMappingDocumentUri());
             Path deleteFile = Paths.get(mapping.getMappingDocumentUri());
+            mappingDocuments.remove(deleteFile);
             if (deleteFile.toFile().exists()) {
                 Path newFileName = Paths.get(deleteFile.getParent().toString(), deleteFile.getFileName() + date2String());
                 LOGGER.trace("Move mapping file fo '{}'", newFileName);
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
@@ -71,6 +72,34 @@ public abstract class AbstractPythonMappingPlugin implements IMappingPlugin {
     private final String pluginVenv = "venv/PluginVenv";
     private final String venvInterpreter;
 
+    /**
+     * The file in the plugin code directory holding the fingerprint of the
+     * last successful setup.
+     */
+    private static final String SETUP_FINGERPRINT = "venv/setup.fingerprint";
+
+    /**
+     * If TRUE, the next setup ignores the setup fingerprint.
+     */
+    private volatile boolean forceRebuild = false;
+
+    /**
+     * The name of the worker entry point expected in the root of the plugin
+     * repository by getWorkerCommandArray(Path).
+     */
+    public static final String WORKER_ENTRY_POINT = "mapping_worker.py";
+
+    /**
+     * The pool of long-lived Python processes, or null if each execution
+     * starts a new process.
+     */
+    private PythonWorkerPool workerPool;
+
+    /**
+     * The timeout in seconds for mapping executions using the worker pool.
+     */
+    private int executionTimeout;
+
     /**
      * Default constructor for instantiating a Python-based mapping plugin. It
      * is assumed, that the code for the plugin is stored in a Git repository
@@ -159,6 +188,33 @@ public abstract class AbstractPythonMappingPlugin implements IMappingPlugin {
      */
     public abstract String[] getCommandArray(Path workingDir, Path mappingFile, Path inputFile, Path outputFile);
 
+    /**
+     * Get the command line call starting a long-lived worker process of the
+     * plugin, again without the Python call itself. Workers are only used if
+     * mapping-service.pythonWorkerPoolSize is larger than 0. A worker reads
+     * one JSON request per line from stdin and writes one JSON response per
+     * line to stdout, see PythonWorker for details. The arguments of a mapping
+     * request are the elements returned by getCommandArray(Path, Path, Path,
+     * Path).
+     *
+     * By default, the script WORKER_ENTRY_POINT in the root of the working
+     * directory is used if it exists. If null is returned, a new Python
+     * process is started for each mapping execution.
+     *
+     * @param workingDir The working directory, i.e., where the plugin code was
+     * checked-out into.
+     *
+     * @return A string array containing the command line call of the worker or
+     * null if the plugin does not provide a worker.
+     */
+    public String[] getWorkerCommandArray(Path workingDir) {
+        Path entryPoint = workingDir.resolve(WORKER_ENTRY_POINT);
+        if (Files.isRegularFile(entryPoint)) {
+            return new String[]{entryPoint.toString()};
+        }
+        return null;
+    }
+
     @Override
     public String name() {
         return this.name;
@@ -179,47 +235,144 @@ public abstract class AbstractPythonMappingPlugin implements IMappingPlugin {
         return this.repositoryUrl;
     }
 
+    /**
+     * Request a complete setup on the next call of
+     * setup(ApplicationProperties), i.e., the venv is recreated and all
+     * requirements are installed even if the setup fingerprint is unchanged.
+     */
+    public void forceRebuild() {
+        this.forceRebuild = true;
+    }
+
     @Override
     public void setup(ApplicationProperties applicationProperties) {
         LOGGER.trace("Setting up mapping plugin {} {}", name(), version());
 
-        //testing minimal Python version
-        if (minPython != null) {
-            if (!hasMinimalPythonVersion(minPython)) {
-                throw new PluginInitializationFailedException("Minimal Python version '" + minPython + "' required by plugin not met.");
-            }
-        }
-
-        //checkout and install plugin
         try {
-            LOGGER.info("Cloning git repository {}, tag {}", repositoryUrl, tag);
             Path path = Paths.get(applicationProperties.getCodeLocation().toURI());
             path = path.resolve(repositoryUrl.trim().replace("https://", "").replace(".git", "") + "_" + version());
+            Path fingerprintFile = path.resolve(SETUP_FINGERPRINT);
+            PythonSetupFingerprint previous = forceRebuild ? null : PythonSetupFingerprint.load(fingerprintFile);
+
+            //obtaining the Python version, which is only checked again if the interpreter has changed
+            String interpreter = "";
+            long interpreterModified = -1;
+            if (applicationProperties.getPythonExecutable() != null) {
+                Path interpreterPath = Paths.get(applicationProperties.getPythonExecutable().toURI());
+                interpreter = interpreterPath.toString();
+                interpreterModified = getLastModified(interpreterPath);
+            }
+            String pythonVersion;
+            if (previous != null && interpreterModified >= 0 && previous.matchesInterpreter(interpreter, interpreterModified)) {
+                LOGGER.trace("Python interpreter unchanged. Using Python version {} from setup fingerprint.", previous.pythonVersion());
+                pythonVersion = previous.pythonVersion();
+            } else {
+                pythonVersion = getPythonVersion();
+            }
+
+            //testing minimal Python version
+            if (minPython != null) {
+                if (!hasMinimalPythonVersion(pythonVersion, minPython)) {
+                    throw new PluginInitializationFailedException("Minimal Python version '" + minPython + "' required by plugin not met.");
+                }
+            }
+
+            //checkout and install plugin
+            LOGGER.info("Cloning git repository {}, tag {}", repositoryUrl, tag);
             LOGGER.info("Target path: {}", path);
             dir = FileUtil.cloneGitRepository(repositoryUrl, tag, path.toAbsolutePath().toString());
-            // Install Python dependencies
-            MappingPluginState venvState = PythonRunnerUtil.runPythonScript("-m", "venv", "--system-site-packages", dir + "/" + pluginVenv);
-            if (MappingPluginState.SUCCESS().getState().equals(venvState.getState())) {
-                LOGGER.info("Venv for plugin installed successfully. Installing requirements.");
-
-                Path requirementsFile = Paths.get(dir + "/" + "requirements.dist.txt");
-                if (requirementsFile.toFile().exists()) {
-                    MappingPluginState requirementsInstallState = ShellRunnerUtil.run(dir + "/" + venvInterpreter, "-m", "pip", "install", "-r", dir + "/" + "requirements.dist.txt");
-                    if (MappingPluginState.SUCCESS().getState().equals(requirementsInstallState.getState())) {
-                        LOGGER.info("Requirements for plugin installed successfully. Setup complete.");
-                    } else {
-                        throw new PluginInitializationFailedException("Failed to install plugin requirements. Status: " + venvState.getState());
-                    }
+            Path requirementsFile = Paths.get(dir + "/" + "requirements.dist.txt");
+            PythonSetupFingerprint fingerprint = new PythonSetupFingerprint(tag, PythonSetupFingerprint.hashRequirements(requirementsFile), interpreter, interpreterModified, pythonVersion);
+
+            if (fingerprint.equals(previous) && Files.isExecutable(Paths.get(dir + "/" + venvInterpreter))) {
+                LOGGER.info("Setup fingerprint of plugin {} {} unchanged. Skipping venv creation and installation of requirements.", name(), version());
+            } else {
+                //remove the fingerprint first, so that an incomplete setup is repeated on the next start
+                Files.deleteIfExists(fingerprintFile);
+                installVenv(requirementsFile);
+                try {
+                    fingerprint.store(fingerprintFile);
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to store setup fingerprint of plugin {} {}. Setup will be repeated on next start.", name(), version(), e);
+                }
+            }
+            forceRebuild = false;
+            startWorkerPool(applicationProperties);
+        } catch (URISyntaxException e) {
+            throw new PluginInitializationFailedException("Invalid codeLocation or pythonExecutable configured in application.properties.", e);
+        } catch (MappingPluginException | IOException e) {
+            throw new PluginInitializationFailedException("Unexpected error during plugin setup.", e);
+        }
+    }
+
+    /**
+     * Create the venv of the plugin and install the plugin requirements. If a
+     * rebuild was forced, an existing venv is cleared before.
+     *
+     * @param requirementsFile The requirements file, which may not exist.
+     *
+     * @throws MappingPluginException If running Python fails.
+     */
+    private void installVenv(Path requirementsFile) throws MappingPluginException {
+        MappingPluginState venvState;
+        if (forceRebuild) {
+            LOGGER.info("Rebuild of plugin {} {} forced. Clearing existing venv.", name(), version());
+            venvState = PythonRunnerUtil.runPythonScript("-m", "venv", "--system-site-packages", "--clear", dir + "/" + pluginVenv);
+        } else {
+            venvState = PythonRunnerUtil.runPythonScript("-m", "venv", "--system-site-packages", dir + "/" + pluginVenv);
+        }
+        if (MappingPluginState.SUCCESS().getState().equals(venvState.getState())) {
+            LOGGER.info("Venv for plugin installed successfully. Installing requirements.");
+
+            if (requirementsFile.toFile().exists()) {
+                MappingPluginState requirementsInstallState = ShellRunnerUtil.run(dir + "/" + venvInterpreter, "-m", "pip", "install", "-r", dir + "/" + "requirements.dist.txt");
+                if (MappingPluginState.SUCCESS().getState().equals(requirementsInstallState.getState())) {
+                    LOGGER.info("Requirements for plugin installed successfully. Setup complete.");
                 } else {
-                    LOGGER.info("No requirements file found. Skipping dependency installation.");
+                    throw new PluginInitializationFailedException("Failed to install plugin requirements. Status: " + venvState.getState());
                 }
             } else {
-                throw new PluginInitializationFailedException("Venv installation has failed. Status: " + venvState.getState());
+                LOGGER.info("No requirements file found. Skipping dependency installation.");
             }
-        } catch (URISyntaxException e) {
-            throw new PluginInitializationFailedException("Invalid codeLocation configured in application.properties.", e);
+        } else {
+            throw new PluginInitializationFailedException("Venv installation has failed. Status: " + venvState.getState());
+        }
+    }
+
+    private long getLastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file.toRealPath()).toMillis();
+        } catch (IOException e) {
+            LOGGER.trace("Failed to obtain modification time of {}.", file, e);
+            return -1;
+        }
+    }
+
+    /**
+     * Start the worker pool if enabled and if the plugin provides a worker
+     * entry point. If the workers cannot be started, the plugin falls back to
+     * starting a new process for each mapping execution.
+     *
+     * @param applicationProperties The mapping-service settings.
+     */
+    private void startWorkerPool(ApplicationProperties applicationProperties) {
+        if (applicationProperties.getPythonWorkerPoolSize() <= 0) {
+            return;
+        }
+        String[] workerCommandArray = getWorkerCommandArray(dir);
+        if (workerCommandArray == null) {
+            LOGGER.info("Plugin {} {} provides no worker entry point. Starting a new process per mapping execution.", name(), version());
+            return;
+        }
+        List<String> command = new LinkedList<>();
+        command.add(dir + "/" + venvInterpreter);
+        command.addAll(Arrays.asList(workerCommandArray));
+        try {
+            workerPool = new PythonWorkerPool(id(), command, dir, applicationProperties.getPythonWorkerPoolSize(),
+                    applicationProperties.getPythonWorkerMaxRequests(), applicationProperties.getPythonWorkerMaxMemory());
+            executionTimeout = applicationProperties.getExecutionTimeout();
         } catch (MappingPluginException e) {
-            throw new PluginInitializationFailedException("Unexpected error during plugin setup.", e);
+            LOGGER.warn("Failed to start worker pool for plugin {} {}. Starting a new process per mapping execution.", name(), version(), e);
         }
     }
 
@@ -228,34 +381,40 @@ public abstract class AbstractPythonMappingPlugin implements IMappingPlugin {
         long startTime = System.currentTimeMillis();
         LOGGER.trace("Run mapping plugin {} {} on '{}' with mapping '{}' -> '{}'", name(), version(), mappingFile, inputFile, outputFile);
         String[] commandArray = getCommandArray(dir, mappingFile, inputFile, outputFile);
-        List<String> command = new LinkedList<>();
-        command.add(dir + "/" + venvInterpreter);
-        command.addAll(Arrays.asList(commandArray));
-        MappingPluginState result = ShellRunnerUtil.run(command.toArray(String[]::new));
+        MappingPluginState result;
+        if (workerPool != null) {
+            result = workerPool.execute(commandArray, executionTimeout);
+        } else {
+            List<String> command = new LinkedList<>();
+            command.add(dir + "/" + venvInterpreter);
+            command.addAll(Arrays.asList(commandArray));
+            result = ShellRunnerUtil.run(this, command.toArray(String[]::new));
+        }
         long endTime = System.currentTimeMillis();
         long totalTime = endTime - startTime;
-        LOGGER.info("Execution time of mapFile: {} milliseconds", totalTime);
+        LOGGER.debug("Execution time of mapFile: {} milliseconds", totalTime);
         return result;
     }
 
+    @Override
+    public void shutdown() {
+        if (workerPool != null) {
+            workerPool.shutdown();
+            workerPool = null;
+        }
+    }
+
     /**
-     * This method checks if the local Python installation version is larger or
-     * equal the provided version number. The version should be provided as
-     * semantic version number, i.e., 3.13.2
-     * The method will return TRUE if the minimal requirements are met and false
-     * otherwise. False is also returned if obtaining/parsing the local python
-     * version fails. for any reason.
+     * Obtain the version of the local Python installation via 'python
+     * --version'.
      *
-     * @param versionString The semantic version string to compare the local
-     * Python version against.
-     *
-     * @return True if versionString is smaller or equal the local Python
-     * version, false otherwise.
+     * @return The semantic version number, e.g., 3.13.2, or
+     * PythonSetupFingerprint.UNKNOWN if obtaining the version fails for any
+     * reason.
      */
-    private boolean hasMinimalPythonVersion(String versionString) {
-        boolean result = false;
+    private String getPythonVersion() {
+        String result = PythonSetupFingerprint.UNKNOWN;
         try {
-            LOGGER.trace("Checking for minimal Python version {}.", versionString);
             ByteArrayOutputStream bout = new ByteArrayOutputStream();
             MappingPluginState state = PythonRunnerUtil.runPythonScript("--version", bout, System.err);
 
@@ -270,11 +429,8 @@ public abstract class AbstractPythonMappingPlugin implements IMappingPlugin {
                 String[] split = bout.toString().split(" ");
 
                 if (split.length == 2) {
-                    String localPythonVersion = split[1].trim();
-                    LOGGER.trace("Obtained local Python version: {}", localPythonVersion);
-                    ComparableVersion localVersion = new ComparableVersion(localPythonVersion);
-                    ComparableVersion minimalVersion = new ComparableVersion(versionString);
-                    result = minimalVersion.compareTo(localVersion) <= 0;
+                    result = split[1].trim();
+                    LOGGER.trace("Obtained local Python version: {}", result);
                 } else {
                     LOGGER.info("Unexpected Python version output. Unable to check for minimal version.");
                 }
@@ -284,4 +440,29 @@ public abstract class AbstractPythonMappingPlugin implements IMappingPlugin {
         }
         return result;
     }
+
+    /**
+     * This method checks if the local Python installation version is larger or
+     * equal the provided version number. The version should be provided as
+     * semantic version number, i.e., 3.13.2
+     * The method will return TRUE if the minimal requirements are met and false
+     * otherwise. False is also returned if the local Python version is
+     * unknown.
+     *
+     * @param localPythonVersion The version of the local Python installation.
+     * @param versionString The semantic version string to compare the local
+     * Python version against.
+     *
+     * @return True if versionString is smaller or equal the local Python
+     * version, false otherwise.
+     */
+    private boolean hasMinimalPythonVersion(String localPythonVersion, String versionString) {
+        LOGGER.trace("Checking for minimal Python version {}.", versionString);
+        if (PythonSetupFingerprint.UNKNOWN.equals(localPythonVersion)) {
+            return false;
+        }
+        ComparableVersion localVersion = new ComparableVersion(localPythonVersion);
+        ComparableVersion minimalVersion = new ComparableVersion(versionString);
+        return minimalVersion.compareTo(localVersion) <= 0;
+    }
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache holding compiled mapping documents of ICompiledMappingPlugin
+ * implementations. Entries are identified by the plugin instance and a mapping
+ * key, which is the document hash of a registered mapping or the hash of the
+ * mapping document's content for ad-hoc executions. Thus, compiled mappings are
+ * never shared between instances of a plugin, e.g., after a reload. Entries are evicted as soon as the
+ * maximum size is exceeded or if they were not used for the configured idle
+ * timeout. Hits, misses, evictions and the current size are published via
+ * the provided MeterRegistry, as well as gauges for the hit ratio and the
+ * configured limits.
+ *
+ * @author jejkal
+ */
+public class CompiledMappingCache {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(CompiledMappingCache.class);
+
+    /**
+     * Name of the cache used for publishing metrics.
+     */
+    public static final String CACHE_NAME = "mapping_service.compiled_mappings";
+
+    private final Cache<CacheKey, Object> cache;
+
+    private record CacheKey(IMappingPlugin plugin, String mappingKey) {
+
+    }
+
+    /**
+     * Default constructor.
+     *
+     * @param maxSize The maximum number of compiled mappings kept in memory.
+     * @param idleTimeoutSeconds The time in seconds after which unused entries
+     * are evicted.
+     * @param meterRegistry The registry used to publish cache metrics.
+     */
+    public CompiledMappingCache(long maxSize, long idleTimeoutSeconds, MeterRegistry meterRegistry) {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(idleTimeoutSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder(CACHE_NAME + ".hit_ratio", cache, c -> c.stats().hitRate()).register(meterRegistry);
+        Gauge.builder(CACHE_NAME + ".max_size", () -> maxSize).register(meterRegistry);
+        Gauge.builder(CACHE_NAME + ".idle_timeout", () -> idleTimeoutSeconds).baseUnit("seconds").register(meterRegistry);
+    }
+
+    /**
+     * Get the compiled representation of a mapping document. If there is no
+     * cached entry for the plugin and the mapping key, the mapping document is
+     * compiled by the plugin and added to the cache.
+     *
+     * @param <T> The type of the compiled mapping.
+     * @param plugin The plugin used to compile the mapping document.
+     * @param mappingKey The key identifying the revision of the mapping
+     * document.
+     * @param mappingDocument The mapping document.
+     *
+     * @return The compiled mapping.
+     *
+     * @throws MappingPluginException If compiling the mapping document fails.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(ICompiledMappingPlugin<T> plugin, String mappingKey, MappingDocument mappingDocument) throws MappingPluginException {
+        try {
+            return (T) cache.get(new CacheKey(plugin, mappingKey), () -> {
+                LOG.trace("No compiled mapping found for key {}. Compiling mapping document {} using plugin {}.", mappingKey, mappingDocument, plugin.id());
+                return plugin.compile(mappingDocument);
+            });
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof MappingPluginException mappingPluginException) {
+                throw mappingPluginException;
+            }
+            throw new MappingPluginException(MappingPluginState.EXECUTION_ERROR(), "Failed to compile mapping document.", ex.getCause());
+        } catch (UncheckedExecutionException ex) {
+            LOG.error("Unexpected error while compiling mapping document {}.", mappingDocument, ex.getCause());
+            throw new MappingPluginException(MappingPluginState.EXECUTION_ERROR(), "Failed to compile mapping document.", ex.getCause());
+        }
+    }
+
+    /**
+     * Remove all compiled mappings for the provided mapping key, e.g., after
+     * a mapping document was updated or deleted.
+     *
+     * @param mappingKey The key identifying the revision of the mapping
+     * document.
+     */
+    public void invalidate(String mappingKey) {
+        if (mappingKey != null) {
+            LOG.trace("Invalidating compiled mappings for key {}.", mappingKey);
+            cache.asMap().keySet().removeIf(key -> mappingKey.equals(key.mappingKey()));
+        }
+    }
+
+    /**
+     * Remove all compiled mappings of a plugin instance, e.g., after the
+     * instance was replaced by a reload.
+     *
+     * @param plugin The plugin instance.
+     */
+    public void invalidate(IMappingPlugin plugin) {
+        cache.asMap().keySet().removeIf(key -> key.plugin() == plugin);
+    }
+
+    /**
+     * Remove all compiled mappings, e.g., after plugins have been reloaded.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Compute the mapping key for a mapping document which is not associated
+     * with a registered mapping. The key has the same format as the document
+     * hash of a mapping record, i.e., 'sha256:' followed by the hex encoded hash
+     * of the document's content.
+     *
+     * @param mappingDocument The mapping document.
+     *
+     * @return The mapping key.
+     *
+     * @throws MappingPluginException If the mapping document cannot be read.
+     */
+    public static String mappingKeyOf(MappingDocument mappingDocument) throws MappingPluginException {
+        return mappingDocument.getContentHash();
+    }
+}
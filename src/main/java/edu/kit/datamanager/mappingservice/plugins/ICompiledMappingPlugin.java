@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+import java.nio.file.Path;
+
+/**
+ * Interface for mapping plugins translating a mapping document into a reusable,
+ * compiled representation before applying it, e.g., a Jolt Chainr. Compiled
+ * mappings are cached by the PluginManager, such that each revision of a
+ * mapping document is only parsed and compiled once. As a compiled mapping may
+ * be used by multiple requests at the same time, implementations must ensure
+ * that mapFile(T, Path, Path) can be called concurrently for the same compiled
+ * mapping.
+ *
+ * @param <T> The type of the compiled mapping.
+ *
+ * @author jejkal
+ */
+public interface ICompiledMappingPlugin<T> extends IMappingPlugin {
+
+    /**
+     * Parse and compile the provided mapping document.
+     *
+     * @param mappingFile The path to the mapping document.
+     *
+     * @return The compiled mapping, which must not be null.
+     *
+     * @throws MappingPluginException If the mapping document cannot be read or
+     * compiled.
+     */
+    T compile(Path mappingFile) throws MappingPluginException;
+
+    /**
+     * Parse and compile the provided mapping document. Plugins should override
+     * this method and use the content of the document, which is already held
+     * in memory by the mapping service. By default, the document is compiled
+     * via compile(Path).
+     *
+     * @param mappingDocument The mapping document.
+     *
+     * @return The compiled mapping, which must not be null.
+     *
+     * @throws MappingPluginException If the mapping document cannot be read or
+     * compiled.
+     */
+    default T compile(MappingDocument mappingDocument) throws MappingPluginException {
+        return compile(mappingDocument.getPath());
+    }
+
+    /**
+     * Execute the plugin using a compiled mapping.
+     *
+     * @param compiledMapping The compiled mapping obtained from
+     * compile(Path).
+     * @param inputFile The path to the input document.
+     * @param outputFile The path to the output document.
+     *
+     * @return The exit code of the plugin.
+     *
+     * @throws MappingPluginException If the mapping execution fails.
+     */
+    MappingPluginState mapFile(T compiledMapping, Path inputFile, Path outputFile) throws MappingPluginException;
+
+    /**
+     * Execute the plugin using a compiled mapping. Plugins producing JSON
+     * should indent their output only if prettyPrint is TRUE. By default,
+     * prettyPrint is ignored.
+     *
+     * @param compiledMapping The compiled mapping obtained from
+     * compile(Path).
+     * @param inputFile The path to the input document.
+     * @param outputFile The path to the output document.
+     * @param prettyPrint TRUE if the output should be pretty printed.
+     *
+     * @return The exit code of the plugin.
+     *
+     * @throws MappingPluginException If the mapping execution fails.
+     */
+    default MappingPluginState mapFile(T compiledMapping, Path inputFile, Path outputFile, boolean prettyPrint) throws MappingPluginException {
+        return mapFile(compiledMapping, inputFile, outputFile);
+    }
+
+    @Override
+    default MappingPluginState mapFile(Path mappingFile, Path inputFile, Path outputFile) throws MappingPluginException {
+        return mapFile(compile(mappingFile), inputFile, outputFile);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+/**
+ * Interface for mapping plugins transforming parsed JSON documents in memory,
+ * e.g., JoltPlugin. Such plugins can be used for batch mappings, where many
+ * small documents are mapped with the same compiled mapping without writing
+ * them to disk.
+ *
+ * @param <T> The type of the compiled mapping.
+ *
+ * @author jejkal
+ */
+public interface IJsonMappingPlugin<T> extends ICompiledMappingPlugin<T> {
+
+    /**
+     * Map a parsed JSON document using a compiled mapping. As for
+     * mapFile(T, Path, Path), this method may be called concurrently for the
+     * same compiled mapping.
+     *
+     * @param compiledMapping The compiled mapping obtained from
+     * compile(Path).
+     * @param document The parsed input document, i.e., a map, a list or a
+     * simple value as obtained from Jackson.
+     *
+     * @return The result, which must be serializable by Jackson.
+     *
+     * @throws MappingPluginException If the document cannot be mapped.
+     */
+    Object mapDocument(T compiledMapping, Object document) throws MappingPluginException;
+}
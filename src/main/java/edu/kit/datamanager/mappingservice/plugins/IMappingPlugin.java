@@ -103,4 +103,36 @@ public interface IMappingPlugin {
      * @throws MappingPluginException If the mapping execution fails.
      */
     MappingPluginState mapFile(Path mappingFile, Path inputFile, Path outputFile) throws MappingPluginException;
+
+    /**
+     * Determines whether the plugin always produces the same output for the
+     * same mapping and input document. Only results of deterministic plugins
+     * are cached. By default, plugins are assumed to be deterministic.
+     *
+     * @return TRUE if the plugin is deterministic.
+     */
+    default boolean isDeterministic() {
+        return true;
+    }
+
+    /**
+     * Determines whether the first entry of outputTypes() is the exact mime
+     * type of every result of the plugin. In that case, results are not
+     * inspected to detect their mime type. By default, the mime type of
+     * results is detected.
+     *
+     * @return TRUE if the first output type is authoritative.
+     */
+    default boolean isOutputTypeAuthoritative() {
+        return false;
+    }
+
+    /**
+     * This method is called when the plugin is unloaded. It can be used to
+     * release resources acquired during setup, e.g., to stop processes. By
+     * default, nothing is done.
+     */
+    default void shutdown() {
+        //nothing to do by default
+    }
 }
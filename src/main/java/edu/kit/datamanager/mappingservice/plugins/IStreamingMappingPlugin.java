@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Interface for mapping plugins able to read the input document from a stream
+ * and to write the result to a stream, e.g., JoltPlugin. For such plugins,
+ * neither the input document nor the result have to be written to disk, e.g.,
+ * the request body can be mapped directly into the response body. The result
+ * must be of the first mime type returned by outputTypes().
+ *
+ * @param <T> The type of the compiled mapping.
+ *
+ * @author jejkal
+ */
+public interface IStreamingMappingPlugin<T> extends ICompiledMappingPlugin<T> {
+
+    /**
+     * Map the document read from the provided input stream using a compiled
+     * mapping and write the result to the provided output stream. Neither
+     * stream is closed by the plugin. As for mapFile(T, Path, Path), this
+     * method may be called concurrently for the same compiled mapping.
+     *
+     * Plugins should only write to the output stream after the mapping has
+     * succeeded, such that callers are still able to report errors if no state
+     * other than SUCCESS is returned.
+     *
+     * @param compiledMapping The compiled mapping obtained from
+     * compile(Path).
+     * @param input The stream providing the input document.
+     * @param output The stream to write the result to.
+     * @param prettyPrint TRUE to format the result for readability, FALSE for
+     * compact output if supported by the plugin.
+     *
+     * @return The state of the mapping.
+     *
+     * @throws MappingPluginException If the mapping fails, e.g., as the input
+     * document is too large.
+     */
+    MappingPluginState map(T compiledMapping, InputStream input, OutputStream output, boolean prettyPrint) throws MappingPluginException;
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A mapping document provided to mapping plugins. The document is identified
+ * by its path, which can be passed to external tools. Its content is read at
+ * most once and kept in memory afterwards, such that plugins can access it
+ * without opening the file again. Documents up to a size threshold are held
+ * on-heap, larger documents are mapped read-only into memory. The content
+ * cannot be modified, thus, a document can be shared between concurrent
+ * mapping executions.
+ *
+ * The content is expected to be immutable on disk as well. Mapping documents
+ * of registered mappings are never overwritten, but replaced by new files.
+ *
+ * @author jejkal
+ */
+public final class MappingDocument {
+
+    /**
+     * The default size in bytes up to which documents are held on-heap.
+     */
+    public static final long DEFAULT_HEAP_THRESHOLD = 1024 * 1024;
+
+    private final Path path;
+    private final long heapThreshold;
+    private volatile ByteBuffer content;
+    private volatile boolean mapped;
+    private volatile String contentHash;
+
+    /**
+     * Create a document read on first access using DEFAULT_HEAP_THRESHOLD.
+     *
+     * @param path The path of the mapping document.
+     */
+    public MappingDocument(Path path) {
+        this(path, DEFAULT_HEAP_THRESHOLD);
+    }
+
+    /**
+     * Create a document read on first access.
+     *
+     * @param path The path of the mapping document.
+     * @param heapThreshold The size in bytes up to which the content is held
+     * on-heap. Larger documents are mapped into memory.
+     */
+    public MappingDocument(Path path, long heapThreshold) {
+        this.path = path;
+        this.heapThreshold = heapThreshold;
+    }
+
+    /**
+     * Create a document from content already in memory, e.g., just after the
+     * content was written to path. The content is copied.
+     *
+     * @param path The path of the mapping document.
+     * @param content The content of the mapping document.
+     */
+    public MappingDocument(Path path, byte[] content) {
+        this.path = path;
+        this.heapThreshold = Long.MAX_VALUE;
+        this.content = ByteBuffer.wrap(content.clone()).asReadOnlyBuffer();
+    }
+
+    /**
+     * Get the path of the mapping document.
+     *
+     * @return The path.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Read the content of the mapping document if this has not happened, yet.
+     *
+     * @throws MappingPluginException If the document cannot be read.
+     */
+    public void load() throws MappingPluginException {
+        content();
+    }
+
+    /**
+     * Check whether the content has been read already.
+     *
+     * @return TRUE if the content is in memory.
+     */
+    public boolean isLoaded() {
+        return content != null;
+    }
+
+    /**
+     * Check whether the content is mapped into memory instead of being held
+     * on-heap.
+     *
+     * @return TRUE if the content has been read and is mapped into memory.
+     */
+    public boolean isMapped() {
+        return content != null && mapped;
+    }
+
+    /**
+     * Get the size of the content in memory.
+     *
+     * @return The size in bytes or 0 if the content has not been read, yet.
+     */
+    public long getLoadedSize() {
+        ByteBuffer current = content;
+        return (current != null) ? current.capacity() : 0;
+    }
+
+    /**
+     * Get the content of the mapping document. Each call returns a new
+     * read-only buffer positioned at the beginning of the content.
+     *
+     * @return The content.
+     *
+     * @throws MappingPluginException If the document cannot be read.
+     */
+    public ByteBuffer getContent() throws MappingPluginException {
+        return content().duplicate();
+    }
+
+    /**
+     * Get the content of the mapping document as UTF-8 string.
+     *
+     * @return The content.
+     *
+     * @throws MappingPluginException If the document cannot be read.
+     */
+    public String getContentAsString() throws MappingPluginException {
+        return StandardCharsets.UTF_8.decode(getContent()).toString();
+    }
+
+    /**
+     * Open a stream reading the content of the mapping document from memory.
+     *
+     * @return The stream, which does not have to be closed.
+     *
+     * @throws MappingPluginException If the document cannot be read.
+     */
+    public InputStream openStream() throws MappingPluginException {
+        return new ByteBufferInputStream(getContent());
+    }
+
+    /**
+     * Get the hash of the content in the format used for document hashes of
+     * mapping records, i.e., 'sha256:' followed by the hex encoded hash.
+     *
+     * @return The content hash.
+     *
+     * @throws MappingPluginException If the document cannot be read.
+     */
+    public String getContentHash() throws MappingPluginException {
+        String hash = contentHash;
+        if (hash == null) {
+            hash = "sha256:" + Hex.encodeHexString(DigestUtils.digest(DigestUtils.getSha256Digest(), getContent()));
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    private ByteBuffer content() throws MappingPluginException {
+        ByteBuffer current = content;
+        if (current == null) {
+            synchronized (this) {
+                current = content;
+                if (current == null) {
+                    current = read();
+                    content = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private ByteBuffer read() throws MappingPluginException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Mapping document exceeds the maximum size of " + Integer.MAX_VALUE + " bytes.");
+            }
+            if (size > heapThreshold) {
+                mapped = true;
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                //read until the buffer is full or the end of the file is reached
+            }
+            buffer.flip();
+            return buffer.asReadOnlyBuffer();
+        } catch (IOException ex) {
+            MappingPluginState state = MappingPluginState.EXECUTION_ERROR();
+            state.setDetails("Failed to read mapping document.");
+            throw new MappingPluginException(state, "Failed to read mapping document " + path + ".", ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+
+    /**
+     * Stream reading from a buffer without copying it.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+    }
+}
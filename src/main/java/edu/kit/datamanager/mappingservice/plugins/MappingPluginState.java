@@ -22,8 +22,11 @@ public class MappingPluginState implements Serializable {
         TIMEOUT(HttpStatus.GATEWAY_TIMEOUT),
         EXECUTION_ERROR(HttpStatus.INTERNAL_SERVER_ERROR),
         INVALID_INPUT(HttpStatus.BAD_REQUEST),
+        INPUT_TOO_LARGE(HttpStatus.PAYLOAD_TOO_LARGE),
         BAD_EXIT_CODE(HttpStatus.INTERNAL_SERVER_ERROR),
-        UNKNOWN_ERROR(HttpStatus.INTERNAL_SERVER_ERROR);
+        UNKNOWN_ERROR(HttpStatus.INTERNAL_SERVER_ERROR),
+        OVERLOADED(HttpStatus.TOO_MANY_REQUESTS),
+        UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE);
 
         private final HttpStatus httpStatus;
 
@@ -65,6 +68,10 @@ public class MappingPluginState implements Serializable {
         return new MappingPluginState(StateEnum.INVALID_INPUT);
     }
 
+    public static MappingPluginState INPUT_TOO_LARGE() {
+        return new MappingPluginState(StateEnum.INPUT_TOO_LARGE);
+    }
+
     public static MappingPluginState BAD_EXIT_CODE() {
         return new MappingPluginState(StateEnum.BAD_EXIT_CODE);
     }
@@ -72,4 +79,12 @@ public class MappingPluginState implements Serializable {
     public static MappingPluginState UNKNOWN_ERROR() {
         return new MappingPluginState(StateEnum.UNKNOWN_ERROR);
     }
+
+    public static MappingPluginState OVERLOADED() {
+        return new MappingPluginState(StateEnum.OVERLOADED);
+    }
+
+    public static MappingPluginState UNAVAILABLE() {
+        return new MappingPluginState(StateEnum.UNAVAILABLE);
+    }
 }
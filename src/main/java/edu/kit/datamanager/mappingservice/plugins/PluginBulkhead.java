@@ -0,0 +1,251 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulkhead limiting the number of concurrent executions of a single plugin.
+ * Thus, a slow plugin, e.g., one calling an external tool, cannot occupy all
+ * request and job threads. Executions exceeding the limit wait in FIFO order
+ * for at most the configured time. If too many executions are waiting
+ * already, further executions are rejected immediately with state
+ * OVERLOADED, executions not started within the maximum wait time are
+ * rejected with state UNAVAILABLE.
+ *
+ * In adaptive mode, the configured limit is the upper bound of the actual
+ * limit, which is tuned from the observed execution times using a gradient
+ * of long-term and short-term average execution time. If executions become
+ * slower, the limit decreases down to one, if they are as fast as in the long
+ * term, it grows again.
+ *
+ * The limit, the running and waiting executions as well as rejections are
+ * published via the provided MeterRegistry tagged with the plugin id.
+ *
+ * @author jejkal
+ */
+final class PluginBulkhead {
+
+    /**
+     * Smoothing factor of the short-term average execution time.
+     */
+    private static final double SHORT_WINDOW = 10;
+    /**
+     * Smoothing factor of the long-term average execution time.
+     */
+    private static final double LONG_WINDOW = 600;
+    /**
+     * Factor by which the short-term execution time may exceed the long-term
+     * one before the limit is reduced.
+     */
+    private static final double TOLERANCE = 1.5;
+    /**
+     * Share of a newly computed limit applied to the current limit.
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private final String pluginId;
+    private final int maxLimit;
+    private final int maxWaiting;
+    private final long maxWaitMillis;
+    private final boolean adaptive;
+    private final AdjustableSemaphore permits;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter rejectedOverloaded;
+    private final Counter rejectedUnavailable;
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double shortTime;
+    private double longTime;
+
+    /**
+     * Default constructor.
+     *
+     * @param pluginId The id of the plugin, used to tag metrics.
+     * @param maxLimit The maximum number of concurrent executions.
+     * @param maxWaiting The maximum number of executions waiting for a
+     * permit.
+     * @param maxWaitMillis The time in milliseconds an execution waits for a
+     * permit.
+     * @param adaptive TRUE to tune the limit from observed execution times.
+     * @param meterRegistry The registry used to publish bulkhead metrics.
+     */
+    PluginBulkhead(String pluginId, int maxLimit, int maxWaiting, long maxWaitMillis, boolean adaptive, MeterRegistry meterRegistry) {
+        this.pluginId = pluginId;
+        this.maxLimit = Math.max(1, maxLimit);
+        this.maxWaiting = Math.max(0, maxWaiting);
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.adaptive = adaptive;
+        this.limit = this.maxLimit;
+        this.estimatedLimit = this.maxLimit;
+        this.permits = new AdjustableSemaphore(this.maxLimit);
+
+        Gauge.builder("mapping_service.plugin_bulkhead.limit", this, PluginBulkhead::getLimit).tag("plugin", pluginId).register(meterRegistry);
+        Gauge.builder("mapping_service.plugin_bulkhead.running", running, AtomicInteger::get).tag("plugin", pluginId).register(meterRegistry);
+        Gauge.builder("mapping_service.plugin_bulkhead.waiting", waiting, AtomicInteger::get).tag("plugin", pluginId).register(meterRegistry);
+        rejectedOverloaded = Counter.builder("mapping_service.plugin_bulkhead.rejected").tag("plugin", pluginId).tag("state", MappingPluginState.StateEnum.OVERLOADED.name()).register(meterRegistry);
+        rejectedUnavailable = Counter.builder("mapping_service.plugin_bulkhead.rejected").tag("plugin", pluginId).tag("state", MappingPluginState.StateEnum.UNAVAILABLE.name()).register(meterRegistry);
+    }
+
+    /**
+     * Obtain a permit for one execution, waiting if the limit is reached. Each
+     * permit must be returned via release().
+     *
+     * @return The start time of the execution in nanoseconds, which has to be
+     * passed to release().
+     *
+     * @throws MappingPluginException If too many executions are waiting
+     * already or if no permit was obtained within the maximum wait time.
+     */
+    long acquire() throws MappingPluginException {
+        boolean acquired = false;
+        try {
+            //respects executions already waiting, as the semaphore is fair
+            acquired = permits.tryAcquire(0, TimeUnit.MILLISECONDS);
+            if (!acquired) {
+                if (waiting.incrementAndGet() > maxWaiting) {
+                    waiting.decrementAndGet();
+                    rejectedOverloaded.increment();
+                    throw rejection(MappingPluginState.OVERLOADED(), "Too many pending executions of plugin '" + pluginId + "'. Please try again later.");
+                }
+                try {
+                    acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+                } finally {
+                    waiting.decrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!acquired) {
+            rejectedUnavailable.increment();
+            throw rejection(MappingPluginState.UNAVAILABLE(), "Plugin '" + pluginId + "' is busy. Please try again later.");
+        }
+        running.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Return a permit obtained via acquire(). In adaptive mode, the execution
+     * time is used to update the limit.
+     *
+     * @param start The start time returned by acquire().
+     */
+    void release(long start) {
+        int concurrent = running.getAndDecrement();
+        permits.release();
+        if (adaptive) {
+            update(System.nanoTime() - start, concurrent);
+        }
+    }
+
+    /**
+     * Update the limit from the execution time of a finished execution.
+     *
+     * @param nanos The execution time in nanoseconds.
+     * @param concurrent The number of executions running at the end of the
+     * execution, including itself.
+     */
+    synchronized void update(long nanos, int concurrent) {
+        double time = Math.max(1, nanos);
+        if (longTime == 0) {
+            shortTime = time;
+            longTime = time;
+        } else {
+            shortTime += (time - shortTime) / SHORT_WINDOW;
+            longTime += (time - longTime) / LONG_WINDOW;
+        }
+        //recover faster if executions became permanently faster
+        if (longTime > 2 * shortTime) {
+            longTime *= 0.95;
+        }
+        //do not grow the limit while it is not used anyway
+        if (concurrent < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longTime / shortTime));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(1, Math.min(maxLimit, newLimit));
+        setLimit((int) estimatedLimit);
+    }
+
+    private void setLimit(int newLimit) {
+        int delta = newLimit - limit;
+        limit = newLimit;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.reducePermits(-delta);
+        }
+    }
+
+    /**
+     * Get the current limit of concurrent executions.
+     *
+     * @return The limit.
+     */
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Get the number of running executions.
+     *
+     * @return The number of executions holding a permit.
+     */
+    int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * Get the number of executions waiting for a permit.
+     *
+     * @return The number of waiting executions.
+     */
+    int getWaiting() {
+        return waiting.get();
+    }
+
+    private static MappingPluginException rejection(MappingPluginState state, String details) {
+        state.setDetails(details);
+        return new MappingPluginException(state, details);
+    }
+
+    /**
+     * Semaphore whose permits can be reduced if the limit decreases. Permits
+     * in use are not revoked, but not handed out again.
+     */
+    private static final class AdjustableSemaphore extends Semaphore {
+
+        AdjustableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
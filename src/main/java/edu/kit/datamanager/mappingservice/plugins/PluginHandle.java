@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Reference-counted handle of a plugin instance published by the
+ * PluginManager. Each mapping execution acquires the handle before using the
+ * plugin and releases it afterwards. A handle removed from the registry, e.g.,
+ * as the plugin was replaced by a reload, is retired and closed as soon as
+ * all executions still using it have released it. Once closed, the handle
+ * cannot be acquired anymore.
+ *
+ * @author jejkal
+ */
+final class PluginHandle {
+
+    private static final int CLOSED = -1;
+
+    private final IMappingPlugin plugin;
+
+    private final long generation;
+
+    private final Consumer<PluginHandle> onClose;
+
+    /**
+     * The number of executions using the plugin or CLOSED.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile boolean retired = false;
+
+    /**
+     * Default constructor.
+     *
+     * @param plugin The plugin, which must be set up.
+     * @param generation The reload which published the plugin.
+     * @param onClose Called exactly once after the handle was retired and all
+     * executions have released it.
+     */
+    PluginHandle(IMappingPlugin plugin, long generation, Consumer<PluginHandle> onClose) {
+        this.plugin = plugin;
+        this.generation = generation;
+        this.onClose = onClose;
+    }
+
+    IMappingPlugin plugin() {
+        return plugin;
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    /**
+     * Acquire the handle for a mapping execution.
+     *
+     * @return TRUE if the plugin can be used, FALSE if the handle is already
+     * closed. In that case, the caller has to obtain the current handle from
+     * the registry.
+     */
+    boolean acquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current == CLOSED) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release the handle after a mapping execution. The last release of a
+     * retired handle closes it.
+     */
+    void release() {
+        if (inFlight.decrementAndGet() == 0 && retired) {
+            tryClose();
+        }
+    }
+
+    /**
+     * Retire the handle after it was removed from the registry. If no
+     * execution is using the plugin, the handle is closed immediately.
+     */
+    void retire() {
+        retired = true;
+        tryClose();
+    }
+
+    /**
+     * Get the number of executions currently using the plugin.
+     *
+     * @return The number of executions.
+     */
+    int inFlight() {
+        return Math.max(0, inFlight.get());
+    }
+
+    private void tryClose() {
+        if (inFlight.compareAndSet(0, CLOSED)) {
+            onClose.accept(this);
+        }
+    }
+}
@@ -71,7 +71,9 @@ public class PluginLoader {
     }
 
     /**
-     * Load plugins from a given directory.
+     * Load plugins from a given directory. All plugins are set up one after
+     * another before this method returns. Plugins failing to set up are
+     * ignored.
      *
      * @param pluginDir      Directory containing plugins.
      * @param packagesToScan Packages to scan in addition for plugins.
@@ -82,6 +84,33 @@ public class PluginLoader {
      */
     public Map<String, IMappingPlugin> loadPlugins(File pluginDir, String[] packagesToScan) throws IOException, MappingPluginException {
         Map<String, IMappingPlugin> result = new HashMap<>();
+        for (IMappingPlugin i : discoverPlugins(pluginDir, packagesToScan)) {
+            try {
+                i.setup(applicationProperties);
+                LOG.trace(" - Adding new plugin {}, version {} to available list", i.name(), i.version());
+                result.put(i.id(), i);
+            } catch (PluginInitializationFailedException re) {
+                LOG.error("Failed to initialize plugin {}, version {}. Plugin will be ignored.", i.name(), i.version(), re);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Find and instantiate plugins from a given directory without setting
+     * them up. This allows callers to set up plugins in parallel. Plugins
+     * from plugin jars are loaded by a new class loader on each call, which
+     * can be closed as soon as none of its plugins is used anymore.
+     *
+     * @param pluginDir      Directory containing plugins.
+     * @param packagesToScan Packages to scan in addition for plugins.
+     * @return List of plugins, which still have to be set up.
+     * @throws IOException            If there is an error with the file system.
+     * @throws MappingPluginException If there is an error with the plugin or
+     *                                the input.
+     */
+    public List<IMappingPlugin> discoverPlugins(File pluginDir, String[] packagesToScan) throws IOException, MappingPluginException {
         File[] pluginJars = new File[0];
         if (pluginDir == null || pluginDir.getAbsolutePath().isBlank()) {
             LOG.warn("Plugin folder {} is not defined. MappingService will only use plugins in classpath.", pluginDir);
@@ -96,19 +125,13 @@ public class PluginLoader {
         }
 
         List<Class<IMappingPlugin>> pluginClasses = extractClassesFromJARs(pluginJars, packagesToScan, cl);
-        List<IMappingPlugin> IMappingPluginList = createPluggableObjects(pluginClasses);
-
-        for (IMappingPlugin i : IMappingPluginList) {
-            try {
-                i.setup(applicationProperties);
-                LOG.trace(" - Adding new plugin {}, version {} to available list", i.name(), i.version());
-                result.put(i.id(), i);
-            } catch (PluginInitializationFailedException re) {
-                LOG.error("Failed to initialize plugin {}, version {}. Plugin will be ignored.", i.name(), i.version(), re);
-            }
+        List<IMappingPlugin> plugins = createPluggableObjects(pluginClasses);
+        if (cl != Thread.currentThread().getContextClassLoader() && cl instanceof URLClassLoader urlClassLoader
+                && plugins.stream().noneMatch((plugin) -> plugin.getClass().getClassLoader() == urlClassLoader)) {
+            //no plugin uses the class loader created for the plugin jars, which can therefore be closed
+            urlClassLoader.close();
         }
-
-        return result;
+        return plugins;
     }
 
     private URL[] fileArrayToURLArray(File[] files) throws MalformedURLException {
@@ -16,21 +16,44 @@ package edu.kit.datamanager.mappingservice.plugins;
 
 import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
 import edu.kit.datamanager.mappingservice.exception.MappingServiceException;
+import edu.kit.datamanager.mappingservice.util.FileUtil;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URISyntaxException;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Class for managing plugins and their execution.
@@ -53,9 +76,76 @@ public class PluginManager {
     private final PluginLoader pluginLoader;
 
     /**
-     * Map of plugins.
+     * Immutable snapshot of all plugins ready for use. Changes are applied to
+     * a copy, which is published with a single write. Thus, readers always
+     * see a complete registry, also while plugins are reloaded.
      */
-    private Map<String, IMappingPlugin> plugins = new HashMap<>();
+    private volatile PluginRegistry registry = PluginRegistry.EMPTY;
+
+    /**
+     * Handles removed from the registry which are still used by running
+     * mapping executions.
+     */
+    private final Set<PluginHandle> draining = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Number of plugin instances per plugin class loader, i.e., plugins being
+     * set up and plugins not yet drained. A class loader is closed as soon as
+     * none of its plugins is in use anymore.
+     */
+    private final Map<ClassLoader, Integer> classLoaderUsage = new HashMap<>();
+
+    /**
+     * Setup state of all plugins found during the last reload.
+     */
+    private final Map<String, PluginSetupStatus> setupStatus = new ConcurrentHashMap<>();
+
+    /**
+     * Setup tasks of the last reload, which are cancelled on unload or reload.
+     */
+    private final List<SetupTask> setupTasks = new ArrayList<>();
+
+    /**
+     * Lock guarding setup state transitions, registry updates, the setup
+     * generation, the list of setup tasks and the class loader usage.
+     */
+    private final Object setupLock = new Object();
+
+    /**
+     * Incremented on each reload and unload, such that setup tasks of previous
+     * reloads cannot publish their plugins.
+     */
+    private long setupGeneration = 0;
+
+    private final ExecutorService setupExecutor;
+
+    private final ScheduledExecutorService setupWatchdog;
+
+    /**
+     * Cache for compiled mapping documents of ICompiledMappingPlugin
+     * implementations.
+     */
+    private final CompiledMappingCache compiledMappingCache;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Execution timers per plugin id and outcome, registered on first use.
+     */
+    private final Map<ExecutionTimerKey, Timer> executionTimers = new ConcurrentHashMap<>();
+
+    /**
+     * Bulkheads per plugin id, created on first execution of plugins with a
+     * concurrency limit.
+     */
+    private final Map<String, PluginBulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * Concurrency limits configured per plugin id or name.
+     */
+    private final Map<String, Integer> concurrencyLimits;
+
+    private final boolean adaptiveConcurrency;
 
     /**
      * Constructor with autowired applicationProperties.
@@ -67,42 +157,286 @@ public class PluginManager {
     public PluginManager(ApplicationProperties applicationProperties, PluginLoader pluginLoader, MeterRegistry meterRegistry) {
         this.applicationProperties = applicationProperties;
         this.pluginLoader = pluginLoader;
+        this.meterRegistry = meterRegistry;
+        this.concurrencyLimits = concurrencyLimitsOf(applicationProperties.getPluginConcurrencyLimits());
+        this.adaptiveConcurrency = adaptiveConcurrencyOf(applicationProperties.getPluginConcurrencyMode());
+        this.compiledMappingCache = new CompiledMappingCache(applicationProperties.getCompiledMappingCacheSize(), applicationProperties.getCompiledMappingCacheIdleTimeout(), meterRegistry);
+        this.setupExecutor = Executors.newFixedThreadPool(Math.max(1, applicationProperties.getPluginSetupThreads()), Thread.ofPlatform().name("PluginSetup-", 1).daemon(true).factory());
+        this.setupWatchdog = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("PluginSetupWatchdog").daemon(true).factory());
         reloadPlugins();
 
-        Gauge.builder("mapping_service.plugins_total", () -> plugins.size()).register(meterRegistry);
+        Gauge.builder("mapping_service.plugins_total", () -> registry.plugins().size()).register(meterRegistry);
+        Gauge.builder("mapping_service.plugins_draining", draining::size).register(meterRegistry);
     }
 
     /**
-     * Unload all plugins and reload them from the configured plugin folder.
+     * Unload all plugins. Plugins still being set up are cancelled, plugins
+     * used by running mapping executions are shut down as soon as these
+     * executions have finished.
      */
     public final void unload() {
+        PluginRegistry previous;
+        synchronized (setupLock) {
+            cancelSetups();
+            previous = registry;
+            registry = PluginRegistry.EMPTY;
+        }
+        retire(previous.handles().values());
         pluginLoader.unload();
-        plugins.clear();
+        compiledMappingCache.invalidateAll();
     }
 
     /**
-     * Reloads the plugins from the 'plugins' directory.
+     * Reloads the plugins from the 'plugins' directory. Plugins are set up in
+     * parallel, each within the configured setup timeout. While reloading, the
+     * previously loaded plugins remain available. Each plugin replaces its
+     * previous instance as soon as it is ready, plugins not available anymore
+     * are removed after all plugins have been set up. Mapping executions
+     * still using replaced instances are finished before these instances are
+     * shut down.
+     *
+     * This method returns as soon as all plugins are set up, but waits at most
+     * for the configured setup wait time.
      */
     public final void reloadPlugins() {
-        unload();
+        reloadPlugins(false);
+    }
+
+    /**
+     * Reloads the plugins as described for reloadPlugins(). If rebuild is TRUE,
+     * Python-based plugins recreate their venv and reinstall their
+     * requirements even if their setup fingerprint is unchanged. As the venv
+     * is shared with the previous plugin instance, mapping executions of these
+     * plugins running during the rebuild may fail.
+     *
+     * @param rebuild TRUE to force a complete setup of Python-based plugins.
+     */
+    public final synchronized void reloadPlugins(boolean rebuild) {
+        long generation;
+        synchronized (setupLock) {
+            cancelSetups();
+            generation = setupGeneration;
+        }
+
+        List<IMappingPlugin> discovered;
         try {
-            plugins = pluginLoader.loadPlugins(Paths.get(applicationProperties.getPluginLocation().toURI()).toFile(), applicationProperties.getPackagesToScan());
+            discovered = pluginLoader.discoverPlugins(Paths.get(applicationProperties.getPluginLocation().toURI()).toFile(), applicationProperties.getPackagesToScan());
         } catch (URISyntaxException ex) {
             LOG.error("Mapping plugin location {} cannot be converted to URI", applicationProperties.getPluginLocation(), ex);
+            return;
         } catch (IOException ioe) {
             LOG.error("Failed to open plugin libraries at plugin location {}.", applicationProperties.getPluginLocation(), ioe);
+            return;
         } catch (MappingPluginException e) {
             LOG.info("Unable to obtain plugin classes from libraries at plugin location {}.", applicationProperties.getPluginLocation(), e);
+            return;
+        }
+
+        List<CompletableFuture<Void>> setups = new ArrayList<>();
+        synchronized (setupLock) {
+            for (IMappingPlugin plugin : discovered) {
+                if (rebuild && plugin instanceof AbstractPythonMappingPlugin pythonPlugin) {
+                    pythonPlugin.forceRebuild();
+                }
+                retainClassLoader(plugin);
+                SetupTask task = new SetupTask(plugin, generation);
+                setupStatus.put(plugin.id(), new PluginSetupStatus(SetupState.SETUP, Instant.now(), null));
+                setupTasks.add(task);
+                task.submit();
+                setups.add(task.done);
+            }
+        }
+
+        CompletableFuture<Void> allSetups = CompletableFuture.allOf(setups.toArray(new CompletableFuture[0]));
+        allSetups.thenRun(() -> removeStalePlugins(generation));
+        try {
+            allSetups.get(applicationProperties.getPluginSetupWait(), TimeUnit.SECONDS);
+            LOG.trace("All {} plugin(s) set up.", setups.size());
+        } catch (TimeoutException ex) {
+            LOG.info("{} plugin(s) ready, remaining plugins are still being set up in background.", registry.plugins().size());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            //not expected as setup failures are handled per plugin
+            LOG.error("Failed to wait for plugin setup.", ex);
         }
     }
 
     /**
-     * Gets the map of plugins. The key is the plugin id.
+     * Gets the setup state of all plugins found during the last reload. The
+     * key is the plugin id.
+     *
+     * @return map of setup states
+     */
+    public final Map<String, PluginSetupStatus> getSetupStatus() {
+        return Map.copyOf(setupStatus);
+    }
+
+    /**
+     * Gets the map of plugins. The key is the plugin id. The returned map is
+     * an immutable snapshot, i.e., it is not affected by subsequent reloads.
      *
      * @return map of plugins
      */
     public final Map<String, IMappingPlugin> getPlugins() {
-        return plugins;
+        return registry.plugins();
+    }
+
+    /**
+     * Cancel all setup tasks of the current generation. Must be called while
+     * holding the setup lock.
+     */
+    private void cancelSetups() {
+        setupGeneration++;
+        setupTasks.forEach(SetupTask::cancel);
+        setupTasks.clear();
+        setupStatus.clear();
+    }
+
+    /**
+     * Finish the setup of a plugin if it is still being set up and belongs to
+     * the current generation. Plugins finishing with state READY are
+     * published, replacing a previously published instance with the same id.
+     *
+     * @return TRUE if the state was updated.
+     */
+    private boolean finishSetup(IMappingPlugin plugin, long generation, SetupState state, String message) {
+        PluginHandle replaced = null;
+        synchronized (setupLock) {
+            PluginSetupStatus status = setupStatus.get(plugin.id());
+            if (generation != setupGeneration || status == null || status.state() != SetupState.SETUP) {
+                return false;
+            }
+            setupStatus.put(plugin.id(), new PluginSetupStatus(state, Instant.now(), message));
+            if (state == SetupState.READY) {
+                Map<String, PluginHandle> handles = new HashMap<>(registry.handles());
+                replaced = handles.put(plugin.id(), new PluginHandle(plugin, generation, this::close));
+                registry = PluginRegistry.of(handles);
+            }
+        }
+        if (replaced != null) {
+            LOG.trace("Plugin {} replaced by new instance.", plugin.id());
+            retire(List.of(replaced));
+        }
+        return true;
+    }
+
+    /**
+     * Remove all plugins which were not published by the provided reload,
+     * e.g., as they have been removed from the plugin folder or failed to set
+     * up.
+     */
+    private void removeStalePlugins(long generation) {
+        List<PluginHandle> stale = new ArrayList<>();
+        synchronized (setupLock) {
+            if (generation != setupGeneration) {
+                return;
+            }
+            Map<String, PluginHandle> handles = new HashMap<>();
+            registry.handles().forEach((id, handle) -> {
+                if (handle.generation() == generation) {
+                    handles.put(id, handle);
+                } else {
+                    stale.add(handle);
+                }
+            });
+            if (stale.isEmpty()) {
+                return;
+            }
+            registry = PluginRegistry.of(handles);
+        }
+        LOG.info("Removing {} plugin(s) not available anymore.", stale.size());
+        retire(stale);
+    }
+
+    private void retire(Collection<PluginHandle> handles) {
+        for (PluginHandle handle : handles) {
+            draining.add(handle);
+            handle.retire();
+        }
+    }
+
+    /**
+     * Called as soon as a retired handle is not used anymore.
+     */
+    private void close(PluginHandle handle) {
+        draining.remove(handle);
+        LOG.trace("Shutting down plugin instance {}.", handle.plugin().id());
+        compiledMappingCache.invalidate(handle.plugin());
+        discard(handle.plugin());
+    }
+
+    /**
+     * Shut down a plugin instance which is not used anymore and release its
+     * class loader.
+     */
+    private void discard(IMappingPlugin plugin) {
+        try {
+            plugin.shutdown();
+        } catch (RuntimeException ex) {
+            LOG.warn("Failed to shut down plugin {}.", plugin.id(), ex);
+        }
+        releaseClassLoader(plugin);
+    }
+
+    private void retainClassLoader(IMappingPlugin plugin) {
+        ClassLoader loader = pluginClassLoader(plugin);
+        if (loader != null) {
+            synchronized (setupLock) {
+                classLoaderUsage.merge(loader, 1, Integer::sum);
+            }
+        }
+    }
+
+    private void releaseClassLoader(IMappingPlugin plugin) {
+        ClassLoader loader = pluginClassLoader(plugin);
+        if (loader == null) {
+            return;
+        }
+        synchronized (setupLock) {
+            int usage = classLoaderUsage.getOrDefault(loader, 0) - 1;
+            if (usage > 0) {
+                classLoaderUsage.put(loader, usage);
+                return;
+            }
+            classLoaderUsage.remove(loader);
+        }
+        try {
+            LOG.trace("Closing unused plugin class loader {}.", loader);
+            ((Closeable) loader).close();
+        } catch (IOException ex) {
+            LOG.warn("Failed to close plugin class loader {}.", loader, ex);
+        }
+    }
+
+    /**
+     * Get the class loader created for loading a plugin from a plugin jar.
+     *
+     * @return The class loader or null if the plugin was loaded from the
+     * classpath.
+     */
+    private static ClassLoader pluginClassLoader(IMappingPlugin plugin) {
+        ClassLoader loader = plugin.getClass().getClassLoader();
+        if (loader instanceof URLClassLoader && loader != PluginManager.class.getClassLoader()) {
+            return loader;
+        }
+        return null;
+    }
+
+    /**
+     * Acquire the handle of a plugin for a mapping execution. The handle must
+     * be released after the execution.
+     *
+     * @return The handle or null if no plugin with the provided id exists.
+     */
+    private PluginHandle acquire(String pluginId) {
+        while (true) {
+            PluginHandle handle = registry.handles().get(pluginId);
+            if (handle == null || handle.acquire()) {
+                return handle;
+            }
+            //handle was closed after reading the registry, retry with the current registry
+        }
     }
 
     /**
@@ -117,6 +451,41 @@ public class PluginManager {
         return result;
     }
 
+    /**
+     * Get the mime type of all results of a plugin if declared by the plugin.
+     *
+     * @param pluginId ID of the plugin.
+     *
+     * @return The mime type or null if the plugin does not exist or the mime
+     * type of its results has to be detected.
+     */
+    public final String getAuthoritativeOutputType(String pluginId) {
+        IMappingPlugin plugin = (pluginId != null) ? registry.plugins().get(pluginId) : null;
+        if (plugin == null || !plugin.isOutputTypeAuthoritative()) {
+            return null;
+        }
+        String[] outputTypes = plugin.outputTypes();
+        return (outputTypes != null && outputTypes.length > 0) ? outputTypes[0] : null;
+    }
+
+    /**
+     * Get the mime type of the results of a plugin supporting streaming, i.e.,
+     * implementing IStreamingMappingPlugin.
+     *
+     * @param pluginId ID of the plugin.
+     *
+     * @return The mime type or null if the plugin does not exist or does not
+     * support streaming.
+     */
+    public final String getStreamingOutputType(String pluginId) {
+        IMappingPlugin plugin = (pluginId != null) ? registry.plugins().get(pluginId) : null;
+        if (!(plugin instanceof IStreamingMappingPlugin<?>)) {
+            return null;
+        }
+        String[] outputTypes = plugin.outputTypes();
+        return (outputTypes != null && outputTypes.length > 0) ? outputTypes[0] : null;
+    }
+
     /**
      * Executes a mapping on a plugin.
      *
@@ -132,12 +501,91 @@ public class PluginManager {
      * the input.
      */
     public final MappingPluginState mapFile(String pluginId, Path mappingFile, Path inputFile, Path outputFile) throws MappingServiceException, MappingPluginException {
+        return mapFile(pluginId, mappingFile, null, inputFile, outputFile);
+    }
+
+    /**
+     * Executes a mapping on a plugin. If the plugin supports compiled
+     * mappings, the compiled mapping is obtained from the compiled mapping
+     * cache using the provided mapping key.
+     *
+     * @param pluginId ID of the plugin to execute.
+     * @param mappingFile Path to the mapping schema.
+     * @param mappingKey Key identifying the revision of the mapping schema,
+     * e.g., the document hash of a mapping record. If null, the key is computed
+     * from the content of the mapping schema.
+     * @param inputFile Path to the input file.
+     * @param outputFile Path where the output is temporarily stored.
+     *
+     * @return MappingPluginState.SUCCESS if the plugin was executed
+     * successfully.
+     *
+     * @throws MappingPluginException If there is an error with the plugin or
+     * the input.
+     */
+    public final MappingPluginState mapFile(String pluginId, Path mappingFile, String mappingKey, Path inputFile, Path outputFile) throws MappingServiceException, MappingPluginException {
+        return mapFile(pluginId, mappingFile, mappingKey, inputFile, outputFile, true);
+    }
+
+    /**
+     * Executes a mapping on a plugin. If the plugin supports compiled
+     * mappings, the compiled mapping is obtained from the compiled mapping
+     * cache using the provided mapping key and the prettyPrint flag is passed
+     * to the plugin. Other plugins ignore the prettyPrint flag.
+     *
+     * If a concurrency limit is configured for the plugin, executions
+     * exceeding the limit wait for a running execution to finish. They are
+     * rejected with state OVERLOADED if too many executions are waiting
+     * already and with state UNAVAILABLE if they are not started within the
+     * configured queue timeout.
+     *
+     * @param pluginId ID of the plugin to execute.
+     * @param mappingFile Path to the mapping schema.
+     * @param mappingKey Key identifying the revision of the mapping schema,
+     * e.g., the document hash of a mapping record. If null, the key is computed
+     * from the content of the mapping schema.
+     * @param inputFile Path to the input file.
+     * @param outputFile Path where the output is temporarily stored.
+     * @param prettyPrint TRUE if JSON output should be pretty printed.
+     *
+     * @return MappingPluginState.SUCCESS if the plugin was executed
+     * successfully.
+     *
+     * @throws MappingPluginException If there is an error with the plugin or
+     * the input.
+     */
+    public final MappingPluginState mapFile(String pluginId, Path mappingFile, String mappingKey, Path inputFile, Path outputFile, boolean prettyPrint) throws MappingServiceException, MappingPluginException {
+        return mapFile(pluginId, (mappingFile != null) ? new MappingDocument(mappingFile) : null, mappingKey, inputFile, outputFile, prettyPrint);
+    }
+
+    /**
+     * Executes a mapping on a plugin as described for mapFile(String, Path,
+     * String, Path, Path, boolean). Compiled mappings are created from the
+     * content of the provided document, other plugins receive the path of the
+     * document.
+     *
+     * @param pluginId ID of the plugin to execute.
+     * @param mappingDocument The mapping schema.
+     * @param mappingKey Key identifying the revision of the mapping schema,
+     * e.g., the document hash of a mapping record. If null, the key is computed
+     * from the content of the mapping schema.
+     * @param inputFile Path to the input file.
+     * @param outputFile Path where the output is temporarily stored.
+     * @param prettyPrint TRUE if JSON output should be pretty printed.
+     *
+     * @return MappingPluginState.SUCCESS if the plugin was executed
+     * successfully.
+     *
+     * @throws MappingPluginException If there is an error with the plugin or
+     * the input.
+     */
+    public final MappingPluginState mapFile(String pluginId, MappingDocument mappingDocument, String mappingKey, Path inputFile, Path outputFile, boolean prettyPrint) throws MappingServiceException, MappingPluginException {
         //The following issues should never happen as they are checked before. 
         //If they occur, it's a server fault, nothing a user can solve.
         if (pluginId == null) {
             throw new MappingServiceException("PluginId is null.");
         }
-        if (mappingFile == null) {
+        if (mappingDocument == null) {
             throw new MappingServiceException("Path to mapping file is null.");
         }
         if (inputFile == null) {
@@ -147,10 +595,542 @@ public class PluginManager {
             throw new MappingServiceException("Path to output file is null.");
         }
 
-        if (plugins.containsKey(pluginId)) {
-            LOG.trace("Plugin found. Performing mapFile({}, {}, {}).", mappingFile, inputFile, outputFile);
-            return plugins.get(pluginId).mapFile(mappingFile, inputFile, outputFile);
+        PluginHandle handle = acquire(pluginId);
+        if (handle == null) {
+            throw new MappingPluginException(MappingPluginState.NOT_FOUND(), String.format("Plugin '%s' not found!", pluginId));
+        }
+        PluginBulkhead bulkhead = bulkheadOf(pluginId, handle.plugin());
+        long permit = enter(bulkhead, handle);
+        long start = System.nanoTime();
+        MappingPluginState.StateEnum outcome = MappingPluginState.StateEnum.UNKNOWN_ERROR;
+        try {
+            LOG.trace("Plugin found. Performing mapFile({}, {}, {}).", mappingDocument, inputFile, outputFile);
+            MappingPluginState state = mapFileUsing(handle.plugin(), mappingDocument, mappingKey, inputFile, outputFile, prettyPrint);
+            outcome = state.getState();
+            return state;
+        } catch (MappingPluginException e) {
+            outcome = e.getMappingPluginState().getState();
+            throw e;
+        } finally {
+            executionTimer(pluginId, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (bulkhead != null) {
+                bulkhead.release(permit);
+            }
+            handle.release();
+        }
+    }
+
+    /**
+     * Executes a mapping reading the input document from a stream and writing
+     * the result to a stream. Plugins implementing IStreamingMappingPlugin are
+     * preferred, as they map without any disk I/O. For all other plugins, the
+     * input document is written to a temporary file, mapped via mapFile and
+     * the result is copied to the output stream. Neither stream is closed.
+     *
+     * @param pluginId ID of the plugin to execute.
+     * @param mappingFile Path to the mapping schema.
+     * @param mappingKey Key identifying the revision of the mapping schema,
+     * e.g., the document hash of a mapping record. If null, the key is computed
+     * from the content of the mapping schema.
+     * @param input The stream providing the input document.
+     * @param output The stream to write the result to. Nothing is written if
+     * the mapping does not succeed.
+     * @param prettyPrint TRUE if JSON output should be pretty printed.
+     *
+     * @return MappingPluginState.SUCCESS if the plugin was executed
+     * successfully.
+     *
+     * @throws MappingPluginException If there is an error with the plugin or
+     * the input.
+     */
+    public final MappingPluginState mapStream(String pluginId, Path mappingFile, String mappingKey, InputStream input, OutputStream output, boolean prettyPrint) throws MappingServiceException, MappingPluginException {
+        return mapStream(pluginId, (mappingFile != null) ? new MappingDocument(mappingFile) : null, mappingKey, input, output, prettyPrint);
+    }
+
+    /**
+     * Executes a mapping reading the input document from a stream and writing
+     * the result to a stream as described for mapStream(String, Path, String,
+     * InputStream, OutputStream, boolean).
+     *
+     * @param pluginId ID of the plugin to execute.
+     * @param mappingDocument The mapping schema.
+     * @param mappingKey Key identifying the revision of the mapping schema,
+     * e.g., the document hash of a mapping record. If null, the key is computed
+     * from the content of the mapping schema.
+     * @param input The stream providing the input document.
+     * @param output The stream to write the result to. Nothing is written if
+     * the mapping does not succeed.
+     * @param prettyPrint TRUE if JSON output should be pretty printed.
+     *
+     * @return MappingPluginState.SUCCESS if the plugin was executed
+     * successfully.
+     *
+     * @throws MappingPluginException If there is an error with the plugin or
+     * the input.
+     */
+    public final MappingPluginState mapStream(String pluginId, MappingDocument mappingDocument, String mappingKey, InputStream input, OutputStream output, boolean prettyPrint) throws MappingServiceException, MappingPluginException {
+        if (pluginId == null) {
+            throw new MappingServiceException("PluginId is null.");
+        }
+        if (mappingDocument == null) {
+            throw new MappingServiceException("Path to mapping file is null.");
+        }
+        if (input == null || output == null) {
+            throw new MappingServiceException("Input or output stream is null.");
+        }
+
+        PluginHandle handle = acquire(pluginId);
+        if (handle == null) {
+            throw new MappingPluginException(MappingPluginState.NOT_FOUND(), String.format("Plugin '%s' not found!", pluginId));
+        }
+        PluginBulkhead bulkhead = bulkheadOf(pluginId, handle.plugin());
+        long permit = enter(bulkhead, handle);
+        long start = System.nanoTime();
+        MappingPluginState.StateEnum outcome = MappingPluginState.StateEnum.UNKNOWN_ERROR;
+        try {
+            IMappingPlugin plugin = handle.plugin();
+            if (plugin instanceof IStreamingMappingPlugin<?> streamingMappingPlugin) {
+                LOG.trace("Streaming plugin found. Performing map({}).", mappingDocument);
+                MappingPluginState state = mapStreamCompiled(streamingMappingPlugin, mappingDocument, mappingKey, input, output, prettyPrint);
+                outcome = state.getState();
+                return state;
+            }
+
+            LOG.trace("Plugin {} does not support streaming. Using temporary files.", pluginId);
+            Path inputFile = FileUtil.createTempFile("streamInput_", null);
+            Path outputFile = FileUtil.createTempFile("streamOutput_", null);
+            try {
+                Files.copy(input, inputFile, StandardCopyOption.REPLACE_EXISTING);
+                MappingPluginState state = mapFileUsing(plugin, mappingDocument, mappingKey, inputFile, outputFile, prettyPrint);
+                if (state.getState() == MappingPluginState.StateEnum.SUCCESS) {
+                    Files.copy(outputFile, output);
+                }
+                outcome = state.getState();
+                return state;
+            } catch (IOException e) {
+                throw new MappingServiceException("Failed to transfer document from or to temporary file.", e);
+            } finally {
+                FileUtil.removeFile(inputFile);
+                FileUtil.removeFile(outputFile);
+            }
+        } catch (MappingPluginException e) {
+            outcome = e.getMappingPluginState().getState();
+            throw e;
+        } finally {
+            executionTimer(pluginId, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (bulkhead != null) {
+                bulkhead.release(permit);
+            }
+            handle.release();
+        }
+    }
+
+    /**
+     * Obtain a mapper applying a mapping to parsed JSON documents in memory.
+     * The mapping document is compiled at most once, the returned mapper can
+     * be used for an arbitrary number of documents. This is only supported by
+     * plugins implementing IJsonMappingPlugin. The mapper keeps using the
+     * plugin instance available at the time of this call, also if plugins are
+     * reloaded in the meantime. Thus, the mapper must be closed after use, as
+     * a replaced plugin instance is not shut down before all its mappers are
+     * closed.
+     *
+     * @param pluginId ID of the plugin.
+     * @param mappingFile Path to the mapping schema.
+     * @param mappingKey Key identifying the revision of the mapping schema,
+     * e.g., the document hash of a mapping record. If null, the key is computed
+     * from the content of the mapping schema.
+     *
+     * @return The mapper or null if the plugin does not support in-memory
+     * mapping.
+     *
+     * @throws MappingPluginException If the plugin does not exist or the
+     * mapping document cannot be compiled.
+     */
+    public final DocumentMapper getDocumentMapper(String pluginId, Path mappingFile, String mappingKey) throws MappingPluginException {
+        return getDocumentMapper(pluginId, new MappingDocument(mappingFile), mappingKey);
+    }
+
+    /**
+     * Obtain a mapper applying a mapping to parsed JSON documents in memory as
+     * described for getDocumentMapper(String, Path, String).
+     *
+     * @param pluginId ID of the plugin.
+     * @param mappingDocument The mapping schema.
+     * @param mappingKey Key identifying the revision of the mapping schema,
+     * e.g., the document hash of a mapping record. If null, the key is computed
+     * from the content of the mapping schema.
+     *
+     * @return The mapper or null if the plugin does not support in-memory
+     * mapping.
+     *
+     * @throws MappingPluginException If the plugin does not exist or the
+     * mapping document cannot be compiled.
+     */
+    public final DocumentMapper getDocumentMapper(String pluginId, MappingDocument mappingDocument, String mappingKey) throws MappingPluginException {
+        PluginHandle handle = (pluginId != null) ? acquire(pluginId) : null;
+        if (handle == null) {
+            throw new MappingPluginException(MappingPluginState.NOT_FOUND(), String.format("Plugin '%s' not found!", pluginId));
+        }
+        boolean keepHandle = false;
+        try {
+            if (handle.plugin() instanceof IJsonMappingPlugin<?> jsonMappingPlugin) {
+                DocumentMapper mapper = documentMapperOf(pluginId, jsonMappingPlugin, mappingDocument, mappingKey, handle);
+                keepHandle = true;
+                return mapper;
+            }
+            return null;
+        } finally {
+            if (!keepHandle) {
+                handle.release();
+            }
+        }
+    }
+
+    /**
+     * Remove all compiled representations of a mapping document, e.g., if the
+     * mapping document was updated or deleted.
+     *
+     * @param mappingKey Key identifying the revision of the mapping schema,
+     * e.g., the document hash of a mapping record.
+     */
+    public final void invalidateCompiledMapping(String mappingKey) {
+        compiledMappingCache.invalidate(mappingKey);
+    }
+
+    private <T> DocumentMapper documentMapperOf(String pluginId, IJsonMappingPlugin<T> plugin, MappingDocument mappingDocument, String mappingKey, PluginHandle handle) throws MappingPluginException {
+        String key = (mappingKey != null) ? mappingKey : CompiledMappingCache.mappingKeyOf(mappingDocument);
+        T compiledMapping = compiledMappingCache.get(plugin, key, mappingDocument);
+        return new CompiledDocumentMapper<>(pluginId, plugin, compiledMapping, handle, bulkheadOf(pluginId, plugin));
+    }
+
+    /**
+     * Get the timer for executions of a plugin with a certain outcome. Timers
+     * publish percentile histograms and are registered on first use.
+     *
+     * @param pluginId The plugin id.
+     * @param outcome The resulting state of the execution.
+     *
+     * @return The timer.
+     */
+    private Timer executionTimer(String pluginId, MappingPluginState.StateEnum outcome) {
+        return executionTimers.computeIfAbsent(new ExecutionTimerKey(pluginId, outcome), key -> Timer.builder("mapping_service.plugin_execution")
+                .description("Execution time of mapping plugins.")
+                .tag("plugin", key.pluginId())
+                .tag("state", key.outcome().name())
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private record ExecutionTimerKey(String pluginId, MappingPluginState.StateEnum outcome) {
+    }
+
+    /**
+     * Get the bulkhead of a plugin. Bulkheads are created on first use with
+     * the concurrency limit configured for the plugin id, the plugin name or
+     * all plugins, in this order.
+     *
+     * @param pluginId The plugin id.
+     * @param plugin The plugin instance.
+     *
+     * @return The bulkhead or null if the concurrency of the plugin is not
+     * limited.
+     */
+    private PluginBulkhead bulkheadOf(String pluginId, IMappingPlugin plugin) {
+        PluginBulkhead bulkhead = bulkheads.get(pluginId);
+        if (bulkhead != null) {
+            return bulkhead;
+        }
+        int limit = concurrencyLimits.getOrDefault(pluginId, concurrencyLimits.getOrDefault(plugin.name(), applicationProperties.getPluginConcurrencyLimit()));
+        if (limit <= 0) {
+            return null;
+        }
+        return bulkheads.computeIfAbsent(pluginId, id -> new PluginBulkhead(id, limit, applicationProperties.getPluginQueueSize(), TimeUnit.SECONDS.toMillis(applicationProperties.getPluginQueueTimeout()), adaptiveConcurrency, meterRegistry));
+    }
+
+    /**
+     * Enter the bulkhead of a plugin, releasing the plugin handle if the
+     * execution is rejected.
+     *
+     * @param bulkhead The bulkhead or null if the plugin is not limited.
+     * @param handle The acquired plugin handle.
+     *
+     * @return The permit to pass to PluginBulkhead.release().
+     *
+     * @throws MappingPluginException If the execution is rejected.
+     */
+    private long enter(PluginBulkhead bulkhead, PluginHandle handle) throws MappingPluginException {
+        if (bulkhead == null) {
+            return 0;
+        }
+        try {
+            return bulkhead.acquire();
+        } catch (MappingPluginException e) {
+            handle.release();
+            throw e;
+        }
+    }
+
+    private static boolean adaptiveConcurrencyOf(String mode) {
+        if ("ADAPTIVE".equalsIgnoreCase(mode)) {
+            return true;
+        }
+        if (!"FIXED".equalsIgnoreCase(mode)) {
+            LOG.warn("Unknown plugin concurrency mode '{}'. Using FIXED.", mode);
+        }
+        return false;
+    }
+
+    private static Map<String, Integer> concurrencyLimitsOf(String[] entries) {
+        Map<String, Integer> result = new HashMap<>();
+        if (entries == null) {
+            return result;
+        }
+        for (String entry : entries) {
+            int separator = entry.lastIndexOf('=');
+            try {
+                int limit = Integer.parseInt(entry.substring(separator + 1).trim());
+                if (separator < 1 || limit < 0) {
+                    throw new IllegalArgumentException();
+                }
+                result.put(entry.substring(0, separator).trim(), limit);
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Invalid plugin concurrency limit '{}'. Expected <plugin>=<limit> with limit >= 0. Ignoring it.", entry);
+            }
+        }
+        return result;
+    }
+
+    private MappingPluginState mapFileUsing(IMappingPlugin plugin, MappingDocument mappingDocument, String mappingKey, Path inputFile, Path outputFile, boolean prettyPrint) throws MappingPluginException {
+        if (plugin instanceof ICompiledMappingPlugin<?> compiledMappingPlugin) {
+            return mapFileCompiled(compiledMappingPlugin, mappingDocument, mappingKey, inputFile, outputFile, prettyPrint);
+        }
+        return plugin.mapFile(mappingDocument.getPath(), inputFile, outputFile);
+    }
+
+    private <T> MappingPluginState mapFileCompiled(ICompiledMappingPlugin<T> plugin, MappingDocument mappingDocument, String mappingKey, Path inputFile, Path outputFile, boolean prettyPrint) throws MappingPluginException {
+        String key = (mappingKey != null) ? mappingKey : CompiledMappingCache.mappingKeyOf(mappingDocument);
+        T compiledMapping = compiledMappingCache.get(plugin, key, mappingDocument);
+        return plugin.mapFile(compiledMapping, inputFile, outputFile, prettyPrint);
+    }
+
+    private <T> MappingPluginState mapStreamCompiled(IStreamingMappingPlugin<T> plugin, MappingDocument mappingDocument, String mappingKey, InputStream input, OutputStream output, boolean prettyPrint) throws MappingPluginException {
+        String key = (mappingKey != null) ? mappingKey : CompiledMappingCache.mappingKeyOf(mappingDocument);
+        T compiledMapping = compiledMappingCache.get(plugin, key, mappingDocument);
+        return plugin.map(compiledMapping, input, output, prettyPrint);
+    }
+
+    /**
+     * Immutable snapshot of the published plugins.
+     *
+     * @param handles The handles of all plugins ready for use.
+     * @param plugins The plugins of all handles.
+     */
+    private record PluginRegistry(Map<String, PluginHandle> handles, Map<String, IMappingPlugin> plugins) {
+
+        static final PluginRegistry EMPTY = new PluginRegistry(Collections.emptyMap(), Collections.emptyMap());
+
+        static PluginRegistry of(Map<String, PluginHandle> handles) {
+            Map<String, IMappingPlugin> plugins = new HashMap<>();
+            handles.forEach((id, handle) -> plugins.put(id, handle.plugin()));
+            return new PluginRegistry(Collections.unmodifiableMap(new HashMap<>(handles)), Collections.unmodifiableMap(plugins));
+        }
+    }
+
+    /**
+     * Setup of a single plugin. The setup is cancelled if it exceeds the setup
+     * timeout. On success, the plugin is published unless plugins have been
+     * reloaded in the meantime. Otherwise, the plugin is discarded.
+     */
+    private final class SetupTask implements Runnable {
+
+        private final IMappingPlugin plugin;
+        private final long generation;
+
+        /**
+         * Completed as soon as the setup has finished, failed, timed out or
+         * was cancelled.
+         */
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        /**
+         * Set by either the setup or cancel(), whichever comes first.
+         */
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private volatile Future<?> future;
+
+        SetupTask(IMappingPlugin plugin, long generation) {
+            this.plugin = plugin;
+            this.generation = generation;
+        }
+
+        void submit() {
+            future = setupExecutor.submit(this);
+        }
+
+        @Override
+        public void run() {
+            if (started.getAndSet(true)) {
+                //cancelled before the setup started
+                return;
+            }
+            long timeout = Math.max(1, applicationProperties.getPluginSetupTimeout());
+            ScheduledFuture<?> watchdog = setupWatchdog.schedule(() -> timeout(timeout), timeout, TimeUnit.SECONDS);
+            try {
+                LOG.trace("Setting up plugin {}, version {}.", plugin.name(), plugin.version());
+                plugin.setup(applicationProperties);
+                if (finishSetup(plugin, generation, SetupState.READY, null)) {
+                    LOG.trace(" - Adding new plugin {}, version {} to available list", plugin.name(), plugin.version());
+                } else {
+                    //timed out or reloaded in the meantime
+                    discard(plugin);
+                }
+            } catch (RuntimeException ex) {
+                LOG.error("Failed to initialize plugin {}, version {}. Plugin will be ignored.", plugin.name(), plugin.version(), ex);
+                finishSetup(plugin, generation, SetupState.FAILED, ex.getMessage());
+                discard(plugin);
+            } finally {
+                watchdog.cancel(false);
+                done.complete(null);
+            }
+        }
+
+        private void timeout(long timeout) {
+            if (finishSetup(plugin, generation, SetupState.TIMED_OUT, "Setup exceeded " + timeout + " seconds.")) {
+                LOG.error("Setup of plugin {}, version {} exceeded {} seconds. Plugin will be ignored.", plugin.name(), plugin.version(), timeout);
+                Future<?> f = future;
+                if (f != null) {
+                    f.cancel(true);
+                }
+                done.complete(null);
+            }
+        }
+
+        void cancel() {
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(true);
+            }
+            if (!started.getAndSet(true)) {
+                //never set up, only the class loader has to be released
+                releaseClassLoader(plugin);
+                done.complete(null);
+            }
+        }
+    }
+
+    /**
+     * The setup states of a plugin.
+     */
+    public enum SetupState {
+        /**
+         * The plugin is being set up and not yet available.
+         */
+        SETUP,
+        /**
+         * The plugin is set up and available.
+         */
+        READY,
+        /**
+         * The setup of the plugin failed.
+         */
+        FAILED,
+        /**
+         * The setup of the plugin exceeded the setup timeout.
+         */
+        TIMED_OUT
+    }
+
+    /**
+     * The setup state of a plugin.
+     *
+     * @param state The current state.
+     * @param since The time the state was entered.
+     * @param message Details on the state, e.g., the reason of a failed
+     * setup, or null.
+     */
+    public record PluginSetupStatus(SetupState state, Instant since, String message) {
+
+    }
+
+    /**
+     * Mapper for parsed JSON documents using a fixed, compiled mapping. The
+     * mapper holds the plugin instance it was obtained from until it is
+     * closed.
+     */
+    public interface DocumentMapper extends AutoCloseable {
+
+        /**
+         * Map a parsed JSON document.
+         *
+         * @param document The parsed input document.
+         *
+         * @return The result.
+         *
+         * @throws MappingPluginException If the document cannot be mapped.
+         */
+        Object map(Object document) throws MappingPluginException;
+
+        /**
+         * Release the plugin instance. Subsequent calls have no effect.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * DocumentMapper holding the handle of the plugin instance which compiled
+     * the mapping. If the concurrency of the plugin is limited, each document
+     * is mapped within the bulkhead of the plugin, such that a batch is
+     * limited like single mapping executions. Mapping times are recorded per
+     * document by the execution timers of the plugin.
+     */
+    private final class CompiledDocumentMapper<T> implements DocumentMapper {
+
+        private final String pluginId;
+        private final IJsonMappingPlugin<T> plugin;
+        private final T compiledMapping;
+        private final PluginHandle handle;
+        private final PluginBulkhead bulkhead;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        CompiledDocumentMapper(String pluginId, IJsonMappingPlugin<T> plugin, T compiledMapping, PluginHandle handle, PluginBulkhead bulkhead) {
+            this.pluginId = pluginId;
+            this.plugin = plugin;
+            this.compiledMapping = compiledMapping;
+            this.handle = handle;
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public Object map(Object document) throws MappingPluginException {
+            if (closed.get()) {
+                throw new IllegalStateException("Document mapper has already been closed.");
+            }
+            long permit = (bulkhead != null) ? bulkhead.acquire() : 0;
+            long start = System.nanoTime();
+            MappingPluginState.StateEnum outcome = MappingPluginState.StateEnum.UNKNOWN_ERROR;
+            try {
+                Object result = plugin.mapDocument(compiledMapping, document);
+                outcome = MappingPluginState.StateEnum.SUCCESS;
+                return result;
+            } catch (MappingPluginException e) {
+                outcome = e.getMappingPluginState().getState();
+                throw e;
+            } finally {
+                executionTimer(pluginId, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (bulkhead != null) {
+                    bulkhead.release(permit);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                handle.release();
+            }
         }
-        throw new MappingPluginException(MappingPluginState.NOT_FOUND(), String.format("Plugin '%s' not found!", pluginId));
     }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Health indicator exposing the setup state of each plugin via the actuator
+ * health endpoint as 'plugins'. The status is UNKNOWN while plugins are still
+ * being set up and UP otherwise. Plugins whose setup failed or timed out are
+ * listed in the detail 'failed'. As a failed plugin only affects mappings
+ * using it, it does not render the entire service unhealthy, which would
+ * cause the service to be restarted or taken out of load balancing although
+ * all other mappings still work.
+ *
+ * @author jejkal
+ */
+@Component
+public class PluginsHealthIndicator implements HealthIndicator {
+
+    private final PluginManager pluginManager;
+
+    public PluginsHealthIndicator(PluginManager pluginManager) {
+        this.pluginManager = pluginManager;
+    }
+
+    @Override
+    public Health health() {
+        Map<String, PluginManager.PluginSetupStatus> setupStatus = new TreeMap<>(pluginManager.getSetupStatus());
+        List<String> failed = new ArrayList<>();
+        boolean pending = false;
+        Map<String, Object> details = new LinkedHashMap<>();
+        for (Map.Entry<String, PluginManager.PluginSetupStatus> entry : setupStatus.entrySet()) {
+            PluginManager.PluginSetupStatus status = entry.getValue();
+            if (status.state() == PluginManager.SetupState.FAILED || status.state() == PluginManager.SetupState.TIMED_OUT) {
+                failed.add(entry.getKey());
+            }
+            pending |= status.state() == PluginManager.SetupState.SETUP;
+
+            Map<String, Object> pluginDetails = new LinkedHashMap<>();
+            pluginDetails.put("state", status.state());
+            pluginDetails.put("since", status.since().toString());
+            if (status.message() != null) {
+                pluginDetails.put("message", status.message());
+            }
+            details.put(entry.getKey(), pluginDetails);
+        }
+
+        Health.Builder builder = (pending) ? Health.unknown() : Health.up();
+        if (!failed.isEmpty()) {
+            builder.withDetail("failed", failed);
+        }
+        return builder.withDetails(details).build();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Fingerprint of a completed setup of a Python-based plugin, i.e., of the
+ * checked-out tag, the installed requirements and the Python interpreter used
+ * for creating the venv. The fingerprint is stored next to the venv after a
+ * successful setup. If the fingerprint is unchanged on the next start,
+ * creating the venv and installing the requirements are skipped.
+ *
+ * The interpreter is identified by its path and modification time. As long as
+ * both are unchanged, the stored Python version is used instead of calling
+ * 'python --version' again.
+ *
+ * @param tag The checked-out tag.
+ * @param requirementsHash The SHA-256 hash of requirements.dist.txt or 'none'
+ * if the plugin has no requirements file.
+ * @param interpreter The path of the Python interpreter.
+ * @param interpreterModified The modification time of the Python interpreter
+ * in milliseconds.
+ * @param pythonVersion The version of the Python interpreter or 'unknown'.
+ *
+ * @author jejkal
+ */
+record PythonSetupFingerprint(String tag, String requirementsHash, String interpreter, long interpreterModified, String pythonVersion) {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PythonSetupFingerprint.class);
+
+    static final String NONE = "none";
+    static final String UNKNOWN = "unknown";
+
+    /**
+     * Compute the hash of a requirements file.
+     *
+     * @param requirementsFile The requirements file.
+     *
+     * @return The SHA-256 hash of the file or NONE if it does not exist.
+     *
+     * @throws IOException If the file cannot be read.
+     */
+    static String hashRequirements(Path requirementsFile) throws IOException {
+        if (!Files.isRegularFile(requirementsFile)) {
+            return NONE;
+        }
+        try (InputStream in = Files.newInputStream(requirementsFile)) {
+            return DigestUtils.sha256Hex(in);
+        }
+    }
+
+    /**
+     * Check whether the fingerprint was created for the provided interpreter,
+     * i.e., whether the stored Python version is still valid.
+     *
+     * @param interpreter The path of the Python interpreter.
+     * @param interpreterModified The modification time of the interpreter.
+     *
+     * @return TRUE if path and modification time are unchanged.
+     */
+    boolean matchesInterpreter(String interpreter, long interpreterModified) {
+        return this.interpreter.equals(interpreter) && this.interpreterModified == interpreterModified;
+    }
+
+    /**
+     * Load a fingerprint.
+     *
+     * @param file The fingerprint file.
+     *
+     * @return The fingerprint or null if the file does not exist or cannot be
+     * read.
+     */
+    static PythonSetupFingerprint load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+            return new PythonSetupFingerprint(
+                    properties.getProperty("tag", ""),
+                    properties.getProperty("requirements", ""),
+                    properties.getProperty("interpreter", ""),
+                    Long.parseLong(properties.getProperty("interpreter.modified", "-1")),
+                    properties.getProperty("python.version", UNKNOWN));
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Failed to read setup fingerprint {}. Ignoring it.", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Store the fingerprint.
+     *
+     * @param file The fingerprint file.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    void store(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("tag", tag);
+        properties.setProperty("requirements", requirementsHash);
+        properties.setProperty("interpreter", interpreter);
+        properties.setProperty("interpreter.modified", Long.toString(interpreterModified));
+        properties.setProperty("python.version", pythonVersion);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, "Setup fingerprint of mapping plugin, delete to force a new setup.");
+        }
+    }
+}
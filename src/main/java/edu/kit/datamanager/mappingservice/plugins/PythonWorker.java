@@ -0,0 +1,307 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.kit.datamanager.mappingservice.util.ShellRunnerUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single long-lived Python process executing mappings on request. Requests
+ * and responses are exchanged as single-line JSON documents via stdin and
+ * stdout of the process:
+ * <ul>
+ * <li>Mapping request: {"id": 1, "args": ["script.py", "-m", "mapping", ...]}.
+ * The args are identical to the command array of the plugin, i.e., they are
+ * what the worker would receive as sys.argv if started per execution.</li>
+ * <li>Health check: {"id": 2, "ping": true}</li>
+ * <li>Response: {"id": 1, "status": 0, "error": "optional message"}. A status
+ * other than 0 is treated like a bad exit code.</li>
+ * </ul>
+ * Lines written to stdout which are not a response to the current request are
+ * logged and ignored. Anything written to stderr is logged as well.
+ *
+ * A worker is not thread-safe and must only be used by one thread at a time,
+ * which is ensured by PythonWorkerPool.
+ *
+ * @author jejkal
+ */
+public class PythonWorker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PythonWorker.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String name;
+    private final Process process;
+    private final OutputStream stdin;
+    /**
+     * Lines written to stdout of the process. An empty element is put into
+     * the queue if stdout of the process was closed.
+     */
+    private final BlockingQueue<Optional<String>> stdoutLines = new LinkedBlockingQueue<>();
+    private long nextRequestId = 1;
+    private int requestCount = 0;
+    private long lastUsed = System.currentTimeMillis();
+
+    /**
+     * Start a new worker process.
+     *
+     * @param name The name of the worker used for logging and thread names.
+     * @param command The command starting the worker process.
+     * @param workingDir The working directory of the process.
+     *
+     * @throws IOException If the process cannot be started.
+     */
+    public PythonWorker(String name, List<String> command, Path workingDir) throws IOException {
+        this.name = name;
+        LOGGER.trace("Starting Python worker {} using command {}.", name, command);
+        ProcessBuilder pb = new ProcessBuilder(command);
+        if (workingDir != null) {
+            pb.directory(workingDir.toFile());
+        }
+        process = pb.start();
+        stdin = process.getOutputStream();
+
+        ShellRunnerUtil.startStreamPump(name + "-stdout", true, () -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    stdoutLines.offer(Optional.of(line));
+                }
+            } catch (IOException e) {
+                LOGGER.trace("Stdout of Python worker {} closed.", name, e);
+            } finally {
+                stdoutLines.offer(Optional.empty());
+            }
+        });
+
+        ShellRunnerUtil.startStreamPump(name + "-stderr", true, () -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    LOGGER.debug("[{}] {}", name, line);
+                }
+            } catch (IOException e) {
+                LOGGER.trace("Stderr of Python worker {} closed.", name, e);
+            }
+        });
+    }
+
+    /**
+     * Execute a mapping using this worker.
+     *
+     * @param args The command array of the plugin.
+     * @param timeoutInSeconds The time in seconds after which the execution is
+     * assumed to be stale.
+     *
+     * @return SUCCESS if the worker returned status 0.
+     *
+     * @throws MappingPluginException If the execution fails, returns a status
+     * other than 0, or does not finish in time. In the latter case, the worker
+     * is no longer usable.
+     */
+    public MappingPluginState execute(String[] args, int timeoutInSeconds) throws MappingPluginException {
+        requestCount++;
+        ObjectNode request = MAPPER.createObjectNode();
+        request.putPOJO("args", Arrays.asList(args));
+        JsonNode response = send(request, timeoutInSeconds);
+        int status = response.path("status").asInt(-1);
+        if (status != 0) {
+            MappingPluginState state = MappingPluginState.BAD_EXIT_CODE();
+            state.setDetails("Mapping worker returned with status " + status + ". Error:\n" + response.path("error").asText(""));
+            throw new MappingPluginException(state);
+        }
+        return MappingPluginState.SUCCESS();
+    }
+
+    /**
+     * Check if the worker process is alive and responds to a ping request
+     * within the provided timeout.
+     *
+     * @param timeoutInSeconds The time in seconds to wait for the response.
+     *
+     * @return TRUE if the worker is healthy.
+     */
+    public boolean isHealthy(int timeoutInSeconds) {
+        if (!process.isAlive()) {
+            return false;
+        }
+        try {
+            ObjectNode request = MAPPER.createObjectNode();
+            request.put("ping", true);
+            return send(request, timeoutInSeconds).path("status").asInt(-1) == 0;
+        } catch (MappingPluginException e) {
+            LOGGER.warn("Health check of Python worker {} failed.", name, e);
+            return false;
+        }
+    }
+
+    private JsonNode send(ObjectNode request, int timeoutInSeconds) throws MappingPluginException {
+        long requestId = nextRequestId++;
+        request.put("id", requestId);
+        lastUsed = System.currentTimeMillis();
+        try {
+            stdin.write(MAPPER.writeValueAsBytes(request));
+            stdin.write('\n');
+            stdin.flush();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutInSeconds);
+            while (true) {
+                long remaining = deadline - System.nanoTime();
+                Optional<String> next = (remaining > 0) ? stdoutLines.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (next == null) {
+                    MappingPluginState state = MappingPluginState.TIMEOUT();
+                    state.setDetails("Mapping worker did not return within " + timeoutInSeconds + " seconds.");
+                    throw new MappingPluginException(state);
+                }
+                if (next.isEmpty()) {
+                    MappingPluginState state = MappingPluginState.EXECUTION_ERROR();
+                    state.setDetails("Mapping worker terminated unexpectedly.");
+                    throw new MappingPluginException(state);
+                }
+                String line = next.get();
+                JsonNode response = parseResponse(line);
+                if (response != null && response.path("id").asLong(-1) == requestId) {
+                    return response;
+                }
+                LOGGER.debug("[{}] {}", name, line);
+            }
+        } catch (IOException e) {
+            MappingPluginState state = MappingPluginState.EXECUTION_ERROR();
+            state.setDetails("Failed to communicate with mapping worker.");
+            throw new MappingPluginException(state, "Failed to communicate with mapping worker " + name + ".", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            MappingPluginState state = MappingPluginState.UNKNOWN_ERROR();
+            state.setDetails("Waiting for mapping worker has been interrupted.");
+            throw new MappingPluginException(state);
+        } finally {
+            lastUsed = System.currentTimeMillis();
+        }
+    }
+
+    private JsonNode parseResponse(String line) {
+        if (!line.startsWith("{")) {
+            return null;
+        }
+        try {
+            return MAPPER.readTree(line);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the resident memory of the worker process in megabytes. The value is
+     * only available on Linux, where it is read from /proc.
+     *
+     * @return The resident memory in megabytes or -1 if it cannot be
+     * determined.
+     */
+    public long getResidentMemory() {
+        Path status = Path.of("/proc", Long.toString(process.pid()), "status");
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    //format: 'VmRSS:     12345 kB'
+                    String[] split = line.trim().split("\\s+");
+                    return Long.parseLong(split[1]) / 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.trace("Unable to determine memory of Python worker {}.", name, e);
+        }
+        return -1;
+    }
+
+    /**
+     * Get the number of mapping executions handled by this worker.
+     *
+     * @return The number of requests.
+     */
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Get the timestamp when the worker was used for the last time.
+     *
+     * @return The timestamp in milliseconds.
+     */
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Check if the worker process is still running.
+     *
+     * @return TRUE if the process is alive.
+     */
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * Terminate the worker process. The process is asked to exit by closing
+     * its stdin and is killed if it does not exit within a short period.
+     */
+    public void stop() {
+        LOGGER.trace("Stopping Python worker {}.", name);
+        try {
+            stdin.close();
+        } catch (IOException e) {
+            LOGGER.trace("Failed to close stdin of Python worker {}.", name, e);
+        }
+        try {
+            if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                kill();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            kill();
+        }
+    }
+
+    /**
+     * Forcibly kill the worker process, e.g., if it is stuck.
+     */
+    public void kill() {
+        LOGGER.trace("Killing Python worker {}.", name);
+        process.destroyForcibly();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
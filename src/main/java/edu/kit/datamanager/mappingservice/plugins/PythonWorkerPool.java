@@ -0,0 +1,284 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-size pool of PythonWorker processes of a single plugin. Each mapping
+ * execution borrows an idle worker exclusively and returns it afterwards.
+ * Workers are replaced if they
+ * <ul>
+ * <li>have been terminated or do not respond to a health check,</li>
+ * <li>did not finish a mapping execution in time,</li>
+ * <li>have handled the configured maximum number of requests, or</li>
+ * <li>exceed the configured resident memory.</li>
+ * </ul>
+ * Replacements are started in background, such that the request returning a
+ * worker does not have to wait for the startup of its replacement.
+ *
+ * @author jejkal
+ */
+public class PythonWorkerPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PythonWorkerPool.class);
+
+    /**
+     * Time in milliseconds after which an idle worker is health checked before
+     * being used again.
+     */
+    private static final long HEALTH_CHECK_INTERVAL = 30000;
+
+    /**
+     * Timeout in seconds for health checks.
+     */
+    private static final int HEALTH_CHECK_TIMEOUT = 5;
+
+    private final String name;
+    private final List<String> command;
+    private final Path workingDir;
+    private final int size;
+    private final int maxRequests;
+    private final long maxMemory;
+    private final BlockingQueue<PythonWorker> idleWorkers = new LinkedBlockingQueue<>();
+    private final AtomicInteger workerCount = new AtomicInteger();
+    /**
+     * Number of workers alive or being started. A slot is reserved before a
+     * worker is started, such that the pool never exceeds its size.
+     */
+    private final AtomicInteger liveWorkers = new AtomicInteger();
+    private final ExecutorService replacements;
+    private volatile boolean shutdown = false;
+
+    /**
+     * Default constructor. All workers are started immediately and must pass
+     * an initial health check.
+     *
+     * @param name The name of the pool, e.g., the plugin id.
+     * @param command The command starting a single worker process.
+     * @param workingDir The working directory of worker processes.
+     * @param size The number of worker processes.
+     * @param maxRequests The number of requests after which a worker is
+     * replaced.
+     * @param maxMemory The resident memory in megabytes above which a worker is
+     * replaced, or 0 to disable the check.
+     *
+     * @throws MappingPluginException If a worker cannot be started or does not
+     * respond to the initial health check.
+     */
+    public PythonWorkerPool(String name, List<String> command, Path workingDir, int size, int maxRequests, long maxMemory) throws MappingPluginException {
+        this.name = name;
+        this.command = List.copyOf(command);
+        this.workingDir = workingDir;
+        this.size = size;
+        this.maxRequests = maxRequests;
+        this.maxMemory = maxMemory;
+        this.replacements = Executors.newSingleThreadExecutor(Thread.ofPlatform().name(name + "-worker-replacement").daemon(true).factory());
+        try {
+            for (int i = 0; i < size; i++) {
+                liveWorkers.incrementAndGet();
+                idleWorkers.offer(startWorker());
+            }
+        } catch (MappingPluginException e) {
+            shutdown();
+            throw e;
+        }
+        LOGGER.info("Started {} Python worker(s) for {}.", size, name);
+    }
+
+    /**
+     * Execute a mapping using the next idle worker. If no worker becomes
+     * available within the timeout, the execution fails with state TIMEOUT.
+     *
+     * @param args The command array of the plugin.
+     * @param timeoutInSeconds The time in seconds after which the execution is
+     * assumed to be stale. The stuck worker is killed and replaced.
+     *
+     * @return The state of the execution.
+     *
+     * @throws MappingPluginException If the execution fails.
+     */
+    public MappingPluginState execute(String[] args, int timeoutInSeconds) throws MappingPluginException {
+        PythonWorker worker = borrow(timeoutInSeconds);
+        boolean reusable = false;
+        try {
+            MappingPluginState result = worker.execute(args, timeoutInSeconds);
+            reusable = true;
+            return result;
+        } catch (MappingPluginException e) {
+            //a bad status is reported by a healthy worker, everything else leaves the worker in an unknown state
+            reusable = MappingPluginState.StateEnum.BAD_EXIT_CODE.equals(e.getMappingPluginState().getState());
+            throw e;
+        } finally {
+            release(worker, reusable);
+        }
+    }
+
+    private PythonWorker borrow(int timeoutInSeconds) throws MappingPluginException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutInSeconds);
+        try {
+            while (!shutdown) {
+                if (idleWorkers.isEmpty() && reserveSlot()) {
+                    //a previous replacement failed, try again before waiting
+                    try {
+                        return startWorker();
+                    } catch (MappingPluginException e) {
+                        LOGGER.error("Failed to start missing Python worker for {}.", name, e);
+                    }
+                }
+                PythonWorker worker = idleWorkers.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (worker == null) {
+                    break;
+                }
+                boolean checkHealth = System.currentTimeMillis() - worker.getLastUsed() > HEALTH_CHECK_INTERVAL;
+                if (worker.isAlive() && (!checkHealth || worker.isHealthy(HEALTH_CHECK_TIMEOUT))) {
+                    return worker;
+                }
+                LOGGER.warn("Python worker {} is not healthy. Replacing it.", worker);
+                replace(worker);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        MappingPluginState state = MappingPluginState.TIMEOUT();
+        state.setDetails("No mapping worker available within " + timeoutInSeconds + " seconds.");
+        throw new MappingPluginException(state);
+    }
+
+    private void release(PythonWorker worker, boolean reusable) {
+        if (shutdown) {
+            worker.stop();
+            liveWorkers.decrementAndGet();
+            return;
+        }
+        if (!reusable) {
+            LOGGER.warn("Python worker {} did not finish properly. Replacing it.", worker);
+            worker.kill();
+            replace(worker);
+        } else if (worker.getRequestCount() >= maxRequests) {
+            LOGGER.debug("Python worker {} reached {} requests. Recycling it.", worker, maxRequests);
+            worker.stop();
+            replace(worker);
+        } else if (maxMemory > 0 && worker.getResidentMemory() > maxMemory) {
+            LOGGER.debug("Python worker {} exceeds {} MB of memory. Recycling it.", worker, maxMemory);
+            worker.stop();
+            replace(worker);
+        } else {
+            idleWorkers.offer(worker);
+        }
+    }
+
+    private void replace(PythonWorker worker) {
+        if (worker.isAlive()) {
+            worker.kill();
+        }
+        //the slot of the replaced worker is taken over by its replacement
+        try {
+            replacements.execute(() -> startReplacement(worker));
+        } catch (RejectedExecutionException e) {
+            //pool has been shut down
+            liveWorkers.decrementAndGet();
+        }
+    }
+
+    private void startReplacement(PythonWorker worker) {
+        if (shutdown) {
+            liveWorkers.decrementAndGet();
+            return;
+        }
+        try {
+            PythonWorker replacement = startWorker();
+            idleWorkers.offer(replacement);
+            if (shutdown && idleWorkers.remove(replacement)) {
+                //pool was shut down while the replacement was started
+                replacement.stop();
+                liveWorkers.decrementAndGet();
+            }
+        } catch (MappingPluginException e) {
+            //the missing worker is started again on demand in borrow()
+            LOGGER.error("Failed to start replacement for Python worker {}.", worker, e);
+        }
+    }
+
+    /**
+     * Reserve the slot of a missing worker.
+     *
+     * @return TRUE if a slot was reserved, FALSE if the pool is complete.
+     */
+    private boolean reserveSlot() {
+        int live;
+        while ((live = liveWorkers.get()) < size) {
+            if (liveWorkers.compareAndSet(live, live + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Start a new worker. A slot must have been reserved before, which is
+     * freed again if the worker cannot be started.
+     *
+     * @return The started worker.
+     *
+     * @throws MappingPluginException If the worker cannot be started or does
+     * not respond to the initial health check.
+     */
+    private PythonWorker startWorker() throws MappingPluginException {
+        PythonWorker worker;
+        try {
+            worker = new PythonWorker(name + "-worker-" + workerCount.incrementAndGet(), command, workingDir);
+        } catch (IOException e) {
+            liveWorkers.decrementAndGet();
+            MappingPluginState state = MappingPluginState.EXECUTION_ERROR();
+            state.setDetails("Failed to start mapping worker.");
+            throw new MappingPluginException(state, "Failed to start Python worker for " + name + ".", e);
+        }
+        if (!worker.isHealthy(HEALTH_CHECK_TIMEOUT)) {
+            worker.kill();
+            liveWorkers.decrementAndGet();
+            MappingPluginState state = MappingPluginState.EXECUTION_ERROR();
+            state.setDetails("Mapping worker did not respond to health check.");
+            throw new MappingPluginException(state, "Python worker for " + name + " did not respond to health check.");
+        }
+        return worker;
+    }
+
+    /**
+     * Stop all idle workers. Workers currently executing a mapping are stopped
+     * as soon as they are returned to the pool.
+     */
+    public void shutdown() {
+        shutdown = true;
+        replacements.shutdown();
+        PythonWorker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            worker.stop();
+            liveWorkers.decrementAndGet();
+        }
+    }
+}
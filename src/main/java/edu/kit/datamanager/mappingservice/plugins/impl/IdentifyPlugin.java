@@ -81,7 +81,7 @@ public class IdentifyPlugin implements IMappingPlugin {
         MappingPluginState result;
         try {
             try (FileOutputStream out = new FileOutputStream(outputFile.toFile())) {
-                result = ShellRunnerUtil.run(out, out, "/usr/bin/identify", "-verbose", inputFile.toAbsolutePath().toString());
+                result = ShellRunnerUtil.run(this, out, out, "/usr/bin/identify", "-verbose", inputFile.toAbsolutePath().toString());
                 out.flush();
             }
         } catch (IOException ex) {
@@ -16,30 +16,40 @@
 package edu.kit.datamanager.mappingservice.plugins.impl;
 
 import com.bazaarvoice.jolt.Chainr;
+import com.bazaarvoice.jolt.exception.JoltException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
 import edu.kit.datamanager.mappingservice.exception.MappingException;
-import edu.kit.datamanager.mappingservice.plugins.IMappingPlugin;
+import edu.kit.datamanager.mappingservice.plugins.IJsonMappingPlugin;
+import edu.kit.datamanager.mappingservice.plugins.IStreamingMappingPlugin;
+import edu.kit.datamanager.mappingservice.plugins.MappingDocument;
 import edu.kit.datamanager.mappingservice.plugins.MappingPluginException;
 import edu.kit.datamanager.mappingservice.plugins.MappingPluginState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Plugin implementation of the Jolt JSON-JSON transformation library. For more information and format description
- * please check [bazaarvoice/jolt@GitHub](https://github.com/bazaarvoice/jolt).
+ * please check [bazaarvoice/jolt@GitHub](https://github.com/bazaarvoice/jolt). Jolt specifications are compiled into
+ * a Chainr instance, which is cached by the PluginManager and can be shared between concurrent executions. Documents can
+ * also be mapped from stream to stream without touching the disk.
  *
  * @author jejkal
  */
-public class JoltPlugin implements IMappingPlugin {
+public class JoltPlugin implements IJsonMappingPlugin<Chainr>, IStreamingMappingPlugin<Chainr> {
     static Logger LOG = LoggerFactory.getLogger(JoltPlugin.class);
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private JsonDocumentIO documentIO = new JsonDocumentIO();
+
     @Override
     public String name() {
         return "JoltPlugin";
@@ -70,37 +80,81 @@ public class JoltPlugin implements IMappingPlugin {
         return new String[]{"application/json"};
     }
 
+    @Override
+    public boolean isOutputTypeAuthoritative() {
+        return true;
+    }
+
     @Override
     public void setup(ApplicationProperties applicationProperties) {
-        //nothing to do here
+        documentIO = new JsonDocumentIO(applicationProperties);
         LOG.trace("Plugin {} {} successfully set up.", name(), version());
     }
 
     @Override
-    public MappingPluginState mapFile(Path mappingFile, Path inputFile, Path outputFile) throws MappingPluginException {
-        MappingPluginState result = MappingPluginState.SUCCESS();
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-
-            // Load the input JSON
-            Map<String, Object> inputJson = mapper.readValue(inputFile.toFile(), new com.fasterxml.jackson.core.type.TypeReference<Map<String, Object>>() {});
+    public Chainr compile(Path mappingFile) throws MappingPluginException {
+        return compile(new MappingDocument(mappingFile));
+    }
 
+    @Override
+    public Chainr compile(MappingDocument mappingDocument) throws MappingPluginException {
+        try {
             // Load the Jolt spec (as a List of operations)
-            List<Object> joltSpec = mapper.readValue(mappingFile.toFile(), new com.fasterxml.jackson.core.type.TypeReference<List<Object>>() {});
+            List<Object> joltSpec = MAPPER.readValue(mappingDocument.openStream(), new TypeReference<List<Object>>() {});
 
             // Create the transformer
-            Chainr chainr = Chainr.fromSpec(joltSpec);
+            return Chainr.fromSpec(joltSpec);
+        } catch (IOException | JoltException ex) {
+            LOG.error("Failed to compile Jolt specification.", ex);
+            MappingPluginState state = MappingPluginState.EXECUTION_ERROR();
+            state.setDetails("Failed to compile Jolt specification.");
+            throw new MappingPluginException(state, "Failed to compile Jolt specification.", ex);
+        }
+    }
+
+    @Override
+    public Object mapDocument(Chainr chainr, Object document) throws MappingPluginException {
+        try {
+            return chainr.transform(document);
+        } catch (MappingException | JoltException ex) {
+            MappingPluginState state = MappingPluginState.EXECUTION_ERROR();
+            state.setDetails("Failed to run Jolt transformation.");
+            throw new MappingPluginException(state, ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public MappingPluginState mapFile(Chainr chainr, Path inputFile, Path outputFile) throws MappingPluginException {
+        return mapFile(chainr, inputFile, outputFile, true);
+    }
+
+    @Override
+    public MappingPluginState mapFile(Chainr chainr, Path inputFile, Path outputFile, boolean prettyPrint) throws MappingPluginException {
+        MappingPluginState result = MappingPluginState.SUCCESS();
+        try {
+            // Load the input JSON
+            Object inputJson = documentIO.read(inputFile);
 
             // Apply transformation
             Object transformedOutput = chainr.transform(inputJson);
 
-            // Print result
-            String output = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(transformedOutput);
+            // Write result
+            documentIO.write(transformedOutput, outputFile, prettyPrint);
+        } catch (IOException | MappingException | JoltException ex) {
+            LOG.error("Failed to execute plugin.", ex);
+            result = MappingPluginState.EXECUTION_ERROR();
+            result.setDetails("Failed to run Jolt transformation.");
+        }
+        return result;
+    }
 
-            try (FileWriter writer = new FileWriter(outputFile.toFile())) {
-                writer.write(output);
-            }
-        } catch (IOException | MappingException ex) {
+    @Override
+    public MappingPluginState map(Chainr chainr, InputStream input, OutputStream output, boolean prettyPrint) throws MappingPluginException {
+        MappingPluginState result = MappingPluginState.SUCCESS();
+        try {
+            Object transformedOutput = chainr.transform(documentIO.read(input));
+            documentIO.write(transformedOutput, output, prettyPrint);
+        } catch (IOException | MappingException | JoltException ex) {
             LOG.error("Failed to execute plugin.", ex);
             result = MappingPluginState.EXECUTION_ERROR();
             result.setDetails("Failed to run Jolt transformation.");
@@ -109,5 +163,3 @@ public class JoltPlugin implements IMappingPlugin {
     }
 
 }
-
-
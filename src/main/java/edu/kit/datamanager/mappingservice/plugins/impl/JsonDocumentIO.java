@@ -0,0 +1,163 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins.impl;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
+import edu.kit.datamanager.mappingservice.exception.DocumentTooLargeException;
+import edu.kit.datamanager.mappingservice.plugins.MappingPluginException;
+import edu.kit.datamanager.mappingservice.plugins.MappingPluginState;
+import edu.kit.datamanager.mappingservice.util.DocumentIngestion;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reading and writing of JSON documents for in-process JSON transformations.
+ * Documents are parsed directly from the input file or stream and results are
+ * written directly to the output file or stream, i.e., without intermediate
+ * strings. As the parsed document and the result are held in memory, documents
+ * exceeding the configured memory budget are rejected.
+ *
+ * @author jejkal
+ */
+final class JsonDocumentIO {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final long memoryBudget;
+    private final int memoryFactor;
+
+    /**
+     * Default constructor using half of the maximum heap size as memory
+     * budget.
+     */
+    JsonDocumentIO() {
+        this(new ApplicationProperties());
+    }
+
+    /**
+     * Constructor obtaining the memory budget from the application
+     * properties.
+     *
+     * @param applicationProperties The application properties.
+     */
+    JsonDocumentIO(ApplicationProperties applicationProperties) {
+        long budget = applicationProperties.getJsonMemoryBudget();
+        this.memoryBudget = (budget > 0) ? budget : Runtime.getRuntime().maxMemory() / 2;
+        this.memoryFactor = Math.max(1, applicationProperties.getJsonMemoryFactor());
+    }
+
+    /**
+     * Parse the JSON document at the provided path.
+     *
+     * @param inputFile The JSON document.
+     *
+     * @return The parsed document, i.e., a map, a list or a simple value.
+     *
+     * @throws IOException If the document cannot be read or is not valid JSON.
+     * @throws MappingPluginException If the document exceeds the memory
+     * budget.
+     */
+    Object read(Path inputFile) throws IOException, MappingPluginException {
+        long size = Files.size(inputFile);
+        if (size > memoryBudget / memoryFactor) {
+            MappingPluginState state = MappingPluginState.INPUT_TOO_LARGE();
+            state.setDetails("Input document of " + size + " bytes exceeds the memory budget for JSON transformations.");
+            throw new MappingPluginException(state, "Input document of " + size + " bytes exceeds the memory budget of " + memoryBudget + " bytes.");
+        }
+        try (InputStream in = Files.newInputStream(inputFile)) {
+            return parse(in);
+        }
+    }
+
+    /**
+     * Parse a JSON document from the provided stream. The stream is not
+     * closed. As the size of the document is not known in advance, reading is
+     * aborted as soon as the memory budget is exceeded.
+     *
+     * @param input The stream to read from.
+     *
+     * @return The parsed document, i.e., a map, a list or a simple value.
+     *
+     * @throws IOException If the document cannot be read or is not valid JSON.
+     * @throws MappingPluginException If the document exceeds the memory
+     * budget.
+     */
+    Object read(InputStream input) throws IOException, MappingPluginException {
+        try {
+            return parse(DocumentIngestion.limit(input, memoryBudget / memoryFactor));
+        } catch (DocumentTooLargeException ex) {
+            MappingPluginState state = MappingPluginState.INPUT_TOO_LARGE();
+            state.setDetails("Input document exceeds the memory budget for JSON transformations.");
+            throw new MappingPluginException(state, "Input document exceeds the memory budget of " + memoryBudget + " bytes.", ex);
+        }
+    }
+
+    private Object parse(InputStream in) throws IOException {
+        try (JsonParser parser = MAPPER.createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() == null) {
+                throw new IOException("Input document is empty.");
+            }
+            return MAPPER.readValue(parser, Object.class);
+        }
+    }
+
+    /**
+     * Write a JSON document to the provided path using UTF-8 encoding.
+     *
+     * @param document The document, i.e., a map, a list or a simple value.
+     * @param outputFile The destination.
+     * @param prettyPrint TRUE to indent the output.
+     *
+     * @throws IOException If the document cannot be written.
+     */
+    void write(Object document, Path outputFile, boolean prettyPrint) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(outputFile), OUTPUT_BUFFER_SIZE)) {
+            write(document, out, prettyPrint);
+        }
+    }
+
+    /**
+     * Write a JSON document to the provided stream using UTF-8 encoding. The
+     * stream is flushed but not closed.
+     *
+     * @param document The document, i.e., a map, a list or a simple value.
+     * @param output The stream to write to.
+     * @param prettyPrint TRUE to indent the output.
+     *
+     * @throws IOException If the document cannot be written.
+     */
+    void write(Object document, OutputStream output, boolean prettyPrint) throws IOException {
+        try (JsonGenerator generator = MAPPER.createGenerator(output, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (prettyPrint) {
+                generator.useDefaultPrettyPrinter();
+            }
+            MAPPER.writeValue(generator, document);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins.impl;
+
+import com.dashjoin.jsonata.Jsonata;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Compiled representation of a Jsonata expression which can be shared between
+ * concurrent mapping executions. A Jsonata instance keeps its evaluation state,
+ * i.e., the bound input and the execution timestamp, in its own frame and must
+ * therefore not be evaluated by two threads at the same time. Instead of
+ * synchronizing evaluations, each evaluation borrows an instance from a pool of
+ * idle instances compiled from the same expression. If no idle instance is
+ * available, a new one is compiled. Up to maxIdle instances are kept for reuse.
+ *
+ * @author jejkal
+ */
+public class JsonataExpressionPool {
+
+    private final String expression;
+
+    private final BlockingQueue<Jsonata> idleInstances;
+
+    /**
+     * Default constructor. The expression is compiled once immediately, such
+     * that syntax errors are reported before the pool is used.
+     *
+     * @param expression The Jsonata expression.
+     * @param maxIdle The maximum number of idle instances kept for reuse.
+     */
+    public JsonataExpressionPool(String expression, int maxIdle) {
+        this.expression = expression;
+        this.idleInstances = new ArrayBlockingQueue<>(Math.max(1, maxIdle));
+        idleInstances.offer(Jsonata.jsonata(expression));
+    }
+
+    /**
+     * Evaluate the expression on the provided input using an instance which is
+     * exclusively used by the calling thread.
+     *
+     * @param input The input object, e.g., a map obtained from a JSON document.
+     *
+     * @return The result of the evaluation.
+     */
+    public Object evaluate(Object input) {
+        Jsonata instance = idleInstances.poll();
+        if (instance == null) {
+            instance = Jsonata.jsonata(expression);
+        }
+        try {
+            return instance.evaluate(input);
+        } finally {
+            //if the pool is full, the instance is just dropped
+            idleInstances.offer(instance);
+        }
+    }
+}
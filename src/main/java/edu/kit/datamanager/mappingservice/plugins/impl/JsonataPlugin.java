@@ -15,32 +15,41 @@
  */
 package edu.kit.datamanager.mappingservice.plugins.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
 import edu.kit.datamanager.mappingservice.exception.MappingException;
-import edu.kit.datamanager.mappingservice.plugins.IMappingPlugin;
+import edu.kit.datamanager.mappingservice.plugins.IJsonMappingPlugin;
+import edu.kit.datamanager.mappingservice.plugins.IStreamingMappingPlugin;
+import edu.kit.datamanager.mappingservice.plugins.MappingDocument;
 import edu.kit.datamanager.mappingservice.plugins.MappingPluginException;
 import edu.kit.datamanager.mappingservice.plugins.MappingPluginState;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Path;
-import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.dashjoin.jsonata.Jsonata;
+import com.dashjoin.jsonata.JException;
 
 /**
  * Plugin implementation of the Jsonata query and transformation language for JSON data. For more information and
- * format description please check the [JSONata Homepage](https://docs.jsonata.org/overview.html).
+ * format description please check the [JSONata Homepage](https://docs.jsonata.org/overview.html). Jsonata
+ * expressions are compiled into a JsonataExpressionPool, which is cached by the PluginManager and can be shared
+ * between concurrent executions. Documents can also be mapped from stream to stream without touching the disk.
  *
  * @author jejkal
  */
-public class JsonataPlugin implements IMappingPlugin {
+public class JsonataPlugin implements IJsonMappingPlugin<JsonataExpressionPool>, IStreamingMappingPlugin<JsonataExpressionPool> {
     static Logger LOG = LoggerFactory.getLogger(JsonataPlugin.class);
 
+    private JsonDocumentIO documentIO = new JsonDocumentIO();
+
+    /**
+     * The maximum number of idle Jsonata instances kept per expression.
+     */
+    private static final int MAX_IDLE_INSTANCES = Runtime.getRuntime().availableProcessors();
+
     @Override
     public String name() {
         return "JsonataPlugin";
@@ -73,31 +82,70 @@ public class JsonataPlugin implements IMappingPlugin {
 
     @Override
     public void setup(ApplicationProperties applicationProperties) {
-        //nothing to do here
+        documentIO = new JsonDocumentIO(applicationProperties);
         LOG.trace("Plugin {} {} successfully set up.", name(), version());
     }
 
     @Override
-    public MappingPluginState mapFile(Path mappingFile, Path inputFile, Path outputFile) throws MappingPluginException {
+    public JsonataExpressionPool compile(Path mappingFile) throws MappingPluginException {
+        return compile(new MappingDocument(mappingFile));
+    }
+
+    @Override
+    public JsonataExpressionPool compile(MappingDocument mappingDocument) throws MappingPluginException {
+        try {
+            return new JsonataExpressionPool(mappingDocument.getContentAsString(), MAX_IDLE_INSTANCES);
+        } catch (JException ex) {
+            LOG.error("Failed to compile Jsonata expression.", ex);
+            MappingPluginState state = MappingPluginState.EXECUTION_ERROR();
+            state.setDetails("Failed to compile Jsonata expression.");
+            throw new MappingPluginException(state, "Failed to compile Jsonata expression.", ex);
+        }
+    }
+
+    @Override
+    public Object mapDocument(JsonataExpressionPool expression, Object document) throws MappingPluginException {
+        try {
+            return expression.evaluate(document);
+        } catch (MappingException | JException ex) {
+            MappingPluginState state = MappingPluginState.EXECUTION_ERROR();
+            state.setDetails("Failed to run Jsonata transformation.");
+            throw new MappingPluginException(state, ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public MappingPluginState mapFile(JsonataExpressionPool expression, Path inputFile, Path outputFile) throws MappingPluginException {
+        return mapFile(expression, inputFile, outputFile, true);
+    }
+
+    @Override
+    public MappingPluginState mapFile(JsonataExpressionPool expression, Path inputFile, Path outputFile, boolean prettyPrint) throws MappingPluginException {
         MappingPluginState result = MappingPluginState.SUCCESS();
         try {
-            String mappingContent = Files.readString(mappingFile);
-            Jsonata expression = Jsonata.jsonata(mappingContent);
-            ObjectMapper mapper = new ObjectMapper();
             // Load the input JSON
-            Map<String, Object> inputJson = mapper.readValue(inputFile.toFile(), new com.fasterxml.jackson.core.type.TypeReference<Map<String, Object>>() {});
-            expression.evaluate(inputJson);
+            Object inputJson = documentIO.read(inputFile);
 
             // Apply transformation
             Object transformedOutput = expression.evaluate(inputJson);
 
-            // Print result
-            String output = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(transformedOutput);
+            // Write result
+            documentIO.write(transformedOutput, outputFile, prettyPrint);
+        } catch (IOException | MappingException | JException ex) {
+            LOG.error("Failed to execute plugin.", ex);
+            result = MappingPluginState.EXECUTION_ERROR();
+            result.setDetails("Failed to run Jsonata transformation.");
+        }
+        return result;
+    }
 
-            try (FileWriter writer = new FileWriter(outputFile.toFile())) {
-                writer.write(output);
-            }
-        } catch (IOException | MappingException ex) {
+    @Override
+    public MappingPluginState map(JsonataExpressionPool expression, InputStream input, OutputStream output, boolean prettyPrint) throws MappingPluginException {
+        MappingPluginState result = MappingPluginState.SUCCESS();
+        try {
+            Object transformedOutput = expression.evaluate(documentIO.read(input));
+            documentIO.write(transformedOutput, output, prettyPrint);
+        } catch (IOException | MappingException | JException ex) {
             LOG.error("Failed to execute plugin.", ex);
             result = MappingPluginState.EXECUTION_ERROR();
             result.setDetails("Failed to run Jsonata transformation.");
@@ -151,11 +151,16 @@ public interface IMappingAdministrationController {
             WebRequest wr,
             HttpServletResponse hsr);
 
-    @Operation(summary = "Reload all mapping plugins.", description = "Reloads all plugins from the plugin directory and updates their dependencies if necessary.",
+    @Operation(summary = "Reload all mapping plugins.", description = "Reloads all plugins from the plugin directory and updates their dependencies if necessary. "
+            + "Plugins are set up in parallel. Plugins not ready within the configured setup wait time become available as soon as their setup has finished. "
+            + "The setup state of each plugin is available via the actuator health endpoint. "
+            + "Python-based plugins skip creating their venv and installing their requirements if tag, requirements and Python interpreter are unchanged since their last setup. "
+            + "Using the rebuild parameter, a complete setup of all Python-based plugins can be forced.",
             responses = {
                 @ApiResponse(responseCode = "204", description = "NO_CONTENT is returned on a successful refresh.")})
     @RequestMapping(value = {"/reloadPlugins"}, method = {RequestMethod.GET})
     ResponseEntity<String> reloadAvailablePlugins(
+            @Parameter(description = "If true, Python-based plugins recreate their venv and reinstall their requirements.", required = false) @RequestParam(value = "rebuild", required = false, defaultValue = "false") boolean rebuild,
             WebRequest wr,
             HttpServletResponse hsr);
 }
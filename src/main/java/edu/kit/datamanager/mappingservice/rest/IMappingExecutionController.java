@@ -15,6 +15,7 @@
  */
 package edu.kit.datamanager.mappingservice.rest;
 
+import edu.kit.datamanager.mappingservice.domain.JobPriority;
 import edu.kit.datamanager.mappingservice.domain.JobStatus;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -50,6 +51,9 @@ public interface IMappingExecutionController {
                 @ApiResponse(responseCode = "400", description = "BAD_REQUEST is returned if a parameter is missing or the mapping could not be performed with the provided input. It is "
                         + "expected that a mapping plugin accepts a well defined input and produces results for proper inputs. Therefore, only a faulty input "
                         + "document should be the reason for a mapper to fail."),
+                @ApiResponse(responseCode = "413", description = "PAYLOAD_TOO_LARGE is returned if the document exceeds the memory budget of the plugin."),
+                @ApiResponse(responseCode = "429", description = "TOO_MANY_REQUESTS is returned if too many executions of the plugin are waiting already."),
+                @ApiResponse(responseCode = "503", description = "SERVICE_UNAVAILABLE is returned if the plugin is busy and the mapping could not be started in time."),
                 @ApiResponse(responseCode = "500", description = "INTERNAL_SERVER_ERROR is returned the mapping returned successfully, but the mapping result "
                         + "is not accessible. This is expected to be an error in the mapping implementation and should be fixed in there.")})
 
@@ -58,10 +62,51 @@ public interface IMappingExecutionController {
     void mapDocument(
             @Parameter(description = "The document to be mapped.", required = true) @RequestPart(name = "document") final MultipartFile document,
             @Parameter(description = "The mappingID of the already defined mapping.", required = true) @PathVariable(value = "mappingID") String mappingID,
+            @Parameter(description = "Pretty print JSON results. If omitted, the configured default is used. Only supported by some plugins, e.g., JoltPlugin and JsonataPlugin.", required = false) @RequestParam(value = "pretty", required = false) Boolean pretty,
             final HttpServletRequest request,
             final HttpServletResponse response,
             final UriComponentsBuilder uriBuilder) throws URISyntaxException;
 
+    @Operation(summary = "Map a document sent as request body with an existing mapping.", description = "This endpoint allows the mapping of documents "
+            + "sent as raw request body instead of a multipart upload. The body is written to disk in a single pass without intermediate buffering, "
+            + "which is recommended for large documents. For plugins supporting streaming, e.g., JoltPlugin and JsonataPlugin, the body is mapped directly "
+            + "into the response without touching the disk. In that case, the result is not cached and sent without Content-Length. "
+            + "Apart from that, it behaves like the multipart variant.", responses = {
+                @ApiResponse(responseCode = "200", description = "OK is returned if the mapping was successful. "
+                        + "The result will also be returned in the response."),
+                @ApiResponse(responseCode = "404", description = "NOT_FOUND is returned if no mapping for mappingID could be found."),
+                @ApiResponse(responseCode = "400", description = "BAD_REQUEST is returned if the body is empty or the mapping could not be performed with the provided input."),
+                @ApiResponse(responseCode = "413", description = "PAYLOAD_TOO_LARGE is returned if the document exceeds the maximum document size or the memory budget of the plugin."),
+                @ApiResponse(responseCode = "429", description = "TOO_MANY_REQUESTS is returned if too many executions of the plugin are waiting already."),
+                @ApiResponse(responseCode = "503", description = "SERVICE_UNAVAILABLE is returned if the plugin is busy and the mapping could not be started in time."),
+                @ApiResponse(responseCode = "500", description = "INTERNAL_SERVER_ERROR is returned the mapping returned successfully, but the mapping result "
+                        + "is not accessible. This is expected to be an error in the mapping implementation and should be fixed in there.")})
+    @RequestMapping(value = {"/{mappingID}"}, method = {RequestMethod.POST}, consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @ResponseBody
+    void mapDocumentStream(
+            @Parameter(description = "The mappingID of the already defined mapping.", required = true) @PathVariable(value = "mappingID") String mappingID,
+            @Parameter(description = "The original filename of the document, used to determine the file extension of the plugin input.", required = false) @RequestParam(value = "filename", required = false) String filename,
+            @Parameter(description = "Pretty print JSON results. If omitted, the configured default is used. Only supported by some plugins, e.g., JoltPlugin and JsonataPlugin.", required = false) @RequestParam(value = "pretty", required = false) Boolean pretty,
+            final HttpServletRequest request,
+            final HttpServletResponse response);
+
+    @Operation(summary = "Map a batch of documents with an existing mapping.", description = "This endpoint allows the mapping of many small JSON documents "
+            + "with the same mapping in a single request. The documents are sent as request body, either as newline-delimited JSON (NDJSON) or as JSON array. "
+            + "The mapping is resolved only once and all documents are mapped in memory, which is only supported by some plugins, e.g., JoltPlugin and JsonataPlugin. "
+            + "The results are streamed back as NDJSON in input order. Each line is either {\"index\": N, \"result\": RESULT} or {\"index\": N, \"error\": MESSAGE} "
+            + "if the document at index N could not be parsed or mapped. Documents exceeding the memory budget for JSON transformations are answered with an error line. "
+            + "If the body exceeds the maximum document size while it is read, an error line is written and the batch ends.", responses = {
+                @ApiResponse(responseCode = "200", description = "OK is returned if the batch was processed. Results and errors of single documents are sent in the body."),
+                @ApiResponse(responseCode = "404", description = "NOT_FOUND is returned if no mapping for mappingID could be found."),
+                @ApiResponse(responseCode = "400", description = "BAD_REQUEST is returned if the plugin of the mapping does not support batch mappings."),
+                @ApiResponse(responseCode = "413", description = "PAYLOAD_TOO_LARGE is returned if the announced size of the body exceeds the maximum document size.")})
+    @RequestMapping(value = {"/{mappingID}/batch"}, method = {RequestMethod.POST}, consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE}, produces = {MediaType.APPLICATION_NDJSON_VALUE})
+    @ResponseBody
+    void mapBatch(
+            @Parameter(description = "The mappingID of the already defined mapping.", required = true) @PathVariable(value = "mappingID") String mappingID,
+            final HttpServletRequest request,
+            final HttpServletResponse response);
+
     @Operation(summary = "Map a document directly using the provided plugin.", description = "This endpoint allows the mapping of documents via a file upload. "
             + "The identifier of the plugin must be passed to this endpoint as parameters together with the document to be mapped and the mapping rules.", responses = {
             @ApiResponse(responseCode = "200", description = "OK is returned if the mapping was successful. "
@@ -70,6 +115,9 @@ public interface IMappingExecutionController {
             @ApiResponse(responseCode = "400", description = "BAD_REQUEST is returned if a parameter is missing or the mapping could not be performed with the provided input. It is "
                     + "expected that a mapping plugin accepts a well defined input and produces results for proper inputs. Therefore, only a faulty input "
                     + "document should be the reason for a mapper to fail."),
+            @ApiResponse(responseCode = "413", description = "PAYLOAD_TOO_LARGE is returned if the document exceeds the memory budget of the plugin."),
+            @ApiResponse(responseCode = "429", description = "TOO_MANY_REQUESTS is returned if too many executions of the plugin are waiting already."),
+            @ApiResponse(responseCode = "503", description = "SERVICE_UNAVAILABLE is returned if the plugin is busy and the mapping could not be started in time."),
             @ApiResponse(responseCode = "500", description = "INTERNAL_SERVER_ERROR is returned the mapping returned successfully, but the mapping result "
                     + "is not accessible. This is expected to be an error in the mapping implementation and should be fixed in there.")})
     @RequestMapping(value = {"/plugins/{pluginId}/execute"}, method = {RequestMethod.POST}, consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
@@ -78,6 +126,7 @@ public interface IMappingExecutionController {
             @Parameter(description = "The document to be mapped.", required = true) @RequestPart(name = "document") final MultipartFile document,
             @Parameter(description = "The mapping rules document.", required = true) @RequestPart(name = "mapping") final MultipartFile mapping,
             @Parameter(description = "The pluginId of the plugin to execute.", required = true) @PathVariable(value = "pluginId") String pluginId,
+            @Parameter(description = "Pretty print JSON results. If omitted, the configured default is used. Only supported by some plugins, e.g., JoltPlugin and JsonataPlugin.", required = false) @RequestParam(value = "pretty", required = false) Boolean pretty,
             final HttpServletRequest request,
             final HttpServletResponse response,
             final UriComponentsBuilder uriBuilder) throws URISyntaxException;
@@ -92,6 +141,8 @@ public interface IMappingExecutionController {
             @ApiResponse(responseCode = "400", description = "BAD_REQUEST is returned if a parameter is missing or the mapping could not be performed with the provided input. It is "
                     + "expected that a mapping plugin accepts a well defined input and produces results for proper inputs. Therefore, only a faulty input "
                     + "document should be the reason for a mapper to fail."),
+            @ApiResponse(responseCode = "429", description = "TOO_MANY_REQUESTS is returned if the job queue is full. The Retry-After header contains "
+                    + "the number of seconds after which the request should be repeated."),
             @ApiResponse(responseCode = "500", description = "INTERNAL_SERVER_ERROR is returned the mapping returned successfully, but the mapping result "
                     + "is not accessible. This is expected to be an error in the mapping implementation and should be fixed in there.")})
     @RequestMapping(value = {"/schedule/"}, method = {RequestMethod.POST}, consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
@@ -99,6 +150,8 @@ public interface IMappingExecutionController {
     ResponseEntity<JobStatus> scheduleMapDocument(
             @Parameter(description = "The mappingID of the already defined mapping.", required = true) @RequestParam(value = "mappingID") String mappingID,
             @Parameter(description = "The document to be mapped.", required = true) @RequestPart(name = "document") final MultipartFile document,
+            @Parameter(description = "Pretty print JSON results. If omitted, the configured default is used. Only supported by some plugins, e.g., JoltPlugin and JsonataPlugin.", required = false) @RequestParam(value = "pretty", required = false) Boolean pretty,
+            @Parameter(description = "The priority of the job. Jobs of the same principal or mapping are started by priority, jobs of different principals or mappings are started in turns. If omitted, NORMAL is used.", required = false) @RequestParam(value = "priority", required = false) JobPriority priority,
             final HttpServletRequest request,
             final HttpServletResponse response,
             final UriComponentsBuilder uriBuilder) throws Throwable;
@@ -116,14 +169,17 @@ public interface IMappingExecutionController {
 
     @Operation(summary = "Get a mapping job's output file. The output file is available as soon as the job has finished. If this is the case, the job status "
             + "response contains the relative path pointing to the particular download for the job.",
-            description = "This endpoint allows to download the result of an asynchronous job execution.",
+            description = "This endpoint allows to download the result of an asynchronous job execution. HTTP Range requests are supported, e.g., "
+            + "to resume a download or to fetch large outputs in parallel chunks.",
             responses = {
                 @ApiResponse(responseCode = "200", description = "OK is returned if the job status could be retrieved. The status document is sent in the body."),
+                @ApiResponse(responseCode = "206", description = "PARTIAL_CONTENT is returned if a Range header was provided. The requested range(s) are sent in the body."),
+                @ApiResponse(responseCode = "416", description = "REQUESTED_RANGE_NOT_SATISFIABLE is returned if the provided Range header is invalid for the output file."),
                 @ApiResponse(responseCode = "404", description = "NOT_FOUND is returned if no mapping job for jobId could be found."),
                 @ApiResponse(responseCode = "400", description = "BAD_REQUEST is returned if a parameter is missing or is not a valid UUID."),
                 @ApiResponse(responseCode = "500", description = "INTERNAL_SERVER_ERROR if the mapping job has failed.")})
     @GetMapping(path = "/schedule/{job-id}/download", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    ResponseEntity<Resource> getJobOutputFile(@PathVariable(name = "job-id") String jobId) throws Throwable;
+    ResponseEntity<Resource> getJobOutputFile(@PathVariable(name = "job-id") String jobId, final HttpServletRequest request) throws Throwable;
 
     @Operation(summary = "Delete a mapping job's output file.",
             description = "This endpoint allows to remove the result of an asynchronous job execution from the server.",
@@ -344,7 +344,7 @@ public class MappingAdministrationController implements IMappingAdministrationCo
             }
         } else {
             LOG.trace("No mapping document provided by user. Only persisting updated mapping record.");
-            mappingRecordDao.save(mappingRecord);
+            mappingService.updateMappingRecord(mappingRecord);
         }
 
         LOG.trace("Mapping update successfully persisted.");
@@ -376,9 +376,9 @@ public class MappingAdministrationController implements IMappingAdministrationCo
     }
 
     @Override
-    public ResponseEntity<String> reloadAvailablePlugins(WebRequest wr, HttpServletResponse hsr) {
-        LOG.trace("Reloading available plugins.");
-        pluginManager.reloadPlugins();
+    public ResponseEntity<String> reloadAvailablePlugins(boolean rebuild, WebRequest wr, HttpServletResponse hsr) {
+        LOG.trace("Reloading available plugins (rebuild: {}).", rebuild);
+        pluginManager.reloadPlugins(rebuild);
         LOG.trace("Plugins successfully reloaded.");
         return ResponseEntity.noContent().build();
     }
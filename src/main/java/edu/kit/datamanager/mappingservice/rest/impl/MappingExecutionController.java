@@ -15,9 +15,12 @@
  */
 package edu.kit.datamanager.mappingservice.rest.impl;
 
-import edu.kit.datamanager.mappingservice.dao.IMappingRecordDao;
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
+import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
+import edu.kit.datamanager.mappingservice.domain.JobPriority;
 import edu.kit.datamanager.mappingservice.domain.JobStatus;
-import edu.kit.datamanager.mappingservice.domain.MappingRecord;
+import edu.kit.datamanager.mappingservice.domain.MappingDescriptor;
 import edu.kit.datamanager.mappingservice.exception.*;
 import edu.kit.datamanager.mappingservice.impl.JobManager;
 import edu.kit.datamanager.mappingservice.impl.MappingService;
@@ -25,17 +28,22 @@ import edu.kit.datamanager.mappingservice.plugins.MappingPluginException;
 import edu.kit.datamanager.mappingservice.plugins.MappingPluginState;
 import edu.kit.datamanager.mappingservice.plugins.PluginManager;
 import edu.kit.datamanager.mappingservice.rest.IMappingExecutionController;
+import edu.kit.datamanager.mappingservice.util.DocumentIngestion;
+import edu.kit.datamanager.mappingservice.util.DocumentIngestion.IngestedDocument;
 import edu.kit.datamanager.mappingservice.util.FileUtil;
+import edu.kit.datamanager.util.AuthenticationHelper;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -46,14 +54,19 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller for executing document mappings via REST API.
@@ -66,54 +79,112 @@ public class MappingExecutionController implements IMappingExecutionController {
 
     private static final Logger LOG = LoggerFactory.getLogger(MappingExecutionController.class);
 
+    /**
+     * Request attributes used to let Tomcat send files via sendfile, i.e.,
+     * without copying them through user space.
+     */
+    private static final String TOMCAT_SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String TOMCAT_SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String TOMCAT_SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String TOMCAT_SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final MappingService mappingService;
     protected JobManager jobManager;
-    private final IMappingRecordDao mappingRecordDao;
     private final MeterRegistry meterRegistry;
     private final DistributionSummary documentsInSizeMetric;
     private final DistributionSummary documentsOutSizeMetric;
+    /**
+     * Usage counters per mapping, registered on first use.
+     */
+    private final Map<String, Counter> mappingUsageCounters = new ConcurrentHashMap<>();
+    /**
+     * Timers for the phases of mapping requests, i.e., writing the upload to
+     * disk, executing the mapping, detecting the mime type of the result and
+     * writing the result to the response.
+     */
+    private final Timer uploadTimer;
+    private final Timer mappingTimer;
+    private final Timer mimeDetectionTimer;
+    private final Timer responseWriteTimer;
     /**
      * The plugin manager.
      */
     private final PluginManager pluginManager;
+    private final ApplicationProperties applicationProperties;
 
-    public MappingExecutionController(MappingService mappingService, PluginManager pluginManager, IMappingRecordDao mappingRecordDao, JobManager jobManager, MeterRegistry meterRegistry) {
+    public MappingExecutionController(MappingService mappingService, PluginManager pluginManager, JobManager jobManager, MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
         this.mappingService = mappingService;
+        this.applicationProperties = applicationProperties;
         this.pluginManager = pluginManager;
-        this.mappingRecordDao = mappingRecordDao;
         this.jobManager = jobManager;
         this.meterRegistry = meterRegistry;
         this.documentsInSizeMetric = DistributionSummary.builder("mapping_service.documents.input_size").baseUnit("bytes").register(meterRegistry);
         this.documentsOutSizeMetric = DistributionSummary.builder("mapping_service.documents.output_size").baseUnit("bytes").register(meterRegistry);
+        this.uploadTimer = phaseTimer("upload", meterRegistry);
+        this.mappingTimer = phaseTimer("mapping", meterRegistry);
+        this.mimeDetectionTimer = phaseTimer("mime_detection", meterRegistry);
+        this.responseWriteTimer = phaseTimer("response_write", meterRegistry);
+    }
+
+    private static Timer phaseTimer(String phase, MeterRegistry meterRegistry) {
+        return Timer.builder("mapping_service.mapping_request.phase")
+                .description("Duration of the phases of mapping requests.")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter mappingUsage(String mappingId) {
+        return mappingUsageCounters.computeIfAbsent(mappingId, id -> Counter.builder("mapping_service.mapping_usage").tag("mappingID", id).register(meterRegistry));
     }
 
-    private void checkMappingById(String id) {
-        Optional<MappingRecord> record = mappingRecordDao.findByMappingId(id);
+    private MappingDescriptor checkMappingById(String id) {
+        Optional<MappingDescriptor> record = mappingService.getMappingDescriptor(id);
         if (record.isEmpty()) {
             String message = String.format("No mapping found for mapping id %s.", id);
             LOG.error(message + " Returning HTTP 404.");
             throw new MappingNotFoundException(message);
         }
+        return record.get();
     }
 
-    private Path prepareInputPath(MultipartFile document) {
+    private IngestedDocument prepareInputPath(MultipartFile document) {
         return prepareInputPath(document, "inputMultipart");
     }
 
-    private Path prepareInputPath(MultipartFile document, String tmpFilename) {
+    private IngestedDocument prepareInputPath(MultipartFile document, String tmpFilename) {
         LOG.trace("Processing mapping input file.");
-        String extension = "." + FilenameUtils.getExtension(document.getOriginalFilename());
+        try (InputStream in = document.getInputStream()) {
+            return prepareInputPath(in, document.getOriginalFilename(), tmpFilename);
+        } catch (IOException e) {
+            LOG.error("Failed to read user upload.", e);
+            throw new MappingExecutionException("Unable to write user upload to disk.");
+        }
+    }
+
+    /**
+     * Write a user upload to disk in a single pass, counting its size and
+     * computing its hash on the fly. Uploads exceeding the maximum document
+     * size are rejected as soon as the limit is reached.
+     */
+    private IngestedDocument prepareInputPath(InputStream in, String filename, String tmpFilename) {
+        String extension = (filename != null) ? "." + FilenameUtils.getExtension(filename) : null;
         LOG.trace(" - Determined file extension: {}", extension);
-        Path inputPath = FileUtil.createTempFile(tmpFilename, extension);
-        LOG.trace(" - Writing user upload to: {}", inputPath);
+        long start = System.nanoTime();
         try {
-            document.transferTo(inputPath.toFile());
-            LOG.trace("Successfully stored user upload at {}.", inputPath);
+            IngestedDocument inputDocument = DocumentIngestion.ingest(in, tmpFilename, extension, applicationProperties.getMaxDocumentSize());
+            LOG.trace("Successfully stored user upload at {}.", inputDocument.path());
+            return inputDocument;
         } catch (IOException e) {
             LOG.error("Failed to store user upload.", e);
             throw new MappingExecutionException("Unable to write user upload to disk.");
+        } finally {
+            uploadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
-        return inputPath;
+    }
+
+    private boolean prettyPrint(Boolean pretty) {
+        return (pretty != null) ? pretty : applicationProperties.isPrettyPrintResults();
     }
 
     private void removeUserData(Path... paths){
@@ -124,7 +195,7 @@ public class MappingExecutionController implements IMappingExecutionController {
         LOG.trace("User upload successfully removed.");
     }
 
-    private void sendReponse(Path result, String id, long documentSize, HttpServletResponse response){
+    private void sendReponse(Path result, String id, String authoritativeMimeType, long documentSize, HttpServletResponse response){
         if (!Files.exists(result) || !Files.isRegularFile(result) || !Files.isReadable(result)) {
             String message = "The mapping result expected at path " + result + " is not accessible. This indicates an error of the mapper implementation.";
             LOG.error(message);
@@ -132,9 +203,12 @@ public class MappingExecutionController implements IMappingExecutionController {
         }
 
         LOG.trace("Determining mime type for mapping result {}.", result);
-        result = FileUtil.fixFileExtension(result);
+        long start = System.nanoTime();
+        FileUtil.IdentifiedFile identifiedResult = FileUtil.identifyFile(result, authoritativeMimeType);
+        mimeDetectionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        result = identifiedResult.path();
 
-        String mimeType = FileUtil.getMimeType(result);
+        String mimeType = identifiedResult.mimeType();
         LOG.trace("Mime type {} determined. Identifying file extension.", mimeType);
         String extension = FileUtil.getExtensionForMimeType(mimeType);
         LOG.trace("Returning result using mime type {} and file extension {}.", mimeType, extension);
@@ -146,6 +220,7 @@ public class MappingExecutionController implements IMappingExecutionController {
         response.setHeader("Expires", "0");
         response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment;" + "filename=result" + extension);
 
+        start = System.nanoTime();
         try {
             LOG.trace("Writing file to response output stream.");
             Files.copy(result, response.getOutputStream());
@@ -154,7 +229,8 @@ public class MappingExecutionController implements IMappingExecutionController {
             LOG.error(message, ex);
             throw new MappingServiceException(message);
         } finally {
-            Counter.builder("mapping_service.mapping_usage").tag("mappingID", id).register(meterRegistry).increment();
+            responseWriteTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            mappingUsage(id).increment();
             this.documentsInSizeMetric.record(documentSize);
             this.documentsOutSizeMetric.record(result.toFile().length());
 
@@ -169,7 +245,7 @@ public class MappingExecutionController implements IMappingExecutionController {
     }
 
     @Override
-    public void mapDocument(MultipartFile document, String mappingID, HttpServletRequest request, HttpServletResponse response, UriComponentsBuilder uriBuilder) {
+    public void mapDocument(MultipartFile document, String mappingID, Boolean pretty, HttpServletRequest request, HttpServletResponse response, UriComponentsBuilder uriBuilder) {
         LOG.trace("Performing mapDocument(File#{}, {})", document.getOriginalFilename(), mappingID);
 
         if (document.isEmpty() || mappingID.isBlank()) {
@@ -178,14 +254,113 @@ public class MappingExecutionController implements IMappingExecutionController {
             throw new MappingServiceUserException(message);
         }
 
-        checkMappingById(mappingID);
-        Path inputPath = prepareInputPath(document);
+        MappingDescriptor mapping = checkMappingById(mappingID);
+        mapDocument(prepareInputPath(document), mapping, prettyPrint(pretty), response);
+    }
+
+    @Override
+    public void mapDocumentStream(String mappingID, String filename, Boolean pretty, HttpServletRequest request, HttpServletResponse response) {
+        LOG.trace("Performing mapDocumentStream({}, {})", mappingID, filename);
+
+        long maxDocumentSize = applicationProperties.getMaxDocumentSize();
+        if (maxDocumentSize > 0 && request.getContentLengthLong() > maxDocumentSize) {
+            LOG.error("Announced document size of {} bytes exceeds maximum of {} bytes. Returning HTTP 413.", request.getContentLengthLong(), maxDocumentSize);
+            throw new DocumentTooLargeException("Input document exceeds the maximum document size of " + maxDocumentSize + " bytes.");
+        }
+        MappingDescriptor mapping = checkMappingById(mappingID);
+
+        String streamingOutputType = pluginManager.getStreamingOutputType(mapping.mappingType());
+        if (streamingOutputType != null) {
+            LOG.trace("Plugin {} supports streaming. Mapping request body directly into response body.", mapping.mappingType());
+            streamDocument(request, mapping, streamingOutputType, prettyPrint(pretty), response);
+            return;
+        }
+
+        IngestedDocument inputDocument;
+        try (InputStream in = request.getInputStream()) {
+            inputDocument = prepareInputPath(in, filename, "inputStream");
+        } catch (IOException e) {
+            LOG.error("Failed to read request body.", e);
+            throw new MappingExecutionException("Unable to write user upload to disk.");
+        }
+        if (inputDocument.size() == 0) {
+            removeUserData(inputDocument.path());
+            String message = "Input document is missing. Unable to perform mapping. Returning HTTP 400";
+            LOG.error(message);
+            throw new MappingServiceUserException(message);
+        }
+        mapDocument(inputDocument, mapping, prettyPrint(pretty), response);
+    }
+
+    /**
+     * Map the request body directly into the response body using a plugin
+     * supporting streaming, i.e., without writing the input document or the
+     * result to disk. The result is not cached and is sent without
+     * Content-Length, as its size is not known in advance. As streaming
+     * plugins only write their result after the mapping succeeded, errors can
+     * still be reported with a proper status code.
+     */
+    private void streamDocument(HttpServletRequest request, MappingDescriptor mapping, String mimeType, boolean prettyPrint, HttpServletResponse response) {
+        String mappingID = mapping.mappingId();
+        long maxDocumentSize = applicationProperties.getMaxDocumentSize();
+
+        CountingInputStream in = null;
+        CountingOutputStream out = null;
+        boolean success = false;
+        try {
+            in = new CountingInputStream(new BufferedInputStream(DocumentIngestion.limit(request.getInputStream(), maxDocumentSize)));
+            in.mark(1);
+            if (in.read() == -1) {
+                String message = "Input document is missing. Unable to perform mapping. Returning HTTP 400";
+                LOG.error(message);
+                throw new MappingServiceUserException(message);
+            }
+            in.reset();
+
+            response.setStatus(HttpStatus.OK.value());
+            response.setHeader("Content-Type", mimeType);
+            response.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
+            response.setHeader("Pragma", "no-cache");
+            response.setHeader("Expires", "0");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment;" + "filename=result" + FileUtil.getExtensionForMimeType(mimeType));
+
+            out = new CountingOutputStream(response.getOutputStream());
+            MappingPluginState state = mappingService.executeMapping(in, out, mappingID, prettyPrint);
+            if (!MappingPluginState.StateEnum.SUCCESS.equals(state.getState())) {
+                throw new MappingPluginException(state, "Mapping process finished with state " + state.getState() + ".");
+            }
+            out.flush();
+            success = true;
+            LOG.trace("Mapping result of {} bytes successfully streamed to client.", out.getCount());
+        } catch (MappingPluginException e) {
+            LOG.error("Failed to execute mapping.", e);
+            if (!response.isCommitted()) {
+                response.reset();
+            }
+            e.throwMe();
+        } catch (IOException ex) {
+            String message = "Failed to stream mapping result.";
+            LOG.error(message, ex);
+            throw new MappingServiceException(message);
+        } finally {
+            if (success) {
+                mappingUsage(mappingID).increment();
+                this.documentsInSizeMetric.record(in.getCount());
+                this.documentsOutSizeMetric.record(out.getCount());
+            }
+        }
+    }
+
+    private void mapDocument(IngestedDocument inputDocument, MappingDescriptor mapping, boolean prettyPrint, HttpServletResponse response) {
+        String mappingID = mapping.mappingId();
+        Path inputPath = inputDocument.path();
         Optional<Path> resultPath = Optional.empty();
 
         //Mapping execution via mapping
+        long start = System.nanoTime();
         try {
             LOG.trace("Performing mapping process of file {} via mapping service", inputPath);
-            resultPath = mappingService.executeMapping(inputPath.toFile().toURI(), mappingID);
+            resultPath = mappingService.executeMapping(inputPath.toFile().toURI(), mappingID, inputDocument.hash(), prettyPrint);
             if (resultPath.isPresent()) {
                 LOG.trace("Mapping process finished. Output written to {}.", resultPath);
             } else {
@@ -195,15 +370,52 @@ public class MappingExecutionController implements IMappingExecutionController {
             LOG.error("Failed to execute mapping.", e);
             e.throwMe();
         } finally {
+            mappingTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             removeUserData(inputPath);
         }
 
         //Result submission
-        sendReponse(resultPath.get(), mappingID,document.getSize(), response);
+        sendReponse(resultPath.get(), mappingID, pluginManager.getAuthoritativeOutputType(mapping.mappingType()), inputDocument.size(), response);
     }
 
     @Override
-    public void runPlugin(MultipartFile document, MultipartFile mapping, String pluginId, HttpServletRequest request, HttpServletResponse response, UriComponentsBuilder uriBuilder) {
+    public void mapBatch(String mappingID, HttpServletRequest request, HttpServletResponse response) {
+        LOG.trace("Performing mapBatch({})", mappingID);
+
+        long maxDocumentSize = applicationProperties.getMaxDocumentSize();
+        if (maxDocumentSize > 0 && request.getContentLengthLong() > maxDocumentSize) {
+            LOG.error("Announced batch size of {} bytes exceeds maximum of {} bytes. Returning HTTP 413.", request.getContentLengthLong(), maxDocumentSize);
+            throw new DocumentTooLargeException("Batch exceeds the maximum document size of " + maxDocumentSize + " bytes.");
+        }
+
+        PluginManager.DocumentMapper mapper = null;
+        try {
+            mapper = mappingService.getBatchMapper(mappingID);
+        } catch (MappingPluginException e) {
+            LOG.error("Failed to prepare batch mapping.", e);
+            e.throwMe();
+        }
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
+        long documents = 0;
+        //the announced length is missing for chunked requests, thus, the body is limited while reading
+        try (PluginManager.DocumentMapper batchMapper = mapper; InputStream in = DocumentIngestion.limit(request.getInputStream(), maxDocumentSize)) {
+            documents = mappingService.executeBatchMapping(batchMapper, in, response.getOutputStream());
+            LOG.trace("Batch of {} documents successfully mapped.", documents);
+        } catch (IOException ex) {
+            String message = "Failed to process batch.";
+            LOG.error(message, ex);
+            throw new MappingServiceException(message);
+        } finally {
+            mappingUsage(mappingID).increment(documents);
+        }
+    }
+
+    @Override
+    public void runPlugin(MultipartFile document, MultipartFile mapping, String pluginId, Boolean pretty, HttpServletRequest request, HttpServletResponse response, UriComponentsBuilder uriBuilder) {
         LOG.trace("Performing runPlugin(File#{}, File#{}, {})", document.getOriginalFilename(), mapping.getOriginalFilename(), pluginId);
 
         if (document.isEmpty() || mapping.isEmpty() || pluginId.isBlank()) {
@@ -219,15 +431,23 @@ public class MappingExecutionController implements IMappingExecutionController {
             throw new PluginNotFoundException(message);
         }
 
-        Path inputPath = prepareInputPath(document);
-        Path mappingInputPath = prepareInputPath(mapping, "mappingInputMultipart");
+        IngestedDocument inputDocument = prepareInputPath(document);
+        Path inputPath = inputDocument.path();
+        Path mappingInputPath;
+        try {
+            mappingInputPath = prepareInputPath(mapping, "mappingInputMultipart").path();
+        } catch (RuntimeException e) {
+            removeUserData(inputPath);
+            throw e;
+        }
         Optional<Path> resultPath = Optional.empty();
 
         //Mapping execution via plugin
+        long start = System.nanoTime();
         try {
             LOG.trace("Performing mapping process of file {} via mapping service", inputPath);
 
-            resultPath = mappingService.runPlugin(inputPath.toFile().toURI(), mappingInputPath.toUri(), pluginId);
+            resultPath = mappingService.runPlugin(inputPath.toFile().toURI(), mappingInputPath.toUri(), pluginId, prettyPrint(pretty));
             if (resultPath.isPresent()) {
                 LOG.trace("Mapping process finished. Output written to {}.", resultPath);
             } else {
@@ -237,15 +457,16 @@ public class MappingExecutionController implements IMappingExecutionController {
             LOG.error("Failed to execute mapping.", e);
             e.throwMe();
         } finally {
+            mappingTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             removeUserData(inputPath, mappingInputPath);
         }
 
         //Result submission
-        sendReponse(resultPath.get(), pluginId, document.getSize(), response);
+        sendReponse(resultPath.get(), pluginId, pluginManager.getAuthoritativeOutputType(pluginId), inputDocument.size(), response);
     }
 
     @Override
-    public ResponseEntity<JobStatus> scheduleMapDocument(String mappingID, MultipartFile document, HttpServletRequest request, HttpServletResponse response, UriComponentsBuilder uriBuilder) throws Throwable {
+    public ResponseEntity<JobStatus> scheduleMapDocument(String mappingID, MultipartFile document, Boolean pretty, JobPriority priority, HttpServletRequest request, HttpServletResponse response, UriComponentsBuilder uriBuilder) throws Throwable {
         LOG.trace("Performing scheduleMapDocument(File#{}, {})", document.getOriginalFilename(), mappingID);
         String jobId = null;
         for (int i = 1; i < 4; i++) {
@@ -272,12 +493,14 @@ public class MappingExecutionController implements IMappingExecutionController {
         }
 
         checkMappingById(mappingID);
-        Path inputPath = prepareInputPath(document);
+        LOG.trace("Obtaining caller principal for job scheduling.");
+        String callerPrincipal = (String) AuthenticationHelper.getAuthentication().getPrincipal();
+        Path inputPath = prepareInputPath(document).path();
 
         try {
-            LOG.trace("Scheduling mapping process of file {} via mapping service", inputPath.toString());
-            CompletableFuture<JobStatus> completableFuture = mappingService.executeMappingAsync(jobId, inputPath.toFile().toURI(), mappingID);
-            jobManager.putJob(jobId, completableFuture);
+            LOG.trace("Scheduling mapping process of file {} via mapping service with priority {} for {}", inputPath.toString(), priority, callerPrincipal);
+            CompletableFuture<JobStatus> completableFuture = mappingService.executeMappingAsync(jobId, inputPath.toFile().toURI(), mappingID, prettyPrint(pretty), callerPrincipal, priority);
+            jobManager.putJob(jobId, mappingID, completableFuture);
             LOG.info("Job id {} scheduled for processing. Returning job status.", jobId);
             return ResponseEntity.ok(JobStatus.status(jobId, JobStatus.STATUS.SUBMITTED));
         } catch (MappingPluginException e) {
@@ -287,6 +510,14 @@ public class MappingExecutionController implements IMappingExecutionController {
             FileUtil.removeFile(inputPath);
             LOG.trace("User upload successfully removed.");
             return ResponseEntity.status(500).body(JobStatus.error(jobId, JobStatus.STATUS.FAILED, String.format("Failed to schedule mapping with id '%s' on provided input document.", mappingID)));
+        } catch (TaskRejectedException e) {
+            LOG.warn("Job queue is full. Rejecting job {}.", jobId);
+            LOG.trace("Removing user upload at {}.", inputPath);
+            FileUtil.removeFile(inputPath);
+            LOG.trace("User upload successfully removed.");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Integer.toString(applicationProperties.getAsyncRetryAfter()))
+                    .body(JobStatus.error(jobId, JobStatus.STATUS.FAILED, "Too many mapping jobs scheduled. Please try again later."));
         }
     }
 
@@ -299,8 +530,10 @@ public class MappingExecutionController implements IMappingExecutionController {
     }
 
     @Override
-    public ResponseEntity<Resource> getJobOutputFile(@PathVariable(name = "job-id") String jobId) throws Throwable {
+    public ResponseEntity<Resource> getJobOutputFile(@PathVariable(name = "job-id") String jobId, HttpServletRequest request) throws Throwable {
         LOG.debug("Received request to fetch output file of job-id: {}", jobId);
+        //protect the output from eviction before it is opened, i.e., before resolving it
+        jobManager.startDownload(jobId);
 
         File outputFile = mappingService.getJobOutputFile(jobId);
 
@@ -310,16 +543,25 @@ public class MappingExecutionController implements IMappingExecutionController {
 
         LOG.trace("Using mime type {} and extension {}.", mimeType, extension);
 
-        InputStreamResource resource = new InputStreamResource(new FileInputStream(outputFile));
-
-        return ResponseEntity.ok()
-                .contentLength(outputFile.length())
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType(mimeType))
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
                 .header("Cache-Control", "no-cache, no-store, must-revalidate")
                 .header("Pragma", "no-cache")
                 .header("Expires", "0")
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment;" + "filename=result" + extension)
-                .body(resource);
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment;" + "filename=result" + extension);
+
+        if (request.getHeader(HttpHeaders.RANGE) == null && Boolean.TRUE.equals(request.getAttribute(TOMCAT_SENDFILE_SUPPORT))) {
+            //let Tomcat send the whole file via sendfile after the headers have been written
+            LOG.trace("Sending output file {} via sendfile.", outputFile);
+            request.setAttribute(TOMCAT_SENDFILE_FILENAME, outputFile.getCanonicalPath());
+            request.setAttribute(TOMCAT_SENDFILE_START, 0L);
+            request.setAttribute(TOMCAT_SENDFILE_END, outputFile.length());
+            return builder.contentLength(outputFile.length()).build();
+        }
+
+        //Range requests are served by Spring using ResourceRegions of the file
+        return builder.body(new FileSystemResource(outputFile));
     }
 
     @Override
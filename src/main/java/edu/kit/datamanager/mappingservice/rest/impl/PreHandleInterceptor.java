@@ -1,5 +1,10 @@
 package edu.kit.datamanager.mappingservice.rest.impl;
 
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
+import edu.kit.datamanager.mappingservice.util.HyperLogLog;
+import edu.kit.datamanager.mappingservice.util.SlidingWindowCardinality;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -12,12 +17,23 @@ import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.HandlerInterceptor;
 
-import java.security.MessageDigest;
-import java.util.HashSet;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Interceptor counting served requests and estimating the number of unique
+ * users by their client IP. Client IPs are not stored, only their hashes are
+ * added to HyperLogLog estimators with a fixed memory footprint, one since
+ * startup and one per configured sliding window.
+ */
 @Service
 public class PreHandleInterceptor implements HandlerInterceptor {
-    private final HashSet<String> uniqueUsers = new HashSet<>();
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final HyperLogLog uniqueUsers = new HyperLogLog();
+    private final List<SlidingWindowCardinality> uniqueUsersInWindow = new ArrayList<>();
     private final Counter counter;
 
     /**
@@ -26,8 +42,16 @@ public class PreHandleInterceptor implements HandlerInterceptor {
     private final static Logger LOGGER = LoggerFactory.getLogger(PreHandleInterceptor.class);
 
     @Autowired
-    PreHandleInterceptor(MeterRegistry meterRegistry) {
-        Gauge.builder("mapping_service.unique_users", uniqueUsers::size).register(meterRegistry);
+    PreHandleInterceptor(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        Gauge.builder("mapping_service.unique_users", uniqueUsers::estimate).register(meterRegistry);
+        for (long seconds : applicationProperties.getUniqueUserWindows()) {
+            SlidingWindowCardinality window = new SlidingWindowCardinality(Duration.ofSeconds(seconds));
+            uniqueUsersInWindow.add(window);
+            Gauge.builder("mapping_service.unique_users.window", window::estimate)
+                    .description("Estimated number of unique users within a sliding window.")
+                    .tag("window", window.getWindow().toString())
+                    .register(meterRegistry);
+        }
         counter = Counter.builder("mapping_service.requests_served").register(meterRegistry);
     }
 
@@ -48,9 +72,11 @@ public class PreHandleInterceptor implements HandlerInterceptor {
         String ip = clientIp == null ? remoteIp : clientIp;
         LOGGER.debug("Using {} for monitoring", ip);
 
-        MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
-        messageDigest.update(ip.getBytes());
-        uniqueUsers.add(new String(messageDigest.digest()));
+        long hash = HASH_FUNCTION.hashString(ip, StandardCharsets.UTF_8).asLong();
+        uniqueUsers.add(hash);
+        for (SlidingWindowCardinality window : uniqueUsersInWindow) {
+            window.add(hash);
+        }
 
         counter.increment();
 
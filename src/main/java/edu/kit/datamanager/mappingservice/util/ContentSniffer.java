@@ -0,0 +1,280 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.util;
+
+import java.util.Arrays;
+
+/**
+ * Detection of common content types from the first bytes of a document. The
+ * detection works on the raw bytes and inspects each byte at most a constant
+ * number of times, i.e., it runs in linear time regardless of the content.
+ * Binary formats are detected by their magic numbers, text formats by their
+ * first significant characters:
+ * <ul>
+ * <li>JSON: An object starting with a key or an empty object, or an array
+ * starting with an object, array, string or number.</li>
+ * <li>XML: An XML declaration or a start tag.</li>
+ * <li>YAML: A document start marker '---' or a '%YAML' directive.</li>
+ * <li>CSV: At least three complete records with the same number (at least
+ * one) of commas, semicolons or tabs outside of quotes.</li>
+ * </ul>
+ * Other content is not detected and should be handed over to a full detector,
+ * e.g., Apache Tika.
+ *
+ * @author jejkal
+ */
+public final class ContentSniffer {
+
+    /**
+     * Content types detected by the sniffer.
+     */
+    public enum ContentType {
+        JSON("application/json", ".json"),
+        XML("application/xml", ".xml"),
+        YAML("application/yaml", ".yaml"),
+        CSV("text/csv", ".csv"),
+        PDF("application/pdf", ".pdf"),
+        ZIP("application/zip", ".zip"),
+        GZIP("application/gzip", ".gz"),
+        PNG("image/png", ".png"),
+        JPEG("image/jpeg", ".jpg"),
+        GIF("image/gif", ".gif");
+
+        private final String mimeType;
+        private final String extension;
+
+        ContentType(String mimeType, String extension) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Check whether the content type is a container of more specific
+         * types, e.g., office documents for ZIP or SVG for XML, which cannot
+         * be told apart from the first bytes without knowing the filename.
+         *
+         * @return TRUE for XML and ZIP.
+         */
+        public boolean hasSubtypes() {
+            return this == XML || this == ZIP;
+        }
+    }
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] PDF_MAGIC = {'%', 'P', 'D', 'F', '-'};
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 0x03, 0x04};
+    private static final byte[] ZIP_EMPTY_MAGIC = {'P', 'K', 0x05, 0x06};
+    private static final byte[] GZIP_MAGIC = {0x1F, (byte) 0x8B};
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] GIF87_MAGIC = {'G', 'I', 'F', '8', '7', 'a'};
+    private static final byte[] GIF89_MAGIC = {'G', 'I', 'F', '8', '9', 'a'};
+    private static final byte[] XML_DECLARATION = {'<', '?', 'x', 'm', 'l'};
+    private static final byte[] YAML_DOCUMENT_START = {'-', '-', '-'};
+    private static final byte[] YAML_DIRECTIVE = {'%', 'Y', 'A', 'M', 'L'};
+    private static final byte[] CSV_DELIMITERS = {',', ';', '\t'};
+    private static final int MIN_CSV_RECORDS = 3;
+
+    private ContentSniffer() {
+    }
+
+    /**
+     * Detect the content type of a document from its first bytes.
+     *
+     * @param header The first bytes of the document.
+     *
+     * @return The content type or null if the content type was not detected.
+     */
+    public static ContentType sniff(byte[] header) {
+        return sniff(header, header.length);
+    }
+
+    /**
+     * Detect the content type of a document from its first bytes.
+     *
+     * @param header The first bytes of the document.
+     * @param length The number of valid bytes in header.
+     *
+     * @return The content type or null if the content type was not detected.
+     */
+    public static ContentType sniff(byte[] header, int length) {
+        length = Math.min(length, header.length);
+        ContentType binary = sniffBinary(header, length);
+        if (binary != null) {
+            return binary;
+        }
+
+        int start = startsWith(header, length, 0, UTF8_BOM) ? UTF8_BOM.length : 0;
+        int pos = skipWhitespace(header, length, start);
+        if (pos == length) {
+            return null;
+        }
+        switch (header[pos]) {
+            case '{': {
+                int next = skipWhitespace(header, length, pos + 1);
+                if (next < length && (header[next] == '"' || header[next] == '}')) {
+                    return ContentType.JSON;
+                }
+                break;
+            }
+            case '[': {
+                int next = skipWhitespace(header, length, pos + 1);
+                if (next < length && isJsonArrayElementStart(header[next])) {
+                    return ContentType.JSON;
+                }
+                break;
+            }
+            case '<': {
+                if (startsWith(header, length, pos, XML_DECLARATION)) {
+                    return ContentType.XML;
+                }
+                int next = skipWhitespace(header, length, pos + 1);
+                if (next < length && isNameStart(header[next])) {
+                    return ContentType.XML;
+                }
+                break;
+            }
+            case '-': {
+                if (startsWith(header, length, pos, YAML_DOCUMENT_START)) {
+                    int next = pos + YAML_DOCUMENT_START.length;
+                    if (next == length || header[next] == '\n' || header[next] == '\r' || header[next] == ' ') {
+                        return ContentType.YAML;
+                    }
+                }
+                break;
+            }
+            case '%': {
+                if (startsWith(header, length, pos, YAML_DIRECTIVE)) {
+                    return ContentType.YAML;
+                }
+                break;
+            }
+            default:
+                break;
+        }
+        return isCsv(header, length, start) ? ContentType.CSV : null;
+    }
+
+    private static ContentType sniffBinary(byte[] header, int length) {
+        if (startsWith(header, length, 0, PDF_MAGIC)) {
+            return ContentType.PDF;
+        }
+        if (startsWith(header, length, 0, ZIP_MAGIC) || startsWith(header, length, 0, ZIP_EMPTY_MAGIC)) {
+            return ContentType.ZIP;
+        }
+        if (startsWith(header, length, 0, GZIP_MAGIC)) {
+            return ContentType.GZIP;
+        }
+        if (startsWith(header, length, 0, PNG_MAGIC)) {
+            return ContentType.PNG;
+        }
+        if (startsWith(header, length, 0, JPEG_MAGIC)) {
+            return ContentType.JPEG;
+        }
+        if (startsWith(header, length, 0, GIF87_MAGIC) || startsWith(header, length, 0, GIF89_MAGIC)) {
+            return ContentType.GIF;
+        }
+        return null;
+    }
+
+    /**
+     * Check for delimiter-separated records. Only complete records, i.e.,
+     * records terminated by a line break, are considered, as the last record
+     * of the header is typically truncated. Line breaks inside of quotes are
+     * part of the record.
+     */
+    private static boolean isCsv(byte[] header, int length, int start) {
+        int[] counts = new int[CSV_DELIMITERS.length];
+        int[] firstCounts = null;
+        boolean[] consistent = {true, true, true};
+        int records = 0;
+        boolean quoted = false;
+        for (int i = start; i < length; i++) {
+            byte b = header[i];
+            if (b >= 0 && b < 0x20 && b != '\t' && b != '\n' && b != '\r') {
+                //control characters, most likely binary content
+                return false;
+            }
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (!quoted && b == '\n') {
+                if (firstCounts == null) {
+                    firstCounts = counts.clone();
+                } else {
+                    for (int d = 0; d < counts.length; d++) {
+                        consistent[d] &= counts[d] == firstCounts[d];
+                    }
+                }
+                records++;
+                Arrays.fill(counts, 0);
+            } else if (!quoted) {
+                for (int d = 0; d < CSV_DELIMITERS.length; d++) {
+                    if (b == CSV_DELIMITERS[d]) {
+                        counts[d]++;
+                    }
+                }
+            }
+        }
+        if (records < MIN_CSV_RECORDS) {
+            return false;
+        }
+        for (int d = 0; d < CSV_DELIMITERS.length; d++) {
+            if (consistent[d] && firstCounts[d] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isJsonArrayElementStart(byte b) {
+        return b == '{' || b == '[' || b == '"' || b == ']' || b == '-' || (b >= '0' && b <= '9');
+    }
+
+    private static boolean isNameStart(byte b) {
+        //non-ASCII bytes are accepted as part of UTF-8 encoded names
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || b == '_' || b < 0;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+
+    private static int skipWhitespace(byte[] header, int length, int pos) {
+        while (pos < length && isWhitespace(header[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, byte[] prefix) {
+        if (length - offset < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (header[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
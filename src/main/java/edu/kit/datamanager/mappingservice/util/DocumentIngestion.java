@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.util;
+
+import edu.kit.datamanager.mappingservice.exception.DocumentTooLargeException;
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Utility class for writing user uploads to disk in a single pass. While the
+ * upload is written, its size is counted and its SHA-256 hash is computed,
+ * such that neither the size nor the hash require reading the file again.
+ *
+ * @author jejkal
+ */
+public class DocumentIngestion {
+
+    /**
+     * Logger for this class.
+     */
+    private final static Logger LOGGER = LoggerFactory.getLogger(DocumentIngestion.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * A document written to disk.
+     *
+     * @param path The location of the document.
+     * @param size The size of the document in bytes.
+     * @param hash The hash of the document in the format 'sha256:HEX'.
+     */
+    public record IngestedDocument(Path path, long size, String hash) {
+
+    }
+
+    private DocumentIngestion() {
+    }
+
+    /**
+     * Write the provided stream to a new temporary file. The stream is not
+     * closed.
+     *
+     * @param in The stream to read from, e.g., the request body.
+     * @param prefix The prefix of the temporary file.
+     * @param extension The extension of the temporary file, e.g., '.json'.
+     * @param maxSize The maximum number of bytes accepted, 0 or less for no
+     * limit.
+     *
+     * @return The ingested document.
+     *
+     * @throws DocumentTooLargeException If maxSize is exceeded. The partially
+     * written file is removed in that case.
+     * @throws IOException If reading or writing fails. The partially written
+     * file is removed in that case.
+     */
+    public static IngestedDocument ingest(InputStream in, String prefix, String extension, long maxSize) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported by JVM.", e);
+        }
+
+        Path target = FileUtil.createTempFile(prefix, extension);
+        long size = 0;
+        boolean success = false;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                size += read;
+                if (maxSize > 0 && size > maxSize) {
+                    LOGGER.warn("Upload exceeds maximum document size of {} bytes. Aborting.", maxSize);
+                    throw new DocumentTooLargeException("Input document exceeds the maximum document size of " + maxSize + " bytes.");
+                }
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                Files.deleteIfExists(target);
+            }
+        }
+        String hash = "sha256:" + Hex.encodeHexString(digest.digest());
+        LOGGER.trace("Ingested {} bytes with hash {} into {}.", size, hash, target);
+        return new IngestedDocument(target, size, hash);
+    }
+
+    /**
+     * Wrap the provided stream such that reading more than maxSize bytes from
+     * it fails. This allows to enforce the maximum document size if a document
+     * is processed directly from the request body without writing it to disk.
+     * Closing the returned stream closes the provided stream.
+     *
+     * @param in The stream to read from, e.g., the request body.
+     * @param maxSize The maximum number of bytes accepted, 0 or less for no
+     * limit.
+     *
+     * @return The limited stream, which throws a DocumentTooLargeException as
+     * soon as maxSize is exceeded.
+     */
+    public static InputStream limit(InputStream in, long maxSize) {
+        if (maxSize <= 0) {
+            return in;
+        }
+        return new FilterInputStream(in) {
+            private long size = 0;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    count(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read > 0) {
+                    count(read);
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                count(skipped);
+                return skipped;
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+
+            private void count(long read) {
+                size += read;
+                if (size > maxSize) {
+                    LOGGER.warn("Input exceeds maximum document size of {} bytes. Aborting.", maxSize);
+                    throw new DocumentTooLargeException("Input document exceeds the maximum document size of " + maxSize + " bytes.");
+                }
+            }
+        };
+    }
+}
@@ -21,7 +21,8 @@ import edu.kit.datamanager.mappingservice.exception.MappingServiceException;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.tika.Tika;
-import org.apache.tika.mime.MimeType;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
 import org.apache.tika.mime.MimeTypeException;
 import org.apache.tika.mime.MimeTypes;
 import org.eclipse.jgit.api.Git;
@@ -39,9 +40,9 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Various utility methods for file handling.
@@ -77,18 +78,27 @@ public class FileUtil {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(FileUtil.class);
 
-    /**
-     * Header size used to check for JSON or XML.
-     */
-    private static final int MAX_LENGTH_OF_HEADER = 100;
     /**
      * Few first kilobytes of file allowing Tika to detect extension. They don't
      * state explicitly how many kilobytes they need, so 8 should be fine.
      */
     private static final int FEW_KILO_BYTES_FOR_TIKA = 8 * 1024;
 
-    private static final Pattern JSON_FIRST_BYTE = Pattern.compile("(\\R\\s)*\\s*\\{\\s*\"(.|\\s)*", Pattern.MULTILINE);//^\\s{\\s*\".*");
-    private static final Pattern XML_FIRST_BYTE = Pattern.compile("((.|\\s)*<\\?xml[^<]*)?\\s*<\\s*(\\w+:)?\\w+(.|\\s)*", Pattern.MULTILINE);
+    /**
+     * Shared detector instance, which is thread-safe.
+     */
+    private static final Tika TIKA = new Tika();
+
+    /**
+     * Cache of default extensions by mime type.
+     */
+    private static final Map<String, String> EXTENSIONS = new ConcurrentHashMap<>();
+
+    static {
+        for (ContentSniffer.ContentType contentType : ContentSniffer.ContentType.values()) {
+            EXTENSIONS.put(contentType.getMimeType(), contentType.getExtension());
+        }
+    }
 
     /**
      * Downloads or copy the file behind the given URI and returns its path on
@@ -128,6 +138,16 @@ public class FileUtil {
         return Optional.ofNullable(downloadedFile);
     }
 
+    /**
+     * A file together with its mime type.
+     *
+     * @param path The location of the file.
+     * @param mimeType The mime type of the file.
+     */
+    public record IdentifiedFile(Path path, String mimeType) {
+
+    }
+
     /**
      * Fix extension of file if possible.
      *
@@ -135,16 +155,41 @@ public class FileUtil {
      * @return the path to the (renamed) file.
      */
     public static Path fixFileExtension(Path pathToFile) {
+        if (pathToFile == null) {
+            return null;
+        }
+        return identifyFile(pathToFile, null).path();
+    }
+
+    /**
+     * Determine the mime type of a file and fix its extension accordingly. If
+     * an authoritative mime type is provided, e.g., declared by the plugin
+     * which created the file, the file is not read at all. Otherwise, the mime
+     * type is detected once from the first few kilobytes of the file.
+     *
+     * @param pathToFile The file.
+     * @param authoritativeMimeType The known mime type of the file or null if
+     * it has to be detected.
+     * @return The (renamed) file and its mime type. If the file does not exist,
+     * it is returned unchanged together with application/octet-stream.
+     */
+    public static IdentifiedFile identifyFile(Path pathToFile, String authoritativeMimeType) {
         Path returnFile = pathToFile;
         Path renamedFile = pathToFile;
-        LOGGER.trace("fixFileExtension({})", pathToFile);
-        FileInputStream fin;
+        String mimeType = DEFAULT_MIME_TYPE;
+        LOGGER.trace("identifyFile({}, {})", pathToFile, authoritativeMimeType);
         try {
             if ((pathToFile != null) && (pathToFile.toFile().exists()) && pathToFile.toFile().isFile()) {
-                fin = new FileInputStream(pathToFile.toFile());
-                byte[] header = fin.readNBytes(FEW_KILO_BYTES_FOR_TIKA);
-                fin.close();
-                String newExtension = guessFileExtension(pathToFile.getFileName().toString(), header);
+                if (authoritativeMimeType != null) {
+                    mimeType = authoritativeMimeType;
+                } else {
+                    byte[] header;
+                    try (FileInputStream fin = new FileInputStream(pathToFile.toFile())) {
+                        header = fin.readNBytes(FEW_KILO_BYTES_FOR_TIKA);
+                    }
+                    mimeType = detectMimeType(pathToFile.getFileName().toString(), header);
+                }
+                String newExtension = extensionOf(mimeType);
                 if (newExtension != null) {
                     if (!pathToFile.toString().endsWith(newExtension)) {
                         renamedFile = Paths.get(pathToFile + newExtension);
@@ -156,8 +201,8 @@ public class FileUtil {
         } catch (IOException ex) {
             LOGGER.error("Error moving file '{}' to '{}'.", pathToFile, renamedFile);
         }
-        LOGGER.trace("'{}' -> '{}'", pathToFile, returnFile);
-        return returnFile;
+        LOGGER.trace("'{}' -> '{}' ({})", pathToFile, returnFile, mimeType);
+        return new IdentifiedFile(returnFile, mimeType);
     }
 
     /**
@@ -202,11 +247,10 @@ public class FileUtil {
      * @return The mime type of application/octet-stream as fallback.
      */
     public static String getMimeType(Path file) {
-        Tika tika = new Tika();
         String mimeType = DEFAULT_MIME_TYPE;
         LOGGER.trace("Performing mime type detection for file {}.", file);
         try {
-            mimeType = tika.detect(file);
+            mimeType = TIKA.detect(file);
             LOGGER.trace("Detected mime type {} for file {}.", mimeType, file);
         } catch (IOException e) {
             LOGGER.warn("Failed to detect media type for file {}. Returning application/octet-stream.", file, e);
@@ -223,17 +267,31 @@ public class FileUtil {
      * otherwise.
      */
     public static String getExtensionForMimeType(String mimeType) {
-        String ext = DEFAULT_FILE_EXTENSION;
-        LOGGER.trace("Obtaining mime type for string {}.", mimeType);
-        try {
-            MimeType type = MimeTypes.getDefaultMimeTypes().forName(mimeType);
-            LOGGER.trace("Obtained mime type {}. Getting default extension.", type);
-            ext = type.getExtension();
-            if (ext.isEmpty()) {
-                LOGGER.trace("Returning default extension {}.", ext);
+        LOGGER.trace("Obtaining extension for mime type {}.", mimeType);
+        String ext = extensionOf(mimeType);
+        return (ext != null) ? ext : DEFAULT_FILE_EXTENSION;
+    }
+
+    /**
+     * Get the default extension of a mime type. Results are cached, as the
+     * number of mime types is limited.
+     *
+     * @param mimeType The mime type as string.
+     * @return The extension, which might be empty, or null if the mime type is
+     * unknown.
+     */
+    private static String extensionOf(String mimeType) {
+        if (mimeType == null) {
+            return null;
+        }
+        String ext = EXTENSIONS.get(mimeType);
+        if (ext == null) {
+            try {
+                ext = MimeTypes.getDefaultMimeTypes().forName(mimeType).getExtension();
+                EXTENSIONS.put(mimeType, ext);
+            } catch (MimeTypeException ex) {
+                LOGGER.error("Unknown mimetype '{}'", mimeType);
             }
-        } catch (MimeTypeException ex) {
-            LOGGER.error("Failed to obtain mime type for string {}.", mimeType);
         }
         return ext;
     }
@@ -245,37 +303,55 @@ public class FileUtil {
      * @param fewKilobytesOfFile First few kilobytes of the file.
      * @return Estimated extension. e.g. '.xml'
      */
-    private static String guessFileExtension(String filename, byte[] fewKilobytesOfFile) {
-        String returnValue = null;
-        String headerAsString = new String(fewKilobytesOfFile, 0, Math.min(fewKilobytesOfFile.length, MAX_LENGTH_OF_HEADER));
-        LOGGER.trace("Guess type for '{}'", headerAsString);
-        Matcher m = JSON_FIRST_BYTE.matcher(headerAsString);
-        if (m.matches()) {
-            returnValue = ".json";
-        } else {
-            m = XML_FIRST_BYTE.matcher(headerAsString);
-            if (m.matches()) {
-                returnValue = ".xml";
+    static String guessFileExtension(String filename, byte[] fewKilobytesOfFile) {
+        return extensionOf(detectMimeType(filename, fewKilobytesOfFile));
+    }
+
+    /**
+     * Detect the mime type of a file from its first bytes. Common formats are
+     * detected directly by ContentSniffer, all other types using Apache Tika.
+     * Sniffed XML and ZIP content is refined by Apache Tika using the
+     * filename, e.g., to detect SVG images or office documents.
+     *
+     * @param filename           The name of the file to support mime type detection.
+     * @param fewKilobytesOfFile First few kilobytes of the file.
+     * @return The mime type, e.g. 'application/xml'.
+     */
+    public static String detectMimeType(String filename, byte[] fewKilobytesOfFile) {
+        ContentSniffer.ContentType contentType = ContentSniffer.sniff(fewKilobytesOfFile);
+        if (contentType != null) {
+            LOGGER.trace("Sniffed content type '{}'", contentType);
+            if (!contentType.hasSubtypes()) {
+                return contentType.getMimeType();
             }
         }
+        // Use tika library to estimate mime type
+        LOGGER.trace("Use tika library to estimate mime type.");
+        String mimeType = TIKA.detect(fewKilobytesOfFile, filename);
+        LOGGER.trace("Mimetype: '{}'", mimeType);
+        if (contentType != null && !isSubtypeOf(mimeType, contentType.getMimeType())) {
+            //filename does not match the content, stick to the sniffed type
+            return contentType.getMimeType();
+        }
+        return mimeType;
+    }
 
-        if (returnValue == null) {
-            // Use tika library to estimate extension
-            LOGGER.trace("Use tika library to estimate extension.");
-            Tika tika = new Tika();
-            String mimeType;
-            mimeType = tika.detect(fewKilobytesOfFile, filename);
-            MimeTypes allTypes = MimeTypes.getDefaultMimeTypes();
-            MimeType estimatedMimeType;
-            try {
-                estimatedMimeType = allTypes.forName(mimeType);
-                returnValue = estimatedMimeType.getExtension(); // .jpg
-                LOGGER.trace("Mimetype: '{}', Extension: '{}'", mimeType, returnValue);
-            } catch (MimeTypeException ex) {
-                LOGGER.error("Unknown mimetype '{}'", mimeType);
-            }
+    /**
+     * Check whether a mime type equals or is a specialization of another mime
+     * type, e.g., 'image/svg+xml' of 'application/xml'.
+     *
+     * @param mimeType The mime type to check.
+     * @param superType The expected super type.
+     * @return TRUE if mimeType is a subtype of superType.
+     */
+    private static boolean isSubtypeOf(String mimeType, String superType) {
+        MediaType type = MediaType.parse(mimeType);
+        MediaType parent = MediaType.parse(superType);
+        if (type == null || parent == null) {
+            return false;
         }
-        return returnValue;
+        MediaTypeRegistry registry = MimeTypes.getDefaultMimeTypes().getMediaTypeRegistry();
+        return registry.normalize(type).equals(parent) || registry.isSpecializationOf(type, parent);
     }
 
     /**
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+
+/**
+ * HyperLogLog cardinality estimator with a fixed memory footprint of
+ * 2^precision bytes. The standard error of the estimate is about
+ * 1.04/sqrt(2^precision), e.g., 1.6% for the default precision of 12. Values
+ * are added as 64-bit hashes, which must be uniformly distributed. Adding is
+ * lock-free and may happen concurrently with other additions and estimations.
+ *
+ * @author jejkal
+ */
+public final class HyperLogLog {
+
+    /**
+     * The default precision using 4096 registers.
+     */
+    public static final int DEFAULT_PRECISION = 12;
+
+    private static final VarHandle REGISTER = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Create an estimator using the default precision.
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Create an estimator.
+     *
+     * @param precision The number of hash bits used to select a register
+     * between 4 and 18.
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision must be between 4 and 18, but was " + precision + ".");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Get the precision of this estimator.
+     *
+     * @return The precision.
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Add a value to the estimator.
+     *
+     * @param hash A 64-bit hash of the value.
+     */
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        //the guard bit limits the rank to 64 - precision + 1
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        byte current = (byte) REGISTER.getVolatile(registers, index);
+        while (current < rank) {
+            byte witness = (byte) REGISTER.compareAndExchange(registers, index, current, rank);
+            if (witness == current) {
+                return;
+            }
+            current = witness;
+        }
+    }
+
+    /**
+     * Estimate the number of distinct values added.
+     *
+     * @return The estimated cardinality.
+     */
+    public long estimate() {
+        return estimate(precision, registers);
+    }
+
+    /**
+     * Estimate the number of distinct values added to any of the provided
+     * estimators, which all must use the same precision.
+     *
+     * @param estimators The estimators.
+     *
+     * @return The estimated cardinality of the union.
+     */
+    public static long estimateUnion(Collection<HyperLogLog> estimators) {
+        if (estimators.isEmpty()) {
+            return 0;
+        }
+        int precision = estimators.iterator().next().precision;
+        byte[] union = new byte[1 << precision];
+        for (HyperLogLog estimator : estimators) {
+            if (estimator.precision != precision) {
+                throw new IllegalArgumentException("Estimators must use the same precision.");
+            }
+            for (int i = 0; i < union.length; i++) {
+                union[i] = (byte) Math.max(union[i], (byte) REGISTER.getOpaque(estimator.registers, i));
+            }
+        }
+        return estimate(precision, union);
+    }
+
+    private static long estimate(int precision, byte[] registers) {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < m; i++) {
+            byte rank = (byte) REGISTER.getOpaque(registers, i);
+            sum += Math.scalb(1.0, -rank);
+            if (rank == 0) {
+                zeros++;
+            }
+        }
+        double alpha = switch (precision) {
+            case 4 ->
+                0.673;
+            case 5 ->
+                0.697;
+            case 6 ->
+                0.709;
+            default ->
+                0.7213 / (1.0 + 1.079 / m);
+        };
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            //linear counting for small cardinalities
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+}
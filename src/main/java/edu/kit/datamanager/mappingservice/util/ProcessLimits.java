@@ -0,0 +1,45 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.util;
+
+/**
+ * Resource limits of a process started via ShellRunnerUtil. The limits are
+ * set as resource limits of the process and are inherited by all processes it
+ * starts.
+ *
+ * @param cpuTime The CPU time in seconds the process may use or 0 for
+ * unlimited. Processes exceeding this time are killed.
+ * @param memory The size of the address space in bytes the process may use or
+ * 0 for unlimited. Allocations exceeding this size fail.
+ *
+ * @author jejkal
+ */
+public record ProcessLimits(long cpuTime, long memory) {
+
+    /**
+     * No limits at all.
+     */
+    public static final ProcessLimits NONE = new ProcessLimits(0, 0);
+
+    /**
+     * Check whether at least one limit is set.
+     *
+     * @return TRUE if CPU time or memory are limited.
+     */
+    public boolean isLimited() {
+        return cpuTime > 0 || memory > 0;
+    }
+}
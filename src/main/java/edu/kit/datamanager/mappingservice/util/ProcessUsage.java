@@ -0,0 +1,112 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resource usage of a process and its descendants. The usage is sampled while
+ * the process is running, as it is not available anymore after the process
+ * has exited. The CPU time is obtained via ProcessHandle, the peak resident
+ * memory is only available on Linux, where it is read from /proc. Thus, usage
+ * caused after the last sample, e.g., by very short-lived processes, is not
+ * covered.
+ *
+ * Instances are not thread-safe.
+ *
+ * @author jejkal
+ */
+final class ProcessUsage {
+
+    private final ProcessHandle process;
+    /**
+     * CPU time in nanoseconds per pid.
+     */
+    private final Map<Long, Long> cpuTimes = new HashMap<>();
+    /**
+     * Peak resident memory in bytes per pid.
+     */
+    private final Map<Long, Long> peakResidentMemory = new HashMap<>();
+
+    ProcessUsage(ProcessHandle process) {
+        this.process = process;
+    }
+
+    /**
+     * Sample the usage of the process and all its running descendants.
+     */
+    void sample() {
+        sample(process);
+        process.descendants().forEach(this::sample);
+    }
+
+    private void sample(ProcessHandle handle) {
+        handle.info().totalCpuDuration().ifPresent(cpuTime -> cpuTimes.merge(handle.pid(), cpuTime.toNanos(), Math::max));
+        long memory = peakResidentMemoryOf(handle.pid());
+        if (memory >= 0) {
+            peakResidentMemory.merge(handle.pid(), memory, Math::max);
+        }
+    }
+
+    /**
+     * Get the CPU time used by the process and its descendants.
+     *
+     * @return The CPU time in nanoseconds.
+     */
+    long getCpuTime() {
+        return cpuTimes.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Get the sum of the peak resident memory of the process and its
+     * descendants.
+     *
+     * @return The memory in bytes or -1 if it could not be determined.
+     */
+    long getMaxResidentMemory() {
+        if (peakResidentMemory.isEmpty()) {
+            return -1;
+        }
+        return peakResidentMemory.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Read the peak resident memory of a process from /proc.
+     *
+     * @param pid The pid of the process.
+     *
+     * @return The memory in bytes or -1 if it cannot be determined.
+     */
+    private static long peakResidentMemoryOf(long pid) {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmHWM:")) {
+                    //format: 'VmHWM:     12345 kB'
+                    String[] split = line.trim().split("\\s+");
+                    return Long.parseLong(split[1]) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            //not on Linux or the process has exited in the meantime
+        }
+        return -1;
+    }
+}
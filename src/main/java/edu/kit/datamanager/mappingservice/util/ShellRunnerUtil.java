@@ -16,18 +16,35 @@ package edu.kit.datamanager.mappingservice.util;
 
 import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
 import edu.kit.datamanager.mappingservice.exception.BadExitCodeException;
+import edu.kit.datamanager.mappingservice.plugins.IMappingPlugin;
 import edu.kit.datamanager.mappingservice.plugins.MappingPluginException;
 import edu.kit.datamanager.mappingservice.plugins.MappingPluginState;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 /**
- * Utility class for running shell scripts.
+ * Utility class for running shell scripts. On timeout or interruption, the
+ * started process and all its descendants are killed. Processes may be
+ * started with CPU time and memory limits, which are applied via prlimit if
+ * available or via the ulimit builtin of /bin/sh otherwise. The CPU time,
+ * peak resident memory and exit status of each process are published as
+ * metrics.
  *
  * @author maximilianiKIT
  */
@@ -35,6 +52,39 @@ public class ShellRunnerUtil {
 
     private static ApplicationProperties configuration;
 
+    private static MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    /**
+     * Process metrics per plugin and exit status, registered on first use.
+     */
+    private static final Map<UsageMetersKey, UsageMeters> usageMeters = new ConcurrentHashMap<>();
+
+    /**
+     * CPU time limits configured per plugin id or name.
+     */
+    private static Map<String, Long> cpuTimeLimits = Map.of();
+
+    /**
+     * Memory limits configured per plugin id or name.
+     */
+    private static Map<String, Long> memoryLimits = Map.of();
+
+    /**
+     * Interval in milliseconds in which the resource usage of a running
+     * process is sampled.
+     */
+    private static final long SAMPLE_INTERVAL = 100;
+
+    /**
+     * Value of the plugin tag of metrics for processes not started on behalf
+     * of a plugin.
+     */
+    public static final String NO_PLUGIN = "none";
+
+    private static final String[] PRLIMIT_LOCATIONS = {"/usr/bin/prlimit", "/bin/prlimit"};
+
+    private static final String SHELL = "/bin/sh";
+
     /**
      * Logger for this class.
      */
@@ -42,6 +92,65 @@ public class ShellRunnerUtil {
 
     public static void init(ApplicationProperties configuration) {
         ShellRunnerUtil.configuration = configuration;
+        cpuTimeLimits = parseLimits(configuration.getProcessCpuTimeLimits());
+        memoryLimits = parseLimits(configuration.getProcessMemoryLimits());
+    }
+
+    /**
+     * Initialize the utility and publish process metrics via the provided
+     * registry.
+     *
+     * @param configuration The application properties.
+     * @param meterRegistry The registry used to publish process metrics.
+     */
+    public static void init(ApplicationProperties configuration, MeterRegistry meterRegistry) {
+        init(configuration);
+        ShellRunnerUtil.meterRegistry = meterRegistry;
+        //meters registered with a previous registry must not be used anymore
+        usageMeters.clear();
+    }
+
+    /**
+     * Get the resource limits of processes started by a plugin. The limits
+     * configured for the plugin id, the plugin name or all plugins are used,
+     * in this order.
+     *
+     * @param plugin The plugin.
+     *
+     * @return The limits.
+     */
+    public static ProcessLimits limitsOf(IMappingPlugin plugin) {
+        if (configuration == null) {
+            return ProcessLimits.NONE;
+        }
+        long cpuTime = cpuTimeLimits.getOrDefault(plugin.id(), cpuTimeLimits.getOrDefault(plugin.name(), configuration.getProcessCpuTimeLimit()));
+        long memory = memoryLimits.getOrDefault(plugin.id(), memoryLimits.getOrDefault(plugin.name(), configuration.getProcessMemoryLimit()));
+        return new ProcessLimits(cpuTime, memory);
+    }
+
+    /**
+     * Start a thread copying the output of a process, e.g., its stdout or
+     * stderr. If virtual threads are enabled, a virtual thread is used, as
+     * these threads mostly block on I/O. Otherwise, a platform thread is
+     * started. Virtual threads are always daemon threads, which is safe for
+     * pumps of processes whose caller joins the pump threads before
+     * returning, e.g., in run(), as the caller itself keeps the JVM alive.
+     *
+     * @param name The name of the thread.
+     * @param daemon TRUE if a platform thread should not prevent the JVM from
+     * exiting, e.g., for long-living worker processes.
+     * @param task The task copying the stream.
+     *
+     * @return The started thread.
+     */
+    public static Thread startStreamPump(String name, boolean daemon, Runnable task) {
+        if (configuration != null && configuration.isVirtualThreadsEnabled()) {
+            return Thread.ofVirtual().name(name).start(task);
+        }
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(daemon);
+        thread.start();
+        return thread;
     }
 
     /**
@@ -98,6 +207,59 @@ public class ShellRunnerUtil {
      * @throws MappingPluginException If an error occurs.
      */
     public static MappingPluginState run(OutputStream output, OutputStream error, int timeOutInSeconds, String... command) throws MappingPluginException {
+        return run(NO_PLUGIN, ProcessLimits.NONE, output, error, timeOutInSeconds, command);
+    }
+
+    /**
+     * This method executes a shell command on behalf of a plugin using the
+     * resource limits configured for the plugin.
+     *
+     * @param plugin The plugin executing the command.
+     * @param command The command to execute without spaces.
+     * @return State of the execution.
+     * @throws MappingPluginException If an error occurs.
+     */
+    public static MappingPluginState run(IMappingPlugin plugin, String... command) throws MappingPluginException {
+        return run(plugin, System.out, System.err, command);
+    }
+
+    /**
+     * This method executes a shell command on behalf of a plugin using the
+     * resource limits configured for the plugin and writes the output and
+     * errors to the given streams.
+     *
+     * @param plugin The plugin executing the command.
+     * @param output OutputStream to redirect the output to.
+     * @param error OutputStream to redirect the errors to.
+     * @param command The command to execute without spaces.
+     * @return State of the execution.
+     * @throws MappingPluginException If an error occurs.
+     */
+    public static MappingPluginState run(IMappingPlugin plugin, OutputStream output, OutputStream error, String... command) throws MappingPluginException {
+        return run(plugin.id(), limitsOf(plugin), output, error, configuration.getExecutionTimeout(), command);
+    }
+
+    /**
+     * This method executes a shell command with resource limits and writes the
+     * output and errors to the given streams. If the command does not return
+     * in time or if the calling thread is interrupted, the process and all its
+     * descendants are killed.
+     *
+     * @param pluginId The id of the plugin executing the command, used to tag
+     * metrics, or NO_PLUGIN.
+     * @param limits The resource limits of the process.
+     * @param output OutputStream to redirect the output to.
+     * @param error OutputStream to redirect the errors to.
+     * @param timeOutInSeconds Time in seconds when the script should throw a
+     * timeout exception.
+     * @param command The command to execute without spaces.
+     *
+     * @return State of the execution only if execution was successful.
+     * Otherwise, MappingPluginException is thrown.
+     *
+     * @throws MappingPluginException If an error occurs.
+     */
+    public static MappingPluginState run(String pluginId, ProcessLimits limits, OutputStream output, OutputStream error, int timeOutInSeconds, String... command) throws MappingPluginException {
         if (output == null) {
             throw new MappingPluginException(MappingPluginState.INVALID_INPUT(), "Output stream is null.");
         }
@@ -115,16 +277,22 @@ public class ShellRunnerUtil {
 
         MappingPluginState returnValue = MappingPluginState.SUCCESS();
         ByteArrayOutputStream errorBuffer = new ByteArrayOutputStream();
+        Process p = null;
+        ProcessUsage usage = null;
+        String exitStatus = null;
 
         try {
-            ProcessBuilder pb = new ProcessBuilder(command);
+            ProcessBuilder pb = new ProcessBuilder(limitedCommand((limits != null) ? limits : ProcessLimits.NONE, command));
             LOGGER.trace("Starting process.");
-            Process p = pb.start();
+            p = pb.start();
+            Process process = p;
+            usage = new ProcessUsage(p.toHandle());
+            usage.sample();
             LOGGER.trace("Connecting streams.");
 
             // Pipe stdout to provided OutputStream
-            Thread stdoutThread = new Thread(() -> {
-                try (InputStream is = p.getInputStream()) {
+            Thread stdoutThread = startStreamPump("process-" + p.pid() + "-stdout", false, () -> {
+                try (InputStream is = process.getInputStream()) {
                     is.transferTo(output);
                 } catch (IOException e) {
                     LOGGER.error("Error piping stdout", e);
@@ -132,21 +300,24 @@ public class ShellRunnerUtil {
             });
 
             // Buffer stderr into ByteArrayOutputStream
-            Thread stderrThread = new Thread(() -> {
-                try (InputStream is = p.getErrorStream()) {
+            Thread stderrThread = startStreamPump("process-" + p.pid() + "-stderr", false, () -> {
+                try (InputStream is = process.getErrorStream()) {
                     is.transferTo(errorBuffer);
                 } catch (IOException e) {
                     LOGGER.error("Error buffering stderr", e);
                 }
             });
 
-            stdoutThread.start();
-            stderrThread.start();
-
             LOGGER.trace("Waiting for process to finish.");
-            if (!p.waitFor(timeOutInSeconds, TimeUnit.SECONDS)) {
-                throw new TimeoutException("Process did not return within " + timeOutInSeconds + " seconds.");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeOutInSeconds);
+            while (!p.waitFor(Math.min(SAMPLE_INTERVAL, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())), TimeUnit.MILLISECONDS)) {
+                if (System.nanoTime() - deadline >= 0) {
+                    exitStatus = "timeout";
+                    throw new TimeoutException("Process did not return within " + timeOutInSeconds + " seconds.");
+                }
+                usage.sample();
             }
+            exitStatus = Integer.toString(p.exitValue());
             stdoutThread.join(); // wait for streams to finish
             stderrThread.join();
 
@@ -163,6 +334,10 @@ public class ShellRunnerUtil {
             returnValue = MappingPluginState.TIMEOUT();
             returnValue.setDetails(te.getMessage());
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (exitStatus == null) {
+                exitStatus = "interrupted";
+            }
             LOGGER.error("Command execution has been interrupted.", e);
             returnValue = MappingPluginState.UNKNOWN_ERROR();
             returnValue.setDetails("Command execution has been interrupted.");
@@ -171,6 +346,12 @@ public class ShellRunnerUtil {
             returnValue = MappingPluginState.BAD_EXIT_CODE();
             returnValue.setDetails("Mapping process returned with exit code " + e.getExitCode() + ". StdErr:\n" + errorBuffer);
         } finally {
+            if (p != null && p.isAlive()) {
+                destroyProcessTree(p);
+            }
+            if (usage != null && exitStatus != null) {
+                recordUsage(pluginId, exitStatus, usage);
+            }
             //write output puffer to provided output stream
             LOGGER.trace("Process finished. Forwarding collected error output \n{}\nto provided error stream.", errorBuffer);
             try {
@@ -186,4 +367,123 @@ public class ShellRunnerUtil {
         }
         return returnValue;
     }
+
+    /**
+     * Kill a process and all its descendants. The descendants are determined
+     * before the process is killed, as they are not related to the process
+     * anymore afterwards.
+     *
+     * @param process The process to kill.
+     */
+    private static void destroyProcessTree(Process process) {
+        List<ProcessHandle> descendants = process.descendants().toList();
+        LOGGER.debug("Killing process {} and {} descendant(s).", process.pid(), descendants.size());
+        process.destroyForcibly();
+        descendants.forEach(ProcessHandle::destroyForcibly);
+        try {
+            process.waitFor(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Prefix a command such that it is executed with the provided limits. If
+     * limits are set but neither prlimit nor /bin/sh is available, e.g., on
+     * Windows, the command is executed without limits.
+     *
+     * @param limits The resource limits.
+     * @param command The command.
+     *
+     * @return The command to execute.
+     */
+    static List<String> limitedCommand(ProcessLimits limits, String... command) {
+        List<String> result = new ArrayList<>();
+        if (limits.isLimited()) {
+            String prlimit = Arrays.stream(PRLIMIT_LOCATIONS).filter(location -> Files.isExecutable(Path.of(location))).findFirst().orElse(null);
+            if (prlimit != null) {
+                result.add(prlimit);
+                if (limits.cpuTime() > 0) {
+                    result.add("--cpu=" + limits.cpuTime());
+                }
+                if (limits.memory() > 0) {
+                    result.add("--as=" + limits.memory());
+                }
+                result.add("--");
+            } else if (Files.isExecutable(Path.of(SHELL))) {
+                StringBuilder script = new StringBuilder();
+                if (limits.cpuTime() > 0) {
+                    script.append("ulimit -t ").append(limits.cpuTime()).append(" && ");
+                }
+                if (limits.memory() > 0) {
+                    //ulimit expects the size in kB
+                    script.append("ulimit -v ").append(Math.max(1, limits.memory() / 1024)).append(" && ");
+                }
+                script.append("exec \"$@\"");
+                result.addAll(List.of(SHELL, "-c", script.toString(), "sh"));
+            } else {
+                LOGGER.warn("Neither prlimit nor {} available. Running command without resource limits.", SHELL);
+            }
+        }
+        result.addAll(Arrays.asList(command));
+        return result;
+    }
+
+    /**
+     * Publish the resource usage of a process.
+     *
+     * @param pluginId The id of the plugin which started the process.
+     * @param exitStatus The exit code, 'timeout' or 'interrupted'.
+     * @param usage The sampled resource usage.
+     */
+    private static void recordUsage(String pluginId, String exitStatus, ProcessUsage usage) {
+        String plugin = (pluginId != null) ? pluginId : NO_PLUGIN;
+        UsageMeters meters = usageMeters.computeIfAbsent(new UsageMetersKey(plugin, exitStatus), ShellRunnerUtil::createUsageMeters);
+        meters.cpuTime().record(usage.getCpuTime(), TimeUnit.NANOSECONDS);
+        long maxResidentMemory = usage.getMaxResidentMemory();
+        if (maxResidentMemory >= 0) {
+            meters.maxResidentMemory().record(maxResidentMemory);
+        }
+    }
+
+    private static UsageMeters createUsageMeters(UsageMetersKey key) {
+        Timer cpuTime = Timer.builder("mapping_service.process.cpu_time")
+                .description("CPU time of processes started by mapping plugins, including their descendants.")
+                .tag("plugin", key.plugin())
+                .tag("exit_status", key.exitStatus())
+                .register(meterRegistry);
+        DistributionSummary maxResidentMemory = DistributionSummary.builder("mapping_service.process.max_rss")
+                .description("Peak resident memory of processes started by mapping plugins, including their descendants.")
+                .baseUnit("bytes")
+                .tag("plugin", key.plugin())
+                .tag("exit_status", key.exitStatus())
+                .register(meterRegistry);
+        return new UsageMeters(cpuTime, maxResidentMemory);
+    }
+
+    private record UsageMetersKey(String plugin, String exitStatus) {
+    }
+
+    private record UsageMeters(Timer cpuTime, DistributionSummary maxResidentMemory) {
+    }
+
+    private static Map<String, Long> parseLimits(String[] entries) {
+        Map<String, Long> result = new HashMap<>();
+        if (entries == null) {
+            return result;
+        }
+        for (String entry : entries) {
+            int separator = entry.lastIndexOf('=');
+            try {
+                long limit = Long.parseLong(entry.substring(separator + 1).trim());
+                if (separator < 1 || limit < 0) {
+                    throw new IllegalArgumentException();
+                }
+                result.put(entry.substring(0, separator).trim(), limit);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Invalid process limit '{}'. Expected <plugin>=<limit> with limit >= 0. Ignoring it.", entry);
+            }
+        }
+        return result;
+    }
 }
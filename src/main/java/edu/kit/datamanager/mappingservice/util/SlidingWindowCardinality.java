@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Estimation of the number of distinct values added within a sliding time
+ * window, e.g., the number of unique users within the last hour. The window is
+ * split into a fixed number of slots, each holding a HyperLogLog estimator.
+ * Values are added to the slot of the current time, the estimate covers all
+ * slots within the window. Thus, the window slides in steps of one slot and
+ * the memory footprint is fixed. Adding is lock-free.
+ *
+ * @author jejkal
+ */
+public final class SlidingWindowCardinality {
+
+    /**
+     * The default number of slots per window.
+     */
+    public static final int DEFAULT_SLOTS = 12;
+
+    private final Duration window;
+    private final long slotMillis;
+    private final LongSupplier clock;
+    private final AtomicReferenceArray<Slot> slots;
+
+    /**
+     * Estimator for the values of one slot, where epoch is the number of the
+     * slot since 1970-01-01.
+     */
+    private record Slot(long epoch, HyperLogLog estimator) {
+    }
+
+    /**
+     * Create an estimator using DEFAULT_SLOTS and the system clock.
+     *
+     * @param window The duration of the window.
+     */
+    public SlidingWindowCardinality(Duration window) {
+        this(window, DEFAULT_SLOTS, System::currentTimeMillis);
+    }
+
+    /**
+     * Create an estimator.
+     *
+     * @param window The duration of the window.
+     * @param slotCount The number of slots the window is split into.
+     * @param clock The clock providing the current time in milliseconds.
+     */
+    public SlidingWindowCardinality(Duration window, int slotCount, LongSupplier clock) {
+        if (slotCount < 1 || window.toMillis() < slotCount) {
+            throw new IllegalArgumentException("Window of " + window + " cannot be split into " + slotCount + " slot(s).");
+        }
+        this.window = window;
+        this.slotMillis = window.toMillis() / slotCount;
+        this.clock = clock;
+        this.slots = new AtomicReferenceArray<>(slotCount);
+    }
+
+    /**
+     * Get the duration of the window.
+     *
+     * @return The window.
+     */
+    public Duration getWindow() {
+        return window;
+    }
+
+    /**
+     * Add a value.
+     *
+     * @param hash A 64-bit hash of the value.
+     */
+    public void add(long hash) {
+        long epoch = clock.getAsLong() / slotMillis;
+        int index = (int) (epoch % slots.length());
+        Slot slot = slots.get(index);
+        while (slot == null || slot.epoch() < epoch) {
+            //the slot was last used one window ago or earlier, start a new estimator
+            Slot fresh = new Slot(epoch, new HyperLogLog());
+            Slot witness = slots.compareAndExchange(index, slot, fresh);
+            slot = (witness == slot) ? fresh : witness;
+        }
+        slot.estimator().add(hash);
+    }
+
+    /**
+     * Estimate the number of distinct values added within the window.
+     *
+     * @return The estimated cardinality.
+     */
+    public long estimate() {
+        long epoch = clock.getAsLong() / slotMillis;
+        List<HyperLogLog> current = new ArrayList<>(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.epoch() > epoch - slots.length() && slot.epoch() <= epoch) {
+                current.add(slot.estimator());
+            }
+        }
+        return HyperLogLog.estimateUnion(current);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.impl;
+
+import edu.kit.datamanager.mappingservice.MappingServiceApplication;
+import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
+import edu.kit.datamanager.mappingservice.dao.IJobRecordDao;
+import edu.kit.datamanager.mappingservice.domain.JobRecord;
+import edu.kit.datamanager.mappingservice.domain.JobStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = MappingServiceApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"spring.datasource.url=jdbc:h2:mem:db_jobs;DB_CLOSE_DELAY=-1"})
+public class JobManagerTest {
+
+    @Autowired
+    ApplicationProperties applicationProperties;
+
+    @Autowired
+    IJobRecordDao jobRecordDao;
+
+    @BeforeEach
+    public void setUp() {
+        jobRecordDao.deleteAll();
+    }
+
+    private Path createOutput(String jobId) throws IOException {
+        Path jobOutput = Files.createDirectories(new File(applicationProperties.getJobOutputLocation().getPath()).toPath());
+        return Files.writeString(jobOutput.resolve(jobId + ".json"), "{}");
+    }
+
+    @Test
+    public void testFinishedJobSurvivesRestart() throws Exception {
+        JobManager jobManager = new JobManager(jobRecordDao, applicationProperties);
+        String jobId = UUID.randomUUID().toString();
+        Path output = createOutput(jobId);
+        CompletableFuture<JobStatus> job = new CompletableFuture<>();
+        jobManager.putJob(jobId, "mapping", job);
+        assertFalse(jobManager.getJob(jobId).isDone());
+        assertEquals(JobStatus.STATUS.SUBMITTED, jobRecordDao.findById(jobId).get().getStatus());
+        jobManager.startJob(jobId);
+        assertEquals(JobStatus.STATUS.RUNNING, jobRecordDao.findById(jobId).get().getStatus());
+
+        job.complete(JobStatus.complete(jobId, JobStatus.STATUS.SUCCEEDED, output.toFile()));
+
+        JobManager restarted = new JobManager(jobRecordDao, applicationProperties);
+        restarted.recoverInterruptedJobs();
+        JobStatus status = restarted.getJob(jobId).get();
+        assertEquals(JobStatus.STATUS.SUCCEEDED, status.getStatus());
+        assertEquals(output.toFile().getAbsoluteFile(), status.getJobOutput());
+        Files.deleteIfExists(output);
+    }
+
+    @Test
+    public void testJobStartedBeforeSubmission() {
+        JobManager jobManager = new JobManager(jobRecordDao, applicationProperties);
+        String jobId = UUID.randomUUID().toString();
+        jobManager.startJob(jobId);
+        jobManager.putJob(jobId, "mapping", new CompletableFuture<>());
+        assertEquals(JobStatus.STATUS.RUNNING, jobRecordDao.findById(jobId).get().getStatus());
+    }
+
+    @Test
+    public void testDeletedJobIsNotRecreated() {
+        JobManager jobManager = new JobManager(jobRecordDao, applicationProperties);
+        String jobId = UUID.randomUUID().toString();
+        CompletableFuture<JobStatus> job = new CompletableFuture<>();
+        jobManager.putJob(jobId, "mapping", job);
+        jobManager.removeJob(jobId);
+
+        job.complete(JobStatus.error(jobId, JobStatus.STATUS.FAILED, "failed"));
+        assertFalse(jobRecordDao.existsById(jobId));
+    }
+
+    @Test
+    public void testRunningJobIsFailedAfterRestart() throws Exception {
+        JobManager jobManager = new JobManager(jobRecordDao, applicationProperties);
+        String jobId = UUID.randomUUID().toString();
+        jobManager.putJob(jobId, "mapping", new CompletableFuture<>());
+
+        JobManager restarted = new JobManager(jobRecordDao, applicationProperties);
+        restarted.recoverInterruptedJobs();
+        JobStatus status = restarted.getJob(jobId).get();
+        assertEquals(JobStatus.STATUS.FAILED, status.getStatus());
+        assertNotNull(status.getError());
+    }
+
+    @Test
+    public void testJobOfOtherInstanceIsNotFailedAfterRestart() throws Exception {
+        applicationProperties.setInstanceId("other-instance");
+        JobManager otherInstance;
+        try {
+            otherInstance = new JobManager(jobRecordDao, applicationProperties);
+        } finally {
+            applicationProperties.setInstanceId("");
+        }
+        String jobId = UUID.randomUUID().toString();
+        otherInstance.putJob(jobId, "mapping", new CompletableFuture<>());
+
+        JobManager restarted = new JobManager(jobRecordDao, applicationProperties);
+        restarted.recoverInterruptedJobs();
+        assertEquals(JobStatus.STATUS.SUBMITTED, jobRecordDao.findById(jobId).get().getStatus());
+    }
+
+    @Test
+    public void testEvictionByCount() throws Exception {
+        applicationProperties.setJobMaxCount(1);
+        try {
+            JobManager jobManager = new JobManager(jobRecordDao, applicationProperties);
+            String firstJob = UUID.randomUUID().toString();
+            Path firstOutput = createOutput(firstJob);
+            jobManager.putJob(firstJob, "mapping", CompletableFuture.completedFuture(JobStatus.complete(firstJob, JobStatus.STATUS.SUCCEEDED, firstOutput.toFile())));
+            String secondJob = UUID.randomUUID().toString();
+            Path secondOutput = createOutput(secondJob);
+            jobManager.putJob(secondJob, "mapping", CompletableFuture.completedFuture(JobStatus.complete(secondJob, JobStatus.STATUS.SUCCEEDED, secondOutput.toFile())));
+
+            assertNull(jobManager.getJob(firstJob));
+            assertFalse(Files.exists(firstOutput));
+            assertNotNull(jobManager.getJob(secondJob));
+            assertTrue(Files.exists(secondOutput));
+            Files.deleteIfExists(secondOutput);
+        } finally {
+            applicationProperties.setJobMaxCount(10000);
+        }
+    }
+
+    @Test
+    public void testEvictionByTimeToLive() throws Exception {
+        JobManager jobManager = new JobManager(jobRecordDao, applicationProperties);
+        String jobId = UUID.randomUUID().toString();
+        Path output = createOutput(jobId);
+        JobRecord record = new JobRecord();
+        record.setJobId(jobId);
+        record.setMappingId("mapping");
+        record.setStatus(JobStatus.STATUS.SUCCEEDED);
+        record.setOutputFile(output.toString());
+        record.setCreated(Instant.now().minusSeconds(applicationProperties.getJobTimeToLive() + 120));
+        record.setFinished(Instant.now().minusSeconds(applicationProperties.getJobTimeToLive() + 60));
+        jobRecordDao.save(record);
+
+        jobManager.evictExpiredJobs();
+        assertNull(jobManager.getJob(jobId));
+        assertFalse(Files.exists(output));
+    }
+
+    @Test
+    public void testDownloadedJobIsNotEvicted() throws Exception {
+        JobManager jobManager = new JobManager(jobRecordDao, applicationProperties);
+        String jobId = UUID.randomUUID().toString();
+        Path output = createOutput(jobId);
+        JobRecord record = new JobRecord();
+        record.setJobId(jobId);
+        record.setMappingId("mapping");
+        record.setStatus(JobStatus.STATUS.SUCCEEDED);
+        record.setOutputFile(output.toString());
+        record.setCreated(Instant.now().minusSeconds(applicationProperties.getJobTimeToLive() + 120));
+        record.setFinished(Instant.now().minusSeconds(applicationProperties.getJobTimeToLive() + 60));
+        jobRecordDao.save(record);
+
+        jobManager.startDownload(jobId);
+        jobManager.evictExpiredJobs();
+        assertNotNull(jobManager.getJob(jobId));
+        assertTrue(Files.exists(output));
+        Files.deleteIfExists(output);
+    }
+}
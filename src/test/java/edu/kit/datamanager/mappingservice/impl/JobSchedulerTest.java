@@ -0,0 +1,185 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.impl;
+
+import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
+import edu.kit.datamanager.mappingservice.domain.JobPriority;
+import edu.kit.datamanager.mappingservice.domain.JobStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobSchedulerTest {
+
+    /**
+     * Jobs passed to the executor, which are only run on request.
+     */
+    private final List<Runnable> started = new ArrayList<>();
+    /**
+     * Names of the jobs in order of execution.
+     */
+    private final List<String> executed = new ArrayList<>();
+    private ApplicationProperties applicationProperties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        started.clear();
+        executed.clear();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.setAsyncCorePoolSize(1);
+        applicationProperties.setAsyncMaxPoolSize(1);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private JobScheduler scheduler() {
+        return new JobScheduler(started::add, applicationProperties, meterRegistry);
+    }
+
+    private CompletableFuture<JobStatus> schedule(JobScheduler scheduler, String principal, String name, JobPriority priority) {
+        return scheduler.schedule(principal, "mapping", priority, () -> {
+            executed.add(name);
+            return JobStatus.status(name, JobStatus.STATUS.SUCCEEDED);
+        });
+    }
+
+    private void runAll() {
+        while (!started.isEmpty()) {
+            started.remove(0).run();
+        }
+    }
+
+    @Test
+    void testRoundRobinAndPriority() {
+        applicationProperties.setAsyncQueueWeights(new String[]{"alice=1"});
+        JobScheduler scheduler = scheduler();
+        schedule(scheduler, "alice", "a1", null);
+        schedule(scheduler, "alice", "a2", JobPriority.NORMAL);
+        schedule(scheduler, "alice", "a3", JobPriority.LOW);
+        schedule(scheduler, "alice", "a4", JobPriority.HIGH);
+        schedule(scheduler, "bob", "b1", JobPriority.NORMAL);
+        CompletableFuture<JobStatus> last = schedule(scheduler, "bob", "b2", JobPriority.NORMAL);
+
+        //only one job is passed to the executor at a time
+        assertEquals(1, started.size());
+        assertEquals(1, scheduler.getRunningJobs());
+        assertEquals(5, scheduler.getWaitingJobs());
+        assertEquals(3, meterRegistry.get("mapping_service.async_jobs.queue.depth").tag("queue", "alice").gauge().value());
+        //queues without configured weight are aggregated
+        assertEquals(2, meterRegistry.get("mapping_service.async_jobs.queue.depth").tag("queue", JobScheduler.OTHER).gauge().value());
+        assertNull(meterRegistry.find("mapping_service.async_jobs.queue.depth").tag("queue", "bob").gauge());
+
+        runAll();
+        assertEquals(List.of("a1", "a4", "b1", "a2", "b2", "a3"), executed);
+        assertEquals("b2", last.join().getJobId());
+        assertEquals(0, scheduler.getRunningJobs());
+        assertEquals(0, scheduler.getWaitingJobs());
+        assertEquals(0, meterRegistry.get("mapping_service.async_jobs.queue.depth").tag("queue", "alice").gauge().value());
+        assertEquals(6, meterRegistry.get("mapping_service.async_jobs.queue.wait").tag("queue", "alice").timer().count() + meterRegistry.get("mapping_service.async_jobs.queue.wait").tag("queue", JobScheduler.OTHER).timer().count());
+        assertNull(meterRegistry.find("mapping_service.async_jobs.queue.wait").tag("queue", "bob").timer());
+    }
+
+    @Test
+    void testWeights() {
+        applicationProperties.setAsyncQueueWeights(new String[]{"alice=2", "invalid", "bob=0"});
+        JobScheduler scheduler = scheduler();
+        schedule(scheduler, "alice", "a1", null);
+        schedule(scheduler, "alice", "a2", null);
+        schedule(scheduler, "alice", "a3", null);
+        schedule(scheduler, "alice", "a4", null);
+        schedule(scheduler, "bob", "b1", null);
+        schedule(scheduler, "bob", "b2", null);
+
+        runAll();
+        assertEquals(List.of("a1", "a2", "a3", "b1", "a4", "b2"), executed);
+    }
+
+    @Test
+    void testFairShareByMapping() {
+        applicationProperties.setAsyncFairShare("mapping");
+        applicationProperties.setAsyncQueueWeights(new String[]{"m1=1"});
+        JobScheduler scheduler = scheduler();
+        for (String name : List.of("m1a", "m1b", "m1c", "m2a")) {
+            scheduler.schedule("alice", name.substring(0, 2), null, () -> {
+                executed.add(name);
+                return null;
+            });
+        }
+        assertEquals(2, meterRegistry.get("mapping_service.async_jobs.queue.depth").tag("queue", "m1").gauge().value());
+        assertEquals(1, meterRegistry.get("mapping_service.async_jobs.queue.depth").tag("queue", JobScheduler.OTHER).gauge().value());
+
+        runAll();
+        assertEquals(List.of("m1a", "m1b", "m2a", "m1c"), executed);
+    }
+
+    @Test
+    void testMaxJobsPerPrincipal() {
+        applicationProperties.setAsyncMaxPoolSize(2);
+        applicationProperties.setAsyncMaxJobsPerPrincipal(1);
+        JobScheduler scheduler = scheduler();
+        schedule(scheduler, "alice", "a1", null);
+        schedule(scheduler, "alice", "a2", null);
+        schedule(scheduler, "bob", "b1", null);
+        schedule(scheduler, "bob", "b2", null);
+
+        //one job per principal, although alice's queue has the next turn
+        assertEquals(2, started.size());
+        started.remove(1).run();
+        assertEquals(List.of("b1"), executed);
+        //bob's next job is started, as alice is still at her limit
+        assertEquals(2, started.size());
+        runAll();
+        assertEquals(List.of("b1", "a1", "b2", "a2"), executed);
+    }
+
+    @Test
+    void testQueueCapacity() {
+        applicationProperties.setAsyncQueueCapacity(1);
+        JobScheduler scheduler = scheduler();
+        schedule(scheduler, "alice", "a1", null);
+        schedule(scheduler, "alice", "a2", null);
+        assertThrows(TaskRejectedException.class, () -> schedule(scheduler, "bob", "b1", null));
+        assertEquals(1, scheduler.getWaitingJobs());
+
+        applicationProperties.setAsyncRejectionPolicy("CALLER_RUNS");
+        JobScheduler callerRuns = scheduler();
+        schedule(callerRuns, "alice", "c1", null);
+        schedule(callerRuns, "alice", "c2", null);
+        CompletableFuture<JobStatus> job = schedule(callerRuns, "bob", "c3", null);
+        assertTrue(job.isDone());
+        assertEquals(List.of("c3"), executed);
+    }
+
+    @Test
+    void testFailingJob() {
+        JobScheduler scheduler = scheduler();
+        CompletableFuture<JobStatus> failing = scheduler.schedule(null, "mapping", null, () -> {
+            throw new IllegalStateException("failed");
+        });
+        CompletableFuture<JobStatus> next = schedule(scheduler, null, "a1", null);
+        runAll();
+        assertTrue(failing.isCompletedExceptionally());
+        assertEquals("a1", next.join().getJobId());
+        assertNotNull(meterRegistry.get("mapping_service.async_jobs.queue.wait").tag("queue", JobScheduler.ANONYMOUS).timer());
+    }
+}
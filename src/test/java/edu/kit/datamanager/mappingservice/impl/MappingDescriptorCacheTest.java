@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.impl;
+
+import edu.kit.datamanager.mappingservice.domain.MappingDescriptor;
+import edu.kit.datamanager.mappingservice.domain.MappingRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappingDescriptorCacheTest {
+
+    private final Map<String, MappingRecord> records = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        records.clear();
+        loads.set(0);
+    }
+
+    private Optional<MappingRecord> load(String mappingId) {
+        loads.incrementAndGet();
+        return Optional.ofNullable(records.get(mappingId));
+    }
+
+    private void putRecord(String mappingId, String documentHash) {
+        MappingRecord mappingRecord = new MappingRecord();
+        mappingRecord.setMappingId(mappingId);
+        mappingRecord.setMappingType("JOLT_1.0.0");
+        mappingRecord.setMappingDocumentUri("/tmp/" + mappingId + ".mapping");
+        mappingRecord.setDocumentHash(documentHash);
+        records.put(mappingId, mappingRecord);
+    }
+
+    @Test
+    void testReadThrough() {
+        MappingDescriptorCache cache = new MappingDescriptorCache(this::load, 10, 300, meterRegistry);
+        putRecord("mapping", "sha256:1");
+
+        MappingDescriptor descriptor = cache.get("mapping").orElseThrow();
+        assertEquals(new MappingDescriptor("mapping", "JOLT_1.0.0", Paths.get("/tmp/mapping.mapping"), "sha256:1"), descriptor);
+        assertSame(descriptor, cache.get("mapping").orElseThrow());
+        assertEquals(1, loads.get());
+
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", MappingDescriptorCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", MappingDescriptorCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void testUnknownMappingsAreNotCached() {
+        MappingDescriptorCache cache = new MappingDescriptorCache(this::load, 10, 300, meterRegistry);
+        assertTrue(cache.get("mapping").isEmpty());
+
+        putRecord("mapping", "sha256:1");
+        assertTrue(cache.get("mapping").isPresent());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testInvalidate() {
+        MappingDescriptorCache cache = new MappingDescriptorCache(this::load, 10, 300, meterRegistry);
+        putRecord("mapping", "sha256:1");
+        assertEquals("sha256:1", cache.get("mapping").orElseThrow().documentHash());
+
+        putRecord("mapping", "sha256:2");
+        cache.invalidate("mapping");
+        assertEquals("sha256:2", cache.get("mapping").orElseThrow().documentHash());
+
+        records.remove("mapping");
+        cache.invalidate("mapping");
+        assertTrue(cache.get("mapping").isEmpty());
+    }
+
+    @Test
+    void testInvalidateWhileLoading() {
+        MappingDescriptorCache[] cache = new MappingDescriptorCache[1];
+        putRecord("mapping", "sha256:1");
+        cache[0] = new MappingDescriptorCache(mappingId -> {
+            Optional<MappingRecord> result = load(mappingId);
+            if (loads.get() == 1) {
+                //the record is updated after it was read
+                putRecord("mapping", "sha256:2");
+                cache[0].invalidate("mapping");
+            }
+            return result;
+        }, 10, 300, meterRegistry);
+
+        //the outdated record is returned, but not cached
+        assertEquals("sha256:1", cache[0].get("mapping").orElseThrow().documentHash());
+        assertEquals("sha256:2", cache[0].get("mapping").orElseThrow().documentHash());
+        assertEquals(2, loads.get());
+    }
+}
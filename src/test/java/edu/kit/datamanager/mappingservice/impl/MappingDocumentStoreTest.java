@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.impl;
+
+import edu.kit.datamanager.mappingservice.plugins.MappingDocument;
+import edu.kit.datamanager.mappingservice.plugins.MappingPluginException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappingDocumentStoreTest {
+
+    private Path mappingsDirectory;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mappingsDirectory = Files.createTempDirectory("mappingDocuments");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        FileUtils.deleteDirectory(mappingsDirectory.toFile());
+    }
+
+    private double loadedSize(String storage) {
+        return meterRegistry.get("mapping_service.mapping_documents.size").tag("storage", storage).gauge().value();
+    }
+
+    @Test
+    void testWarmUp() throws IOException, MappingPluginException {
+        String small = "[{\"operation\": \"shift\"}]";
+        String large = "{\"a\": \"" + "x".repeat(100) + "\"}";
+        Files.writeString(mappingsDirectory.resolve("small_JOLT.mapping"), small);
+        Files.writeString(mappingsDirectory.resolve("large_JOLT.mapping"), large);
+        //archived mapping documents are not loaded
+        Files.writeString(mappingsDirectory.resolve("old_JOLT.mapping_20260101_120000"), small);
+
+        MappingDocumentStore store = new MappingDocumentStore(mappingsDirectory, 64, meterRegistry);
+        store.warmUp();
+        assertEquals(2, meterRegistry.get("mapping_service.mapping_documents.count").gauge().value());
+        assertEquals(small.length(), loadedSize("heap"));
+        assertEquals(large.length(), loadedSize("mapped"));
+
+        MappingDocument smallDocument = store.get(mappingsDirectory.resolve("small_JOLT.mapping"));
+        assertTrue(smallDocument.isLoaded());
+        assertFalse(smallDocument.isMapped());
+        assertEquals(small, smallDocument.getContentAsString());
+        //the same instance is returned for each request
+        assertSame(smallDocument, store.get(mappingsDirectory.resolve("small_JOLT.mapping")));
+
+        MappingDocument largeDocument = store.get(mappingsDirectory.resolve("large_JOLT.mapping"));
+        assertTrue(largeDocument.isMapped());
+        assertEquals(large, largeDocument.getContentAsString());
+        assertEquals("sha256:" + DigestUtils.sha256Hex(large), largeDocument.getContentHash());
+        try (InputStream in = largeDocument.openStream()) {
+            assertEquals(large, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        //buffers are independent and read-only
+        assertEquals(0, largeDocument.getContent().position());
+        assertTrue(largeDocument.getContent().isReadOnly());
+    }
+
+    @Test
+    void testPutAndRemove() throws IOException, MappingPluginException {
+        MappingDocumentStore store = new MappingDocumentStore(mappingsDirectory, 64, meterRegistry);
+        Path mappingFile = mappingsDirectory.resolve("test_JOLT.mapping");
+        byte[] content = "{\"a\": 1}".getBytes(StandardCharsets.UTF_8);
+        Files.write(mappingFile, content);
+        store.put(mappingFile, content);
+
+        //the content is taken from memory, not from the file
+        Files.delete(mappingFile);
+        MappingDocument document = store.get(mappingFile);
+        assertTrue(document.isLoaded());
+        assertEquals("{\"a\": 1}", document.getContentAsString());
+        content[0] = '[';
+        assertEquals("{\"a\": 1}", document.getContentAsString());
+
+        store.remove(mappingFile);
+        assertEquals(0, meterRegistry.get("mapping_service.mapping_documents.count").gauge().value());
+        MappingPluginException ex = assertThrows(MappingPluginException.class, () -> store.get(mappingFile).load());
+        assertEquals("Failed to read mapping document.", ex.getMappingPluginState().getDetails());
+    }
+
+    @Test
+    void testDocumentOutsideOfMappingsDirectory() throws IOException, MappingPluginException {
+        MappingDocumentStore store = new MappingDocumentStore(mappingsDirectory, 64, meterRegistry);
+        Path mappingFile = Files.createTempFile("adhoc", ".mapping");
+        try {
+            Files.writeString(mappingFile, "{}");
+            MappingDocument document = store.get(mappingFile);
+            assertEquals("{}", document.getContentAsString());
+            assertNotSame(document, store.get(mappingFile));
+            assertEquals(0, meterRegistry.get("mapping_service.mapping_documents.count").gauge().value());
+        } finally {
+            Files.deleteIfExists(mappingFile);
+        }
+    }
+}
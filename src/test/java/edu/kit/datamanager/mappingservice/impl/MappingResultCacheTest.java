@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappingResultCacheTest {
+
+    private Path tempDir;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("resultCache");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileUtils.deleteDirectory(tempDir.toFile());
+    }
+
+    private Path result(String content) throws IOException {
+        Path result = Files.createTempFile(tempDir, "result", ".out");
+        Files.writeString(result, content);
+        return result;
+    }
+
+    @Test
+    void testPutAndGet() throws IOException {
+        MappingResultCache cache = new MappingResultCache(tempDir.resolve("cache"), 1024, meterRegistry);
+        String key = MappingResultCache.keyOf("input", "sha256:mapping", "plugin_1.0.0");
+        Path target = tempDir.resolve("target");
+
+        assertFalse(cache.get("mapping", key, target));
+        cache.put("mapping", key, result("{\"a\": 1}"));
+        assertTrue(cache.get("mapping", key, target));
+        assertEquals("{\"a\": 1}", Files.readString(target));
+
+        //other plugin version must not hit
+        assertFalse(cache.get("mapping", MappingResultCache.keyOf("input", "sha256:mapping", "plugin_1.0.1"), target));
+        assertEquals(1, meterRegistry.get("mapping_service.result_cache.requests").tag("result", "hit").counter().count());
+        assertEquals(2, meterRegistry.get("mapping_service.result_cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() throws IOException {
+        MappingResultCache cache = new MappingResultCache(tempDir.resolve("cache"), 10, meterRegistry);
+        Path target = tempDir.resolve("target");
+        cache.put("mapping", "a", result("aaaa"));
+        cache.put("mapping", "b", result("bbbb"));
+        //access a, so b becomes the least recently used entry
+        assertTrue(cache.get("mapping", "a", target));
+        cache.put("mapping", "c", result("cccc"));
+
+        assertTrue(cache.get("mapping", "a", target));
+        assertFalse(cache.get("mapping", "b", target));
+        assertTrue(cache.get("mapping", "c", target));
+        assertEquals(8, cache.getCurrentSize());
+    }
+
+    @Test
+    void testInvalidate() throws IOException {
+        MappingResultCache cache = new MappingResultCache(tempDir.resolve("cache"), 1024, meterRegistry);
+        Path target = tempDir.resolve("target");
+        cache.put("mapping1", "a", result("aaaa"));
+        cache.put("mapping2", "a", result("bbbb"));
+
+        cache.invalidate("mapping1");
+        assertFalse(cache.get("mapping1", "a", target));
+        assertTrue(cache.get("mapping2", "a", target));
+        assertEquals(4, cache.getCurrentSize());
+    }
+
+    @Test
+    void testEntriesSurviveRestart() throws IOException {
+        MappingResultCache cache = new MappingResultCache(tempDir.resolve("cache"), 1024, meterRegistry);
+        cache.put("mapping", "a", result("aaaa"));
+
+        MappingResultCache restarted = new MappingResultCache(tempDir.resolve("cache"), 1024, new SimpleMeterRegistry());
+        assertEquals(4, restarted.getCurrentSize());
+        assertTrue(restarted.get("mapping", "a", tempDir.resolve("target")));
+    }
+}
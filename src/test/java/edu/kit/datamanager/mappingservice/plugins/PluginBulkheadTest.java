@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginBulkheadTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private double rejected(MappingPluginState.StateEnum state) {
+        return meterRegistry.get("mapping_service.plugin_bulkhead.rejected").tag("plugin", "test").tag("state", state.name()).counter().count();
+    }
+
+    @Test
+    void testQueueFull() throws Exception {
+        PluginBulkhead bulkhead = new PluginBulkhead("test", 1, 1, 10000, false, meterRegistry);
+        long permit = bulkhead.acquire();
+        assertEquals(1, meterRegistry.get("mapping_service.plugin_bulkhead.running").tag("plugin", "test").gauge().value());
+
+        CompletableFuture<Long> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return bulkhead.acquire();
+            } catch (MappingPluginException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (bulkhead.getWaiting() == 0) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, meterRegistry.get("mapping_service.plugin_bulkhead.waiting").tag("plugin", "test").gauge().value());
+
+        //the queue is full, thus the execution is rejected immediately
+        MappingPluginException ex = assertThrows(MappingPluginException.class, bulkhead::acquire);
+        assertEquals(MappingPluginState.StateEnum.OVERLOADED, ex.getMappingPluginState().getState());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, ex.getMappingPluginState().getState().getHttpStatus());
+        assertEquals(1, rejected(MappingPluginState.StateEnum.OVERLOADED));
+
+        bulkhead.release(permit);
+        bulkhead.release(waiting.get(10, TimeUnit.SECONDS));
+        assertEquals(0, bulkhead.getRunning());
+        assertEquals(0, bulkhead.getWaiting());
+    }
+
+    @Test
+    void testWaitTimeout() throws MappingPluginException {
+        PluginBulkhead bulkhead = new PluginBulkhead("test", 1, 10, 50, false, meterRegistry);
+        long permit = bulkhead.acquire();
+        MappingPluginException ex = assertThrows(MappingPluginException.class, bulkhead::acquire);
+        assertEquals(MappingPluginState.StateEnum.UNAVAILABLE, ex.getMappingPluginState().getState());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getMappingPluginState().getState().getHttpStatus());
+        assertEquals(1, rejected(MappingPluginState.StateEnum.UNAVAILABLE));
+        assertEquals(0, bulkhead.getWaiting());
+
+        //the permit is available again after release
+        bulkhead.release(permit);
+        bulkhead.release(bulkhead.acquire());
+        assertEquals(1, bulkhead.getLimit());
+    }
+
+    @Test
+    void testAdaptiveLimit() throws MappingPluginException {
+        PluginBulkhead bulkhead = new PluginBulkhead("test", 10, 0, 0, true, meterRegistry);
+        for (int i = 0; i < 100; i++) {
+            bulkhead.update(TimeUnit.MILLISECONDS.toNanos(10), 10);
+        }
+        assertEquals(10, bulkhead.getLimit());
+
+        //executions become slower, thus, the limit decreases
+        for (int i = 0; i < 50; i++) {
+            bulkhead.update(TimeUnit.MILLISECONDS.toNanos(100), 10);
+        }
+        int limit = bulkhead.getLimit();
+        assertTrue(limit >= 1 && limit < 10);
+        assertEquals(limit, meterRegistry.get("mapping_service.plugin_bulkhead.limit").tag("plugin", "test").gauge().value());
+
+        //only 'limit' executions are permitted
+        long[] permits = new long[limit];
+        for (int i = 0; i < limit; i++) {
+            permits[i] = bulkhead.acquire();
+        }
+        assertThrows(MappingPluginException.class, bulkhead::acquire);
+        for (long permit : permits) {
+            bulkhead.release(permit);
+        }
+
+        //executions are fast again, thus, the limit recovers
+        for (int i = 0; i < 200; i++) {
+            bulkhead.update(TimeUnit.MILLISECONDS.toNanos(10), 10);
+        }
+        assertEquals(10, bulkhead.getLimit());
+    }
+
+    @Test
+    void testAdaptiveLimitNotGrowingIfUnused() {
+        PluginBulkhead bulkhead = new PluginBulkhead("test", 10, 0, 0, true, meterRegistry);
+        for (int i = 0; i < 50; i++) {
+            bulkhead.update(TimeUnit.MILLISECONDS.toNanos(i < 10 ? 10 : 100), 10);
+        }
+        int limit = bulkhead.getLimit();
+        assertTrue(limit < 10);
+        for (int i = 0; i < 200; i++) {
+            bulkhead.update(TimeUnit.MILLISECONDS.toNanos(10), 1);
+        }
+        assertEquals(limit, bulkhead.getLimit());
+    }
+}
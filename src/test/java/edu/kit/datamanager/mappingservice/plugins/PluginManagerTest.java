@@ -16,15 +16,33 @@ package edu.kit.datamanager.mappingservice.plugins;
 
 import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
 import edu.kit.datamanager.mappingservice.exception.MappingServiceException;
+import edu.kit.datamanager.mappingservice.exception.PluginInitializationFailedException;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -38,7 +56,12 @@ class PluginManagerTest {
     @Autowired
     private ApplicationProperties applicationProperties;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private final String INOUTPLUGIN_ID = "InOutPlugin_2.0.0";
+    private final String JOLTPLUGIN_ID = "JoltPlugin_2.0.0";
+    private final String JSONATAPLUGIN_ID = "JsonataPlugin_2.0.0";
 
     @BeforeEach
     void setup() throws Exception {
@@ -129,4 +152,340 @@ class PluginManagerTest {
             fail("Mapping failed", e);
         }
     }
+
+    @Test
+    void mapFileWithCompiledMapping() throws Exception {
+        Path mappingFile = Files.createTempFile("jolt", ".mapping");
+        Path inputFile = Files.createTempFile("jolt", ".json");
+        Path outputFile = Files.createTempFile("jolt", ".result");
+        try {
+            Files.writeString(mappingFile, "[{\"operation\": \"shift\", \"spec\": {\"a\": \"b\"}}]", StandardCharsets.UTF_8);
+            Files.writeString(inputFile, "{\"a\": 1}", StandardCharsets.UTF_8);
+            double hitsBefore = compiledMappingHits();
+
+            for (int i = 0; i < 2; i++) {
+                MappingPluginState state = pluginManager.mapFile(JOLTPLUGIN_ID, mappingFile, "sha256:mapFileWithCompiledMapping", inputFile, outputFile);
+                assertEquals(MappingPluginState.StateEnum.SUCCESS, state.getState());
+                assertTrue(Files.readString(outputFile).contains("\"b\" : 1"));
+            }
+            assertEquals(hitsBefore + 1, compiledMappingHits());
+
+            //compiled mapping must be recreated after invalidation
+            pluginManager.invalidateCompiledMapping("sha256:mapFileWithCompiledMapping");
+            pluginManager.mapFile(JOLTPLUGIN_ID, mappingFile, "sha256:mapFileWithCompiledMapping", inputFile, outputFile);
+            assertEquals(hitsBefore + 1, compiledMappingHits());
+        } finally {
+            Files.deleteIfExists(mappingFile);
+            Files.deleteIfExists(inputFile);
+            Files.deleteIfExists(outputFile);
+        }
+    }
+
+    @Test
+    void mapFileWithoutPrettyPrint() throws Exception {
+        Path mappingFile = Files.createTempFile("jolt", ".mapping");
+        Path inputFile = Files.createTempFile("jolt", ".json");
+        Path outputFile = Files.createTempFile("jolt", ".result");
+        try {
+            Files.writeString(mappingFile, "[{\"operation\": \"shift\", \"spec\": {\"a\": \"b\"}}]", StandardCharsets.UTF_8);
+            Files.writeString(inputFile, "{\"a\": 1}", StandardCharsets.UTF_8);
+
+            MappingPluginState state = pluginManager.mapFile(JOLTPLUGIN_ID, mappingFile, "sha256:mapFileWithoutPrettyPrint", inputFile, outputFile, false);
+            assertEquals(MappingPluginState.StateEnum.SUCCESS, state.getState());
+            assertEquals("{\"b\":1}", Files.readString(outputFile));
+
+            state = pluginManager.mapFile(JOLTPLUGIN_ID, mappingFile, "sha256:mapFileWithoutPrettyPrint", inputFile, outputFile, true);
+            assertEquals(MappingPluginState.StateEnum.SUCCESS, state.getState());
+            assertTrue(Files.readString(outputFile).contains("\"b\" : 1"));
+        } finally {
+            Files.deleteIfExists(mappingFile);
+            Files.deleteIfExists(inputFile);
+            Files.deleteIfExists(outputFile);
+        }
+    }
+
+    @Test
+    void executionTimers() throws Exception {
+        Path mappingFile = Files.createTempFile("jolt", ".mapping");
+        Path inputFile = Files.createTempFile("jolt", ".json");
+        Path outputFile = Files.createTempFile("jolt", ".result");
+        try {
+            Files.writeString(mappingFile, "[{\"operation\": \"shift\", \"spec\": {\"a\": \"b\"}}]", StandardCharsets.UTF_8);
+            Files.writeString(inputFile, "{\"a\": 1}", StandardCharsets.UTF_8);
+
+            pluginManager.mapFile(JOLTPLUGIN_ID, mappingFile, "sha256:executionTimers", inputFile, outputFile);
+            long executions = meterRegistry.get("mapping_service.plugin_execution").tag("plugin", JOLTPLUGIN_ID).tag("state", "SUCCESS").timer().count();
+            assertTrue(executions > 0);
+
+            pluginManager.mapFile(JOLTPLUGIN_ID, mappingFile, "sha256:executionTimers", inputFile, outputFile);
+            assertEquals(executions + 1, meterRegistry.get("mapping_service.plugin_execution").tag("plugin", JOLTPLUGIN_ID).tag("state", "SUCCESS").timer().count());
+        } finally {
+            Files.deleteIfExists(mappingFile);
+            Files.deleteIfExists(inputFile);
+            Files.deleteIfExists(outputFile);
+        }
+    }
+
+    @Test
+    void mapStream() throws Exception {
+        Path mappingFile = Files.createTempFile("jolt", ".mapping");
+        try {
+            Files.writeString(mappingFile, "[{\"operation\": \"shift\", \"spec\": {\"a\": \"b\"}}]", StandardCharsets.UTF_8);
+            byte[] input = "{\"a\": 1}".getBytes(StandardCharsets.UTF_8);
+
+            //streaming plugin
+            assertEquals("application/json", pluginManager.getStreamingOutputType(JOLTPLUGIN_ID));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            MappingPluginState state = pluginManager.mapStream(JOLTPLUGIN_ID, mappingFile, "sha256:mapStream", new ByteArrayInputStream(input), out, false);
+            assertEquals(MappingPluginState.StateEnum.SUCCESS, state.getState());
+            assertEquals("{\"b\":1}", out.toString(StandardCharsets.UTF_8));
+
+            //file-based plugin via temporary files
+            assertNull(pluginManager.getStreamingOutputType(INOUTPLUGIN_ID));
+            out = new ByteArrayOutputStream();
+            state = pluginManager.mapStream(INOUTPLUGIN_ID, mappingFile, null, new ByteArrayInputStream(input), out, false);
+            assertEquals(MappingPluginState.StateEnum.SUCCESS, state.getState());
+            assertArrayEquals(input, out.toByteArray());
+
+            //nothing is written on failure
+            out = new ByteArrayOutputStream();
+            state = pluginManager.mapStream(JOLTPLUGIN_ID, mappingFile, "sha256:mapStream", new ByteArrayInputStream("{\"a\": ".getBytes(StandardCharsets.UTF_8)), out, false);
+            assertEquals(MappingPluginState.StateEnum.EXECUTION_ERROR, state.getState());
+            assertEquals(0, out.size());
+
+            assertThrows(MappingPluginException.class, () -> pluginManager.mapStream("Dummy", mappingFile, null, new ByteArrayInputStream(input), new ByteArrayOutputStream(), false));
+        } finally {
+            Files.deleteIfExists(mappingFile);
+        }
+    }
+
+    @Test
+    void mapFileWithCompiledJsonataExpressionConcurrently() throws Exception {
+        Path mappingFile = Files.createTempFile("jsonata", ".mapping");
+        Path inputFile = Files.createTempFile("jsonata", ".json");
+        try {
+            Files.writeString(mappingFile, "{\"b\": a}", StandardCharsets.UTF_8);
+            Files.writeString(inputFile, "{\"a\": 1}", StandardCharsets.UTF_8);
+
+            List<Callable<String>> tasks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                tasks.add(() -> {
+                    Path outputFile = Files.createTempFile("jsonata", ".result");
+                    try {
+                        MappingPluginState state = pluginManager.mapFile(JSONATAPLUGIN_ID, mappingFile, "sha256:mapFileWithCompiledJsonataExpression", inputFile, outputFile);
+                        assertEquals(MappingPluginState.StateEnum.SUCCESS, state.getState());
+                        return Files.readString(outputFile);
+                    } finally {
+                        Files.deleteIfExists(outputFile);
+                    }
+                });
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                for (Future<String> result : executor.invokeAll(tasks)) {
+                    assertTrue(result.get().contains("\"b\" : 1"));
+                }
+            } finally {
+                executor.shutdown();
+            }
+            assertTrue(meterRegistry.get(CompiledMappingCache.CACHE_NAME + ".hit_ratio").gauge().value() > 0);
+        } finally {
+            Files.deleteIfExists(mappingFile);
+            Files.deleteIfExists(inputFile);
+        }
+    }
+
+    @Test
+    void setupPluginsInParallel() throws Exception {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.setPluginLocation(applicationProperties.getPluginLocation());
+        properties.setPluginSetupThreads(4);
+        properties.setPluginSetupTimeout(1);
+        properties.setPluginSetupWait(0);
+        PluginLoader loader = new PluginLoader(properties) {
+            @Override
+            public List<IMappingPlugin> discoverPlugins(File pluginDir, String[] packagesToScan) {
+                return List.of(new SetupTestPlugin("Fast", 0, false),
+                        new SetupTestPlugin("Slow", 300, false),
+                        new SetupTestPlugin("Failing", 0, true),
+                        new SetupTestPlugin("Stale", 10000, false));
+            }
+        };
+
+        PluginManager manager = new PluginManager(properties, loader, meterRegistry);
+        try {
+            //the constructor returns before slow plugins are ready
+            assertEquals(PluginManager.SetupState.SETUP, manager.getSetupStatus().get("Stale_1.0.0").state());
+            assertFalse(manager.getPlugins().containsKey("Stale_1.0.0"));
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while (manager.getSetupStatus().values().stream().anyMatch((status) -> status.state() == PluginManager.SetupState.SETUP)) {
+                assertTrue(System.currentTimeMillis() < deadline, "Plugin setup did not finish in time.");
+                Thread.sleep(50);
+            }
+
+            assertEquals(PluginManager.SetupState.READY, manager.getSetupStatus().get("Fast_1.0.0").state());
+            assertEquals(PluginManager.SetupState.READY, manager.getSetupStatus().get("Slow_1.0.0").state());
+            assertEquals(PluginManager.SetupState.FAILED, manager.getSetupStatus().get("Failing_1.0.0").state());
+            assertEquals(PluginManager.SetupState.TIMED_OUT, manager.getSetupStatus().get("Stale_1.0.0").state());
+            assertEquals(Set.of("Fast_1.0.0", "Slow_1.0.0"), manager.getPlugins().keySet());
+            //failed plugins are reported, but do not render the service unhealthy
+            Health health = new PluginsHealthIndicator(manager).health();
+            assertEquals(Status.UP, health.getStatus());
+            assertEquals(List.of("Failing_1.0.0", "Stale_1.0.0"), health.getDetails().get("failed"));
+        } finally {
+            manager.unload();
+        }
+    }
+
+    @Test
+    void reloadWhileMapping() throws Exception {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.setPluginLocation(applicationProperties.getPluginLocation());
+        List<ReloadTestPlugin> instances = new ArrayList<>();
+        PluginLoader loader = new PluginLoader(properties) {
+            @Override
+            public List<IMappingPlugin> discoverPlugins(File pluginDir, String[] packagesToScan) {
+                ReloadTestPlugin plugin = new ReloadTestPlugin();
+                instances.add(plugin);
+                return List.of(plugin);
+            }
+        };
+
+        PluginManager manager = new PluginManager(properties, loader, meterRegistry);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ReloadTestPlugin first = instances.get(0);
+            Path path = Path.of("unused");
+            Future<MappingPluginState> mapping = executor.submit(() -> manager.mapFile("Reload_1.0.0", path, path, path));
+            assertTrue(first.entered.await(10, TimeUnit.SECONDS));
+
+            //the new instance is published while the old one is still in use
+            manager.reloadPlugins();
+            ReloadTestPlugin second = instances.get(1);
+            assertSame(second, manager.getPlugins().get("Reload_1.0.0"));
+            assertFalse(first.shutdown);
+
+            //the old instance is shut down as soon as the running mapping has finished
+            first.proceed.countDown();
+            assertEquals(MappingPluginState.StateEnum.SUCCESS, mapping.get(10, TimeUnit.SECONDS).getState());
+            assertTrue(first.shutdown);
+            assertFalse(second.shutdown);
+
+            second.proceed.countDown();
+            assertEquals(MappingPluginState.StateEnum.SUCCESS, manager.mapFile("Reload_1.0.0", path, path, path).getState());
+            assertEquals(1, first.mappings);
+            assertEquals(1, second.mappings);
+        } finally {
+            executor.shutdown();
+            manager.unload();
+        }
+    }
+
+    @Test
+    void pluginsHealth() {
+        assertEquals(PluginManager.SetupState.READY, pluginManager.getSetupStatus().get(JOLTPLUGIN_ID).state());
+        assertEquals(Status.UP, new PluginsHealthIndicator(pluginManager).health().getStatus());
+    }
+
+    private double compiledMappingHits() {
+        return meterRegistry.get("cache.gets").tag("cache", CompiledMappingCache.CACHE_NAME).tag("result", "hit").functionCounter().count();
+    }
+
+    /**
+     * Plugin with configurable setup duration and outcome.
+     */
+    private static class SetupTestPlugin implements IMappingPlugin {
+
+        private final String name;
+        private final long setupMillis;
+        private final boolean fail;
+
+        SetupTestPlugin(String name, long setupMillis, boolean fail) {
+            this.name = name;
+            this.setupMillis = setupMillis;
+            this.fail = fail;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public String description() {
+            return "Plugin for testing the plugin setup.";
+        }
+
+        @Override
+        public String version() {
+            return "1.0.0";
+        }
+
+        @Override
+        public String uri() {
+            return "https://github.com/kit-data-manager/mapping-service";
+        }
+
+        @Override
+        public String[] inputTypes() {
+            return new String[]{"application/*"};
+        }
+
+        @Override
+        public String[] outputTypes() {
+            return new String[]{"application/*"};
+        }
+
+        @Override
+        public void setup(ApplicationProperties applicationProperties) {
+            try {
+                Thread.sleep(setupMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new PluginInitializationFailedException("Setup interrupted.", ex);
+            }
+            if (fail) {
+                throw new PluginInitializationFailedException("Setup failed.");
+            }
+        }
+
+        @Override
+        public MappingPluginState mapFile(Path mappingFile, Path inputFile, Path outputFile) {
+            return MappingPluginState.SUCCESS();
+        }
+    }
+
+    /**
+     * Plugin blocking each mapping until released.
+     */
+    private static class ReloadTestPlugin extends SetupTestPlugin {
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch proceed = new CountDownLatch(1);
+        private volatile boolean shutdown = false;
+        private volatile int mappings = 0;
+
+        ReloadTestPlugin() {
+            super("Reload", 0, false);
+        }
+
+        @Override
+        public MappingPluginState mapFile(Path mappingFile, Path inputFile, Path outputFile) {
+            entered.countDown();
+            try {
+                assertTrue(proceed.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return MappingPluginState.EXECUTION_ERROR();
+            }
+            mappings++;
+            return MappingPluginState.SUCCESS();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PythonSetupFingerprintTest {
+
+    private Path workDir;
+
+    @BeforeEach
+    void setup() throws IOException {
+        workDir = Files.createTempDirectory("fingerprint");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    @Test
+    void storeAndLoad() throws IOException {
+        Path file = workDir.resolve("setup.fingerprint");
+        assertNull(PythonSetupFingerprint.load(file));
+
+        PythonSetupFingerprint fingerprint = new PythonSetupFingerprint("v1.0.0", "abc", "/usr/bin/python3", 42, "3.13.2");
+        fingerprint.store(file);
+        PythonSetupFingerprint loaded = PythonSetupFingerprint.load(file);
+        assertEquals(fingerprint, loaded);
+        assertTrue(loaded.matchesInterpreter("/usr/bin/python3", 42));
+        assertFalse(loaded.matchesInterpreter("/usr/bin/python3", 43));
+        assertFalse(loaded.matchesInterpreter("/usr/local/bin/python3", 42));
+
+        //each component is part of the fingerprint
+        assertNotEquals(fingerprint, new PythonSetupFingerprint("v1.0.1", "abc", "/usr/bin/python3", 42, "3.13.2"));
+        assertNotEquals(fingerprint, new PythonSetupFingerprint("v1.0.0", "abd", "/usr/bin/python3", 42, "3.13.2"));
+        assertNotEquals(fingerprint, new PythonSetupFingerprint("v1.0.0", "abc", "/usr/bin/python3", 42, "3.14.0"));
+    }
+
+    @Test
+    void loadInvalidFingerprint() throws IOException {
+        Path file = workDir.resolve("setup.fingerprint");
+        Files.writeString(file, "interpreter.modified=yesterday\n");
+        assertNull(PythonSetupFingerprint.load(file));
+    }
+
+    @Test
+    void hashRequirements() throws IOException {
+        Path requirements = workDir.resolve("requirements.dist.txt");
+        assertEquals(PythonSetupFingerprint.NONE, PythonSetupFingerprint.hashRequirements(requirements));
+
+        Files.writeString(requirements, "numpy==2.2.0\n");
+        String hash = PythonSetupFingerprint.hashRequirements(requirements);
+        assertEquals(64, hash.length());
+        assertEquals(hash, PythonSetupFingerprint.hashRequirements(requirements));
+
+        Files.writeString(requirements, "numpy==2.2.1\n");
+        assertNotEquals(hash, PythonSetupFingerprint.hashRequirements(requirements));
+    }
+}
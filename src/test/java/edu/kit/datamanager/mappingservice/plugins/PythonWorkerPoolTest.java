@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PythonWorkerPoolTest {
+
+    /**
+     * Minimal worker writing the pid of the worker process to the file
+     * provided as second argument. A first argument 'fail' results in status 1,
+     * 'sleep' blocks the worker.
+     */
+    private static final String WORKER_SCRIPT = String.join("\n",
+            "import json, os, sys, time",
+            "for line in sys.stdin:",
+            "    request = json.loads(line)",
+            "    status = 0",
+            "    if 'args' in request:",
+            "        print('unrelated output')",
+            "        action, target = request['args'][1], request['args'][2]",
+            "        if action == 'sleep':",
+            "            time.sleep(60)",
+            "        status = 1 if action == 'fail' else 0",
+            "        with open(target, 'w') as f:",
+            "            f.write(str(os.getpid()))",
+            "    print(json.dumps({'id': request['id'], 'status': status, 'error': 'failed' if status else ''}), flush=True)",
+            "");
+
+    private Path workDir;
+    private PythonWorkerPool pool;
+
+    @BeforeEach
+    void setup() throws IOException {
+        assumeTrue(new File("/usr/bin/python3").canExecute(), "Python 3 not available.");
+        workDir = Files.createTempDirectory("worker");
+        Files.writeString(workDir.resolve("mapping_worker.py"), WORKER_SCRIPT);
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (workDir != null) {
+            try (var files = Files.list(workDir)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(workDir);
+        }
+    }
+
+    private List<String> command() {
+        return List.of("/usr/bin/python3", workDir.resolve("mapping_worker.py").toString());
+    }
+
+    private String run(String action) throws Exception {
+        Path target = workDir.resolve("out");
+        Files.deleteIfExists(target);
+        pool.execute(new String[]{"script.py", action, target.toString()}, 2);
+        return Files.readString(target);
+    }
+
+    @Test
+    void testWorkerIsReused() throws Exception {
+        pool = new PythonWorkerPool("test", command(), workDir, 1, 100, 0);
+        String pid = run("map");
+        assertEquals(pid, run("map"));
+    }
+
+    @Test
+    void testWorkerIsRecycledAfterMaxRequests() throws Exception {
+        pool = new PythonWorkerPool("test", command(), workDir, 1, 2, 0);
+        String pid = run("map");
+        assertEquals(pid, run("map"));
+        assertNotEquals(pid, run("map"));
+    }
+
+    @Test
+    void testBadStatusKeepsWorker() throws Exception {
+        pool = new PythonWorkerPool("test", command(), workDir, 1, 100, 0);
+        String pid = run("map");
+        MappingPluginException ex = assertThrows(MappingPluginException.class, () -> run("fail"));
+        assertEquals(MappingPluginState.StateEnum.BAD_EXIT_CODE, ex.getMappingPluginState().getState());
+        assertEquals(pid, run("map"));
+    }
+
+    @Test
+    void testStuckWorkerIsReplaced() throws Exception {
+        pool = new PythonWorkerPool("test", command(), workDir, 1, 100, 0);
+        String pid = run("map");
+        MappingPluginException ex = assertThrows(MappingPluginException.class, () -> run("sleep"));
+        assertEquals(MappingPluginState.StateEnum.TIMEOUT, ex.getMappingPluginState().getState());
+        assertNotEquals(pid, run("map"));
+    }
+
+    @Test
+    void testInvalidWorker() {
+        assertThrows(MappingPluginException.class, () -> new PythonWorkerPool("test", List.of("/usr/bin/python3", "-c", "pass"), workDir, 1, 100, 0));
+    }
+}
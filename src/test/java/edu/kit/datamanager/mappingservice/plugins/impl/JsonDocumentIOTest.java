@@ -0,0 +1,114 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.plugins.impl;
+
+import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
+import edu.kit.datamanager.mappingservice.plugins.MappingPluginException;
+import edu.kit.datamanager.mappingservice.plugins.MappingPluginState;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonDocumentIOTest {
+
+    @Test
+    public void testReadAndWrite() throws Exception {
+        Path inputFile = Files.createTempFile("jsonDocumentIO", ".json");
+        Path outputFile = Files.createTempFile("jsonDocumentIO", ".result");
+        try {
+            JsonDocumentIO documentIO = new JsonDocumentIO();
+            Files.writeString(inputFile, "{\"a\": [1, \"\u00e4\"]}", StandardCharsets.UTF_8);
+            Object document = documentIO.read(inputFile);
+            assertEquals(Map.of("a", List.of(1, "\u00e4")), document);
+
+            documentIO.write(document, outputFile, false);
+            assertEquals("{\"a\":[1,\"\u00e4\"]}", Files.readString(outputFile, StandardCharsets.UTF_8));
+
+            documentIO.write(document, outputFile, true);
+            assertTrue(Files.readString(outputFile, StandardCharsets.UTF_8).contains("\"a\" : [ 1, \"\u00e4\" ]"));
+
+            //top-level arrays are supported as well
+            Files.writeString(inputFile, "[{\"a\": 1}]", StandardCharsets.UTF_8);
+            assertEquals(List.of(Map.of("a", 1)), documentIO.read(inputFile));
+        } finally {
+            Files.deleteIfExists(inputFile);
+            Files.deleteIfExists(outputFile);
+        }
+    }
+
+    @Test
+    public void testReadInvalidDocument() throws Exception {
+        Path inputFile = Files.createTempFile("jsonDocumentIO", ".json");
+        try {
+            JsonDocumentIO documentIO = new JsonDocumentIO();
+            assertThrows(IOException.class, () -> documentIO.read(inputFile));
+            Files.writeString(inputFile, "{\"a\": ", StandardCharsets.UTF_8);
+            assertThrows(IOException.class, () -> documentIO.read(inputFile));
+        } finally {
+            Files.deleteIfExists(inputFile);
+        }
+    }
+
+    @Test
+    public void testMemoryBudget() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setJsonMemoryBudget(80);
+        applicationProperties.setJsonMemoryFactor(8);
+        JsonDocumentIO documentIO = new JsonDocumentIO(applicationProperties);
+
+        Path inputFile = Files.createTempFile("jsonDocumentIO", ".json");
+        try {
+            //10 bytes are within the budget
+            Files.writeString(inputFile, "{\"a\": 100}", StandardCharsets.UTF_8);
+            assertEquals(Map.of("a", 100), documentIO.read(inputFile));
+
+            Files.writeString(inputFile, "{\"a\": 1000}", StandardCharsets.UTF_8);
+            MappingPluginException ex = assertThrows(MappingPluginException.class, () -> documentIO.read(inputFile));
+            assertEquals(MappingPluginState.StateEnum.INPUT_TOO_LARGE, ex.getMappingPluginState().getState());
+        } finally {
+            Files.deleteIfExists(inputFile);
+        }
+    }
+
+    @Test
+    public void testReadAndWriteStream() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setJsonMemoryBudget(80);
+        applicationProperties.setJsonMemoryFactor(8);
+        JsonDocumentIO documentIO = new JsonDocumentIO(applicationProperties);
+
+        Object document = documentIO.read(new ByteArrayInputStream("{\"a\": 100}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(Map.of("a", 100), document);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        documentIO.write(document, out, false);
+        assertEquals("{\"a\":100}", out.toString(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> documentIO.read(new ByteArrayInputStream(new byte[0])));
+        //the size is not known in advance, reading is aborted as soon as the budget is exceeded
+        MappingPluginException ex = assertThrows(MappingPluginException.class, () -> documentIO.read(new ByteArrayInputStream("{\"a\": 1000}".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(MappingPluginState.StateEnum.INPUT_TOO_LARGE, ex.getMappingPluginState().getState());
+    }
+}
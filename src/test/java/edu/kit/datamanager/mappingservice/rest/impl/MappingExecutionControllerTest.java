@@ -15,7 +15,10 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.restdocs.RestDocumentationContextProvider;
 import org.springframework.restdocs.RestDocumentationExtension;
@@ -28,21 +31,33 @@ import org.springframework.test.context.support.DirtiesContextTestExecutionListe
 import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
 import org.springframework.test.context.web.ServletTestExecutionListener;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Stream;
 
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -85,13 +100,20 @@ public class MappingExecutionControllerTest {
     @Autowired
     private PluginManager pluginManager;
 
+    @LocalServerPort
+    private int port;
+
     private void createMapping() throws Exception {
+        String mappingContent = FileUtils.readFileToString(new File("src/test/resources/mapping/gemma/simple.mapping"), StandardCharsets.UTF_8);
+        createMapping(MAPPING_ID, MAPPING_TYPE, mappingContent);
+    }
+
+    private void createMapping(String mappingId, String mappingType, String mappingContent) throws Exception {
         System.out.println("createMapping");
         File mappingsDir = Paths.get(TEMP_DIR_4_MAPPING).toFile();
-        String mappingContent = FileUtils.readFileToString(new File("src/test/resources/mapping/gemma/simple.mapping"), StandardCharsets.UTF_8);
         MappingRecord record = new MappingRecord();
-        record.setMappingId(MAPPING_ID);
-        record.setMappingType(MAPPING_TYPE);
+        record.setMappingId(mappingId);
+        record.setMappingType(mappingType);
         record.setTitle(MAPPING_TITLE);
         record.setDescription(MAPPING_DESCRIPTION);
         Set<AclEntry> aclEntries = new HashSet<>();
@@ -151,6 +173,222 @@ public class MappingExecutionControllerTest {
                 andExpect(header().string("content-disposition", "attachment;filename=result.json")).andReturn();
     }
 
+    @Test
+    void mapValidDocumentAsStream() throws Exception {
+        String mappingContent = FileUtils.readFileToString(new File("src/test/resources/examples/gemma/simple.json"), StandardCharsets.UTF_8);
+
+        this.mockMvc.perform(MockMvcRequestBuilders.post(MAPPING_URL).param("filename", "simple.json").
+                contentType(MediaType.APPLICATION_OCTET_STREAM).content(mappingContent.getBytes())).
+                andDo(print()).
+                andExpect(status().isOk()).
+                andExpect(header().string("content-disposition", "attachment;filename=result.json")).andReturn();
+    }
+
+    @Test
+    void mapEmptyDocumentAsStream() throws Exception {
+        this.mockMvc.perform(MockMvcRequestBuilders.post(MAPPING_URL).
+                contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[0])).
+                andDo(print()).
+                andExpect(status().isBadRequest()).andReturn();
+    }
+
+    @Test
+    void mapTooLargeDocument() throws Exception {
+        String mappingContent = FileUtils.readFileToString(new File("src/test/resources/examples/gemma/simple.json"), StandardCharsets.UTF_8);
+        MockMultipartFile mappingFile = new MockMultipartFile("document", "my_dc4gemma.mapping", "application/json", mappingContent.getBytes());
+        long maxDocumentSize = applicationProperties.getMaxDocumentSize();
+        applicationProperties.setMaxDocumentSize(10);
+        try {
+            this.mockMvc.perform(MockMvcRequestBuilders.post(MAPPING_URL).
+                    contentType(MediaType.APPLICATION_OCTET_STREAM).content(mappingContent.getBytes())).
+                    andDo(print()).
+                    andExpect(status().isPayloadTooLarge()).andReturn();
+
+            this.mockMvc.perform(MockMvcRequestBuilders.multipart(MAPPING_URL).file(mappingFile)).
+                    andDo(print()).
+                    andExpect(status().isPayloadTooLarge()).andReturn();
+        } finally {
+            applicationProperties.setMaxDocumentSize(maxDocumentSize);
+        }
+    }
+
+    @Test
+    void mapDocumentAsStreamWithStreamingPlugin() throws Exception {
+        createMapping("stream", "JoltPlugin_2.0.0", "[{\"operation\": \"shift\", \"spec\": {\"a\": \"b\"}}]");
+
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/mappingExecution/stream").param("pretty", "false").
+                contentType(MediaType.APPLICATION_OCTET_STREAM).content("{\"a\": 1}".getBytes(StandardCharsets.UTF_8))).
+                andDo(print()).
+                andExpect(status().isOk()).
+                andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)).
+                andExpect(header().string("content-disposition", "attachment;filename=result.json")).
+                andExpect(header().doesNotExist(HttpHeaders.CONTENT_LENGTH)).
+                andExpect(content().string("{\"b\":1}")).andReturn();
+
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/mappingExecution/stream").
+                contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[0])).
+                andDo(print()).
+                andExpect(status().isBadRequest()).andReturn();
+
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/mappingExecution/stream").
+                contentType(MediaType.APPLICATION_OCTET_STREAM).content("{\"a\": ".getBytes(StandardCharsets.UTF_8))).
+                andDo(print()).
+                andExpect(status().isInternalServerError()).andReturn();
+
+        long maxDocumentSize = applicationProperties.getMaxDocumentSize();
+        applicationProperties.setMaxDocumentSize(5);
+        try {
+            this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/mappingExecution/stream").
+                    contentType(MediaType.APPLICATION_OCTET_STREAM).content("{\"a\": 1}".getBytes(StandardCharsets.UTF_8))).
+                    andDo(print()).
+                    andExpect(status().isPayloadTooLarge()).andReturn();
+        } finally {
+            applicationProperties.setMaxDocumentSize(maxDocumentSize);
+        }
+    }
+
+    @Test
+    void mapBatch() throws Exception {
+        createMapping("batch", "JoltPlugin_2.0.0", "[{\"operation\": \"shift\", \"spec\": {\"a\": \"b\"}}]");
+
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/mappingExecution/batch/batch").
+                contentType(MediaType.APPLICATION_NDJSON).content("{\"a\": 1}\nnot json\n\n{\"a\": 2}\n".getBytes(StandardCharsets.UTF_8))).
+                andDo(print()).
+                andExpect(status().isOk()).
+                andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)).
+                andExpect(content().string(startsWith("{\"index\":0,\"result\":{\"b\":1}}\n{\"index\":1,\"error\":\"Invalid JSON"))).
+                andExpect(content().string(endsWith("\n{\"index\":2,\"result\":{\"b\":2}}\n"))).andReturn();
+
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/mappingExecution/batch/batch").
+                contentType(MediaType.APPLICATION_JSON).content(" [{\"a\": 1}, {\"a\": 2}]".getBytes(StandardCharsets.UTF_8))).
+                andDo(print()).
+                andExpect(status().isOk()).
+                andExpect(content().string("{\"index\":0,\"result\":{\"b\":1}}\n{\"index\":1,\"result\":{\"b\":2}}\n")).andReturn();
+    }
+
+    @Test
+    void mapBatchWithTooLargeDocuments() throws Exception {
+        createMapping("batch", "JoltPlugin_2.0.0", "[{\"operation\": \"shift\", \"spec\": {\"a\": \"b\"}}]");
+        long budget = applicationProperties.getJsonMemoryBudget();
+        int factor = applicationProperties.getJsonMemoryFactor();
+        applicationProperties.setJsonMemoryBudget(100);
+        applicationProperties.setJsonMemoryFactor(1);
+        try {
+            String large = "{\"a\": \"" + "x".repeat(200) + "\"}";
+            this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/mappingExecution/batch/batch").
+                    contentType(MediaType.APPLICATION_NDJSON).content((large + "\n{\"a\": 2}\n").getBytes(StandardCharsets.UTF_8))).
+                    andDo(print()).
+                    andExpect(status().isOk()).
+                    andExpect(content().string("{\"index\":0,\"error\":\"Document exceeds the maximum size of 100 bytes for batch mappings.\"}\n{\"index\":1,\"result\":{\"b\":2}}\n")).andReturn();
+
+            this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/mappingExecution/batch/batch").
+                    contentType(MediaType.APPLICATION_JSON).content(("[{\"a\": 1}, " + large + "]").getBytes(StandardCharsets.UTF_8))).
+                    andDo(print()).
+                    andExpect(status().isOk()).
+                    andExpect(content().string("{\"index\":0,\"result\":{\"b\":1}}\n{\"index\":1,\"error\":\"Document exceeds the maximum size of 100 bytes for batch mappings.\"}\n")).andReturn();
+        } finally {
+            applicationProperties.setJsonMemoryBudget(budget);
+            applicationProperties.setJsonMemoryFactor(factor);
+        }
+    }
+
+    @Test
+    void mapChunkedBatchExceedingMaxDocumentSize() throws Exception {
+        createMapping("batch", "JoltPlugin_2.0.0", "[{\"operation\": \"shift\", \"spec\": {\"a\": \"b\"}}]");
+        long maxDocumentSize = applicationProperties.getMaxDocumentSize();
+        applicationProperties.setMaxDocumentSize(1024);
+        try {
+            //a body of unknown length is sent chunked, i.e., without Content-Length
+            byte[] body = ("{\"a\": \"" + "x".repeat(4096)).getBytes(StandardCharsets.UTF_8);
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/mappingExecution/batch/batch")).
+                    header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_NDJSON_VALUE).
+                    POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(body))).
+                    build();
+            try (HttpClient client = HttpClient.newHttpClient()) {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                assertEquals(200, response.statusCode());
+                assertEquals("{\"index\":0,\"error\":\"Input document exceeds the maximum document size of 1024 bytes.\"}\n", response.body());
+            }
+        } finally {
+            applicationProperties.setMaxDocumentSize(maxDocumentSize);
+        }
+    }
+
+    @Test
+    void mapBatchWithUnsupportedPlugin() throws Exception {
+        this.mockMvc.perform(MockMvcRequestBuilders.post(MAPPING_URL + "/batch").
+                contentType(MediaType.APPLICATION_NDJSON).content("{\"a\": 1}\n".getBytes(StandardCharsets.UTF_8))).
+                andDo(print()).
+                andExpect(status().isBadRequest()).andReturn();
+
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/mappingExecution/unknown/batch").
+                contentType(MediaType.APPLICATION_NDJSON).content("{\"a\": 1}\n".getBytes(StandardCharsets.UTF_8))).
+                andDo(print()).
+                andExpect(status().isNotFound()).andReturn();
+    }
+
+    private String scheduleAndWait() throws Exception {
+        String mappingContent = FileUtils.readFileToString(new File("src/test/resources/examples/gemma/simple.json"), StandardCharsets.UTF_8);
+        MockMultipartFile mappingFile = new MockMultipartFile("document", "simple.json", "application/json", mappingContent.getBytes());
+
+        String response = this.mockMvc.perform(MockMvcRequestBuilders.multipart("/api/v1/mappingExecution/schedule/").file(mappingFile).param("mappingID", MAPPING_ID)).
+                andDo(print()).
+                andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        String jobId = new ObjectMapper().readTree(response).get("jobId").asText();
+
+        for (int i = 0; i < 50; i++) {
+            String status = this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/mappingExecution/schedule/" + jobId + "/status")).
+                    andReturn().getResponse().getContentAsString();
+            if (status.contains("SUCCEEDED")) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        return jobId;
+    }
+
+    @Test
+    void scheduleAndDownloadRange() throws Exception {
+        String jobId = scheduleAndWait();
+
+        byte[] full = this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/mappingExecution/schedule/" + jobId + "/download")).
+                andExpect(status().isOk()).
+                andExpect(header().string("Accept-Ranges", "bytes")).
+                andReturn().getResponse().getContentAsByteArray();
+
+        byte[] range = this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/mappingExecution/schedule/" + jobId + "/download").header("Range", "bytes=0-9")).
+                andDo(print()).
+                andExpect(status().isPartialContent()).
+                andExpect(header().string("Content-Range", "bytes 0-9/" + full.length)).
+                andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(Arrays.copyOf(full, 10), range);
+    }
+
+    @Test
+    void scheduleAndDownloadViaSendfile() throws Exception {
+        String jobId = scheduleAndWait();
+
+        MvcResult result = this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/mappingExecution/schedule/" + jobId + "/download").requestAttr("org.apache.tomcat.sendfile.support", true)).
+                andDo(print()).
+                andExpect(status().isOk()).
+                andExpect(header().string("Accept-Ranges", "bytes")).
+                andReturn();
+        assertEquals(0, result.getResponse().getContentAsByteArray().length);
+
+        String fileName = (String) result.getRequest().getAttribute("org.apache.tomcat.sendfile.filename");
+        assertNotNull(fileName);
+        long length = new File(fileName).length();
+        assertTrue(length > 0);
+        assertEquals(Long.toString(length), result.getResponse().getHeader("Content-Length"));
+        assertEquals(0L, result.getRequest().getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(length, result.getRequest().getAttribute("org.apache.tomcat.sendfile.end"));
+
+        //range requests are still served by Spring
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/mappingExecution/schedule/" + jobId + "/download").header("Range", "bytes=0-9").requestAttr("org.apache.tomcat.sendfile.support", true)).
+                andExpect(status().isPartialContent()).
+                andExpect(header().string("Content-Range", "bytes 0-9/" + length));
+    }
+
     @Test
     void mapWithoutDocument() throws Exception {
         //@TODO improve error response handling
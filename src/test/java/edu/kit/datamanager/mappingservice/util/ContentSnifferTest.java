@@ -0,0 +1,152 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentSnifferTest {
+
+    private static ContentSniffer.ContentType sniff(String content) {
+        return ContentSniffer.sniff(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSniffJson() {
+        assertEquals(ContentSniffer.ContentType.JSON, sniff("{\"a\": 1}"));
+        assertEquals(ContentSniffer.ContentType.JSON, sniff("\n  {\n  \"a\": 1}"));
+        assertEquals(ContentSniffer.ContentType.JSON, sniff("\uFEFF{\"a\": 1}"));
+        assertEquals(ContentSniffer.ContentType.JSON, sniff("{}"));
+        assertEquals(ContentSniffer.ContentType.JSON, sniff("[{\"a\": 1}]"));
+        assertEquals(ContentSniffer.ContentType.JSON, sniff("[1, 2]"));
+        assertNull(sniff("{a: 1}"));
+        assertNull(sniff("[section]"));
+    }
+
+    @Test
+    void testSniffXml() {
+        assertEquals(ContentSniffer.ContentType.XML, sniff("<?xml version=\"1.0\"?><a/>"));
+        assertEquals(ContentSniffer.ContentType.XML, sniff("  <metadata>\n</metadata>"));
+        assertEquals(ContentSniffer.ContentType.XML, sniff("<dc:title>Title</dc:title>"));
+        assertNull(sniff("<1>"));
+    }
+
+    @Test
+    void testSniffYaml() {
+        assertEquals(ContentSniffer.ContentType.YAML, sniff("---\ntitle: Test\n"));
+        assertEquals(ContentSniffer.ContentType.YAML, sniff("%YAML 1.2\n---\n"));
+        assertNull(sniff("---not yaml"));
+    }
+
+    @Test
+    void testSniffCsv() {
+        assertEquals(ContentSniffer.ContentType.CSV, sniff("a,b,c\n1,2,3\n4,5,6\n7,8"));
+        assertEquals(ContentSniffer.ContentType.CSV, sniff("a;b\n\"1;\n2\";3\n4;5\n"));
+        assertEquals(ContentSniffer.ContentType.CSV, sniff("a\tb\n1\t2\n3\t4\n"));
+        //inconsistent number of delimiters
+        assertNull(sniff("a,b,c\n1,2\n3,4,5\n"));
+        //not enough records
+        assertNull(sniff("Hello, world.\nFoo, bar.\n"));
+        assertNull(sniff("This is just a plain text file."));
+    }
+
+    @Test
+    void testSniffBinary() {
+        assertEquals(ContentSniffer.ContentType.PDF, sniff("%PDF-1.7\n"));
+        assertEquals(ContentSniffer.ContentType.ZIP, ContentSniffer.sniff(new byte[]{'P', 'K', 3, 4, 0, 0}));
+        assertEquals(ContentSniffer.ContentType.GZIP, ContentSniffer.sniff(new byte[]{0x1F, (byte) 0x8B, 8}));
+        assertEquals(ContentSniffer.ContentType.PNG, ContentSniffer.sniff(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A}));
+        assertEquals(ContentSniffer.ContentType.JPEG, ContentSniffer.sniff(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
+        assertEquals(ContentSniffer.ContentType.GIF, sniff("GIF89a"));
+        assertNull(ContentSniffer.sniff(new byte[]{0, 1, 2, 3}));
+    }
+
+    @Test
+    void testSniffEmptyAndTruncated() {
+        assertNull(ContentSniffer.sniff(new byte[0]));
+        assertNull(sniff("   \n\t "));
+        assertNull(sniff("{"));
+        assertNull(sniff("<"));
+        assertNull(ContentSniffer.sniff(new byte[]{'P', 'K'}));
+        //length limits the inspected bytes
+        assertNull(ContentSniffer.sniff("{\"a\": 1}".getBytes(StandardCharsets.UTF_8), 1));
+    }
+
+    /**
+     * Headers which caused exponential backtracking with the previously used
+     * regular expressions, i.e., long runs of characters matched by both
+     * alternatives of (.|\s)* followed by a character matched by none.
+     */
+    @Test
+    void testAdversarialHeaders() {
+        byte[] padding = new byte[8 * 1024];
+        Arrays.fill(padding, (byte) ' ');
+        byte[] nel = "\u0085".getBytes(StandardCharsets.UTF_8);
+        String[] prefixes = {"{\"", "<?xml", "<a", ""};
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (String prefix : prefixes) {
+                byte[] p = prefix.getBytes(StandardCharsets.UTF_8);
+                byte[] header = new byte[p.length + padding.length + nel.length];
+                System.arraycopy(p, 0, header, 0, p.length);
+                System.arraycopy(padding, 0, header, p.length, padding.length);
+                System.arraycopy(nel, 0, header, p.length + padding.length, nel.length);
+                for (int i = 0; i < 1000; i++) {
+                    ContentSniffer.sniff(header);
+                }
+                //detection from within FileUtil must be bounded as well
+                FileUtil.guessFileExtension("document", header);
+            }
+        });
+    }
+
+    /**
+     * Feed random and randomly mutated headers to the sniffer. No input must
+     * lead to an exception, and the total time must stay bounded.
+     */
+    @Test
+    void testFuzz() {
+        Random random = new Random(42);
+        byte[][] seeds = {
+            "{\"a\": [1, 2, {\"b\": \"c\"}]}".getBytes(StandardCharsets.UTF_8),
+            "<?xml version=\"1.0\"?>\n<a b=\"c\"><d/></a>".getBytes(StandardCharsets.UTF_8),
+            "---\na: b\nc:\n  - d\n".getBytes(StandardCharsets.UTF_8),
+            "a,b,\"c\nd\"\n1,2,3\n4,5,6\n".getBytes(StandardCharsets.UTF_8),
+            {'%', 'P', 'D', 'F', '-', '1'},
+            {'P', 'K', 3, 4}
+        };
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (int i = 0; i < 100000; i++) {
+                byte[] header;
+                if (random.nextBoolean()) {
+                    header = new byte[random.nextInt(8 * 1024)];
+                    random.nextBytes(header);
+                } else {
+                    byte[] seed = seeds[random.nextInt(seeds.length)];
+                    header = Arrays.copyOf(seed, seed.length + random.nextInt(64));
+                    for (int m = random.nextInt(8); m > 0; m--) {
+                        header[random.nextInt(header.length)] = (byte) random.nextInt(256);
+                    }
+                }
+                ContentSniffer.sniff(header, random.nextInt(header.length + 1));
+            }
+        });
+    }
+}
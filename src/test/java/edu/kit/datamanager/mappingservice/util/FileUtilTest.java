@@ -305,6 +305,42 @@ public class FileUtilTest {
         }
     }
 
+    @Test
+    public void testIdentifyFile() throws IOException {
+        System.out.println("testIdentifyFile");
+        File srcFile = new File("src/test/resources/examples/gemma/simple.xml");
+        Path createTempFile = FileUtil.createTempFile(null, ".result");
+        Files.copy(srcFile, createTempFile.toFile());
+        FileUtil.IdentifiedFile result = FileUtil.identifyFile(createTempFile, null);
+        assertEquals("application/xml", result.mimeType());
+        assertTrue(result.path().toString().endsWith(".xml"));
+        assertTrue(result.path().toFile().delete());
+    }
+
+    @Test
+    public void testIdentifyFileXmlSubtype() throws IOException {
+        System.out.println("testIdentifyFileXmlSubtype");
+        Path createTempFile = FileUtil.createTempFile(null, ".svg");
+        java.nio.file.Files.writeString(createTempFile, "<?xml version=\"1.0\"?>\n<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"1\" height=\"1\"/>");
+        FileUtil.IdentifiedFile result = FileUtil.identifyFile(createTempFile, null);
+        assertEquals("image/svg+xml", result.mimeType());
+        assertTrue(result.path().toString().endsWith(".svg"));
+        assertTrue(result.path().toFile().delete());
+    }
+
+    @Test
+    public void testIdentifyFileWithAuthoritativeMimeType() throws IOException {
+        System.out.println("testIdentifyFileWithAuthoritativeMimeType");
+        //content is not inspected, otherwise it would be identified as XML
+        File srcFile = new File("src/test/resources/examples/gemma/simple.xml");
+        Path createTempFile = FileUtil.createTempFile(null, ".result");
+        Files.copy(srcFile, createTempFile.toFile());
+        FileUtil.IdentifiedFile result = FileUtil.identifyFile(createTempFile, "application/json");
+        assertEquals("application/json", result.mimeType());
+        assertTrue(result.path().toString().endsWith(".json"));
+        assertTrue(result.path().toFile().delete());
+    }
+
     @Test
     public void testFixFileExtensionWrongFile() {
         System.out.println("testFixFileExtensionUnknown");
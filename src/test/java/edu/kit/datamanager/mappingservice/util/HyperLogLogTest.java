@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 Karlsruhe Institute of Technology.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.datamanager.mappingservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HyperLogLogTest {
+
+    /**
+     * Finalizer of SplitMix64 spreading consecutive values uniformly.
+     */
+    private static long hash(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static void assertEstimate(long expected, long estimate) {
+        assertEquals(expected, estimate, Math.max(2, expected * 0.05), "Estimate " + estimate + " too far from " + expected + ".");
+    }
+
+    @Test
+    public void testEstimate() {
+        HyperLogLog estimator = new HyperLogLog();
+        assertEquals(0, estimator.estimate());
+        long added = 0;
+        for (long expected : new long[]{1, 10, 100, 1000, 10000, 100000, 1000000}) {
+            for (; added < expected; added++) {
+                estimator.add(hash(added));
+            }
+            assertEstimate(expected, estimator.estimate());
+        }
+        //adding values again does not change the estimate
+        long estimate = estimator.estimate();
+        for (long i = 0; i < 1000; i++) {
+            estimator.add(hash(i));
+        }
+        assertEquals(estimate, estimator.estimate());
+    }
+
+    @Test
+    public void testInvalidPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(19));
+    }
+
+    @Test
+    public void testEstimateUnion() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (long i = 0; i < 20000; i++) {
+            first.add(hash(i));
+            second.add(hash(i + 10000));
+        }
+        assertEstimate(30000, HyperLogLog.estimateUnion(List.of(first, second)));
+        assertEquals(0, HyperLogLog.estimateUnion(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.estimateUnion(List.of(first, new HyperLogLog(10))));
+    }
+
+    @Test
+    public void testConcurrentAdd() throws Exception {
+        HyperLogLog estimator = new HyperLogLog();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            long offset = t * 25000L;
+            threads.add(Thread.ofPlatform().start(() -> {
+                //half of the values overlap with the next thread
+                for (long i = 0; i < 50000; i++) {
+                    estimator.add(hash(offset + i));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEstimate(225000, estimator.estimate());
+    }
+
+    @Test
+    public void testSlidingWindow() {
+        AtomicLong now = new AtomicLong(Duration.ofDays(1000).toMillis());
+        SlidingWindowCardinality window = new SlidingWindowCardinality(Duration.ofHours(1), 12, now::get);
+        assertEquals(Duration.ofHours(1), window.getWindow());
+        assertEquals(0, window.estimate());
+
+        for (long i = 0; i < 1000; i++) {
+            window.add(hash(i));
+        }
+        assertEstimate(1000, window.estimate());
+
+        //30 minutes later, all values are still within the window
+        now.addAndGet(Duration.ofMinutes(30).toMillis());
+        for (long i = 500; i < 2000; i++) {
+            window.add(hash(i));
+        }
+        assertEstimate(2000, window.estimate());
+
+        //after one hour, only the values added 30 minutes ago remain
+        now.addAndGet(Duration.ofMinutes(35).toMillis());
+        assertEstimate(1500, window.estimate());
+
+        //after two hours, the window is empty and slots are reused
+        now.addAndGet(Duration.ofHours(1).toMillis());
+        assertEquals(0, window.estimate());
+        window.add(hash(0));
+        assertEquals(1, window.estimate());
+
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowCardinality(Duration.ofMillis(5), 12, now::get));
+    }
+}
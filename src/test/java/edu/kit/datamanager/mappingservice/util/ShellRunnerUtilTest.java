@@ -17,14 +17,22 @@ package edu.kit.datamanager.mappingservice.util;
 import edu.kit.datamanager.mappingservice.configuration.ApplicationProperties;
 import edu.kit.datamanager.mappingservice.plugins.MappingPluginException;
 import edu.kit.datamanager.mappingservice.plugins.MappingPluginState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.lang3.SystemUtils;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -33,6 +41,9 @@ class ShellRunnerUtilTest {
     @Autowired
     private ApplicationProperties applicationProperties;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     public ShellRunnerUtilTest() {
     }
 
@@ -41,6 +52,12 @@ class ShellRunnerUtilTest {
         ShellRunnerUtil.init(applicationProperties);
     }
 
+    @AfterEach
+    public void tearDown() {
+        //restore the application's registry replaced by runRecordsMetrics
+        ShellRunnerUtil.init(applicationProperties, meterRegistry);
+    }
+
     @Test
     void runValid() {
         if (SystemUtils.IS_OS_WINDOWS) {
@@ -79,4 +96,45 @@ class ShellRunnerUtilTest {
            // assertThrows(MappingPluginException.class, () -> ShellRunnerUtil.run(1, "sudo", "cat", "/dev/urandom"));
         }
     }
+
+    @Test
+    void runTimeoutKillsProcessTree() throws IOException, InterruptedException {
+        assumeTrue(!SystemUtils.IS_OS_WINDOWS);
+        Path ticks = Files.createTempFile("ticks", ".txt");
+        try {
+            //the background loop is a descendant of the started shell
+            MappingPluginException ex = assertThrows(MappingPluginException.class, () -> ShellRunnerUtil.run(System.out, System.err, 1, "/bin/sh", "-c", "(while :; do echo x >> " + ticks + "; sleep 0.1; done) & wait"));
+            assertEquals(MappingPluginState.StateEnum.TIMEOUT, ex.getMappingPluginState().getState());
+            Thread.sleep(300);
+            long size = Files.size(ticks);
+            Thread.sleep(500);
+            assertTrue(size > 0);
+            assertEquals(size, Files.size(ticks));
+        } finally {
+            Files.deleteIfExists(ticks);
+        }
+    }
+
+    @Test
+    void runWithCpuTimeLimit() {
+        assumeTrue(SystemUtils.IS_OS_LINUX);
+        long start = System.currentTimeMillis();
+        MappingPluginException ex = assertThrows(MappingPluginException.class, () -> ShellRunnerUtil.run("test", new ProcessLimits(1, 0), System.out, System.err, 20, "/bin/sh", "-c", "while :; do :; done"));
+        assertEquals(MappingPluginState.StateEnum.BAD_EXIT_CODE, ex.getMappingPluginState().getState());
+        assertTrue(System.currentTimeMillis() - start < 20000);
+    }
+
+    @Test
+    void runRecordsMetrics() throws MappingPluginException {
+        assumeTrue(!SystemUtils.IS_OS_WINDOWS);
+        SimpleMeterRegistry testRegistry = new SimpleMeterRegistry();
+        ShellRunnerUtil.init(applicationProperties, testRegistry);
+        ShellRunnerUtil.run("test", ProcessLimits.NONE, System.out, System.err, 5, "/bin/sh", "-c", "sleep 0.3");
+        assertThrows(MappingPluginException.class, () -> ShellRunnerUtil.run("test", ProcessLimits.NONE, System.out, System.err, 5, "/bin/sh", "-c", "exit 3"));
+        assertEquals(1, testRegistry.get("mapping_service.process.cpu_time").tag("plugin", "test").tag("exit_status", "0").timer().count());
+        assertEquals(1, testRegistry.get("mapping_service.process.cpu_time").tag("plugin", "test").tag("exit_status", "3").timer().count());
+        if (SystemUtils.IS_OS_LINUX) {
+            assertTrue(testRegistry.get("mapping_service.process.max_rss").tag("plugin", "test").tag("exit_status", "0").summary().max() > 0);
+        }
+    }
 }